@@ -0,0 +1,106 @@
+package com.agrizen.auth.store;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one send, verify and reap with 100k outstanding OTPs. {@code legacySend} is the
+ * request path before the expiry-ordered store: a removeIf over the whole map on every send.
+ * Run with {@code mvn -Pbenchmarks test -Dtest=OtpStoreBenchmarkTest}.
+ */
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class OtpStoreBenchmarkTest {
+
+	private static final String CODE = "123456";
+	private static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+	@State(Scope.Thread)
+	public static class Outstanding {
+
+		@Param("100000")
+		int outstanding;
+
+		String[] keys;
+		InMemoryOtpStore store;
+		Map<String, StoredOtp> legacy;
+		int next;
+
+		// Per iteration, so the expiry queue of superseded OTPs does not grow across the run
+		@Setup(Level.Iteration)
+		public void fill() {
+			keys = new String[outstanding];
+			store = new InMemoryOtpStore();
+			legacy = new ConcurrentHashMap<>();
+			for (int i = 0; i < outstanding; i++) {
+				keys[i] = "email:buyer" + i + "@example.com";
+				StoredOtp otp = otp(keys[i]);
+				store.put(keys[i], otp);
+				legacy.put(keys[i], otp);
+			}
+		}
+
+		String nextKey() {
+			next = next + 1 == keys.length ? 0 : next + 1;
+			return keys[next];
+		}
+	}
+
+	@Benchmark
+	public void send(Outstanding state) {
+		String key = state.nextKey();
+		state.store.put(key, otp(key));
+	}
+
+	@Benchmark
+	public Optional<StoredOtp> verify(Outstanding state) {
+		// A wrong code looks the OTP up and counts the attempt without removing it
+		return state.store.consume(state.nextKey(), "000000", Integer.MAX_VALUE);
+	}
+
+	@Benchmark
+	public int reap(Outstanding state) {
+		return state.store.purgeExpired();
+	}
+
+	@Benchmark
+	public void legacySend(Outstanding state) {
+		long now = System.currentTimeMillis();
+		state.legacy.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+		String key = state.nextKey();
+		state.legacy.put(key, otp(key));
+	}
+
+	private static StoredOtp otp(String key) {
+		return new StoredOtp(CODE, key.substring("email:".length()), null, "BUYER", System.currentTimeMillis() + TTL_MS);
+	}
+
+	@Test
+	void run() throws RunnerException {
+		new Runner(new OptionsBuilder().include(getClass().getName()).build()).run();
+	}
+}
@@ -0,0 +1,183 @@
+package com.agrizen.config;
+
+import com.agrizen.farmer.service.ImageBlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.CacheControl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Requests per second for uploaded images: UploadServlet against the Spring MVC resource
+ * handlers it replaced, which are registered again here under {@code /legacy-uploads}. Both
+ * serve the same files from the same directory over a real Tomcat port, for a thumbnail, an
+ * original and a conditional GET. Random bytes stand in for the images, which are already
+ * compressed. Run with {@code mvn -Pbenchmarks test}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UploadServingBenchmarkTest {
+
+	private static final int CLIENT_THREADS = 16;
+	private static final long WARMUP_MILLIS = 3_000;
+	private static final long MEASURE_MILLIS = 8_000;
+
+	private static final String THUMBNAIL = blobKey("a1", "-thumb.jpg");
+	private static final String ORIGINAL = blobKey("b2", ".jpg");
+
+	@TestConfiguration
+	static class LegacyUploads implements WebMvcConfigurer {
+
+		@Value("${app.upload.dir:uploads}")
+		private String uploadDir;
+
+		// WebConfig's resource handlers before UploadServlet, moved to another prefix
+		@Override
+		public void addResourceHandlers(ResourceHandlerRegistry registry) {
+			registry.addResourceHandler("/legacy-uploads/blobs/**")
+					.addResourceLocations("file:" + uploadDir + "/blobs/")
+					.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+			registry.addResourceHandler("/legacy-uploads/**")
+					.addResourceLocations("file:" + uploadDir + "/");
+		}
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Value("${app.upload.dir:uploads}")
+	private String uploadDir;
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final List<Path> files = new ArrayList<>();
+
+	@BeforeEach
+	void writeImages() throws IOException {
+		write(THUMBNAIL, 2_600);
+		write(ORIGINAL, 196_000);
+	}
+
+	@AfterEach
+	void deleteImages() throws IOException {
+		for (Path file : files) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void servletAgainstResourceHandler() throws Exception {
+		List<Result> results = new ArrayList<>();
+		for (String prefix : List.of("/legacy-uploads/", "/uploads/")) {
+			results.add(measure(prefix, "thumbnail (2.6 KB)", THUMBNAIL, false));
+			results.add(measure(prefix, "original (196 KB)", ORIGINAL, false));
+			results.add(measure(prefix, "conditional GET", ORIGINAL, true));
+		}
+
+		System.out.printf("%n/uploads throughput, %d client threads, %d s per case, client and server on one host%n",
+				CLIENT_THREADS, MEASURE_MILLIS / 1000);
+		for (int i = 0; i < 3; i++) {
+			Result legacy = results.get(i);
+			Result servlet = results.get(i + 3);
+			System.out.printf("  %-20s resource handler %8.0f req/s   UploadServlet %8.0f req/s   x%.2f%n",
+					legacy.name, legacy.perSecond(), servlet.perSecond(), servlet.perSecond() / legacy.perSecond());
+		}
+		System.out.println();
+
+		for (Result result : results) {
+			assertThat(result.failures).as(result.prefix + result.name).isZero();
+			assertThat(result.requests).as(result.prefix + result.name).isPositive();
+		}
+	}
+
+	private Result measure(String prefix, String name, String key, boolean conditional) throws Exception {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + prefix + key));
+		if (conditional) {
+			HttpResponse<Void> first = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+			builder.header("If-Modified-Since", first.headers().firstValue("Last-Modified").orElseThrow());
+		}
+		HttpRequest request = builder.build();
+		int expected = conditional ? 304 : 200;
+		load(request, expected, WARMUP_MILLIS);
+		long[] counts = load(request, expected, MEASURE_MILLIS);
+		return new Result(prefix, name, counts[0], counts[1]);
+	}
+
+	// {requests answered with the expected status, other answers or errors}
+	private long[] load(HttpRequest request, int expected, long millis) throws Exception {
+		AtomicLong ok = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		ExecutorService pool = Executors.newFixedThreadPool(CLIENT_THREADS);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int t = 0; t < CLIENT_THREADS; t++) {
+				workers.add(pool.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						try {
+							HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+							(response.statusCode() == expected ? ok : failed).incrementAndGet();
+						} catch (IOException e) {
+							failed.incrementAndGet();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return new long[]{ok.get(), failed.get()};
+	}
+
+	private void write(String key, int size) throws IOException {
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		Path file = Paths.get(uploadDir).resolve(key);
+		Files.createDirectories(file.getParent());
+		files.add(Files.write(file, bytes));
+	}
+
+	private static String blobKey(String prefix, String suffix) {
+		String hash = prefix.repeat(32);
+		return ImageBlobStore.BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + suffix;
+	}
+
+	private record Result(String prefix, String name, long requests, long failures) {
+
+		double perSecond() {
+			return requests * 1000.0 / MEASURE_MILLIS;
+		}
+	}
+}
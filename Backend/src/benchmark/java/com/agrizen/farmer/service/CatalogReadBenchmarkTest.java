@@ -0,0 +1,182 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.CropListingView;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements and allocation of walking the whole catalog page by page: the CropListingView
+ * projection against the entity query it replaced, where every page loads CropListing entities
+ * and the EAGER farmer association adds a select per farmer on the page. Both paths serialize
+ * the page to JSON as the controller would. Run with {@code mvn -Pbenchmarks test}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+class CatalogReadBenchmarkTest {
+
+	private static final int FARMERS = 500;
+	private static final int LISTINGS_PER_FARMER = 4;
+	private static final int PAGE_SIZE = 100;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 10;
+
+	// The catalog page query as it was before the projection
+	private static final String ENTITY_PAGE = "select c from CropListing c where c.id > :afterId order by c.id";
+
+	@Autowired
+	private CropListingRepository cropListingRepository;
+
+	@Autowired
+	private FarmerRepository farmerRepository;
+
+	@Autowired
+	private CropListingService cropListingService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final List<Long> farmers = new ArrayList<>();
+	private final List<Long> listings = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		List<Farmer> saved = new ArrayList<>();
+		for (int f = 0; f < FARMERS; f++) {
+			Farmer farmer = new Farmer();
+			farmer.setName("Farmer " + f);
+			farmer.setEmail("bench-" + UUID.randomUUID() + "@example.com");
+			saved.add(farmerRepository.save(farmer));
+			farmers.add(saved.get(f).getId());
+		}
+		// Farmers take turns, so each page touches many of them as a busy catalog does
+		List<CropListing> rows = new ArrayList<>();
+		for (int l = 0; l < LISTINGS_PER_FARMER; l++) {
+			for (Farmer farmer : saved) {
+				rows.add(cropListingService.newListing(farmer, "Tomato " + l, "Vegetables", 10,
+						new BigDecimal("25.00"), LocalDate.now(), "Pune", null, null, "Fresh from the farm", null));
+			}
+		}
+		cropListingRepository.saveAll(rows).forEach(listing -> listings.add(listing.getId()));
+	}
+
+	@AfterEach
+	void deleteSeed() {
+		cropListingRepository.deleteAllById(listings);
+		farmerRepository.deleteAllById(farmers);
+	}
+
+	@Test
+	void projectionIssuesOneStatementPerPageAndAllocatesLess() {
+		Result entities = measure("entity", this::entityPage);
+		Result views = measure("projection", this::viewPage);
+
+		System.out.printf("%nCatalog walk over %d listings in pages of %d, mean of %d rounds%n",
+				FARMERS * LISTINGS_PER_FARMER, PAGE_SIZE, ROUNDS);
+		for (Result result : List.of(entities, views)) {
+			System.out.printf("  %-10s %6d statements %12d bytes allocated %8.2f ms%n",
+					result.path, result.statements, result.allocatedBytes, result.millis);
+		}
+		System.out.printf("  statements x%.1f, allocation x%.1f%n%n", (double) entities.statements / views.statements,
+				(double) entities.allocatedBytes / views.allocatedBytes);
+
+		assertThat(views.statements).isEqualTo(views.pages);
+		assertThat(entities.statements).isGreaterThan(views.statements);
+		assertThat(views.allocatedBytes).isLessThan(entities.allocatedBytes);
+	}
+
+	// One request's worth: a fresh persistence context, as open-in-view gives each request
+	private long entityPage(long afterId) {
+		EntityManager em = entityManagerFactory.createEntityManager();
+		try {
+			List<CropListing> page = em.createQuery(ENTITY_PAGE, CropListing.class)
+					.setParameter("afterId", afterId)
+					.setMaxResults(PAGE_SIZE)
+					.getResultList();
+			serialize(page);
+			return page.isEmpty() ? -1 : page.get(page.size() - 1).getId();
+		} finally {
+			em.close();
+		}
+	}
+
+	private long viewPage(long afterId) {
+		List<CropListingView> page = cropListingRepository.findPageOrderById(afterId, null, null, null,
+				PageRequest.of(0, PAGE_SIZE));
+		serialize(page);
+		return page.isEmpty() ? -1 : page.get(page.size() - 1).id();
+	}
+
+	private void serialize(Object page) {
+		try {
+			objectMapper.writeValueAsBytes(page);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Result measure(String path, LongUnaryOperator page) {
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			walk(page);
+		}
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		statistics.clear();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long started = System.nanoTime();
+		int pages = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			pages += walk(page);
+		}
+		long elapsed = System.nanoTime() - started;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		return new Result(path, pages / ROUNDS, statistics.getPrepareStatementCount() / ROUNDS,
+				allocated / ROUNDS, elapsed / 1e6 / ROUNDS);
+	}
+
+	// Pages read, including the empty one that ends the walk
+	private int walk(LongUnaryOperator page) {
+		int pages = 0;
+		long afterId = 0;
+		while (afterId >= 0) {
+			afterId = page.applyAsLong(afterId);
+			pages++;
+		}
+		return pages;
+	}
+
+	private record Result(String path, int pages, long statements, long allocatedBytes, double millis) {
+	}
+}
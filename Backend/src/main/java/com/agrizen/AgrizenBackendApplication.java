@@ -2,8 +2,10 @@ package com.agrizen;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AgrizenBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(AgrizenBackendApplication.class, args);
@@ -2,13 +2,25 @@ package com.agrizen.admin.controller;
 
 import com.agrizen.auth.dto.UserDto;
 import com.agrizen.auth.repository.UserRepository;
+import com.agrizen.farmer.controller.CatalogResponses;
+import com.agrizen.farmer.dto.CatalogQuery;
+import com.agrizen.farmer.dto.CropListingView;
 import com.agrizen.farmer.entity.CropListing;
 import com.agrizen.farmer.entity.Farmer;
 import com.agrizen.farmer.repository.CropListingRepository;
 import com.agrizen.farmer.repository.FarmerRepository;
+import com.agrizen.farmer.service.CatalogCache;
+import com.agrizen.farmer.service.CatalogExportService;
+import com.agrizen.farmer.service.CatalogVersion;
+import com.agrizen.farmer.service.CategoryAgingJob;
+import com.agrizen.farmer.service.CropListingService;
+import com.agrizen.farmer.service.OrphanImageCollector;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,13 +34,31 @@ public class AdminController {
     private final UserRepository userRepository;
     private final FarmerRepository farmerRepository;
     private final CropListingRepository cropListingRepository;
+    private final CropListingService cropListingService;
+    private final CatalogCache catalogCache;
+    private final CatalogVersion catalogVersion;
+    private final CatalogExportService catalogExportService;
+    private final CategoryAgingJob categoryAgingJob;
+    private final OrphanImageCollector orphanImageCollector;
 
     public AdminController(UserRepository userRepository, 
                           FarmerRepository farmerRepository,
-                          CropListingRepository cropListingRepository) {
+                          CropListingRepository cropListingRepository,
+                          CropListingService cropListingService,
+                          CatalogCache catalogCache,
+                          CatalogVersion catalogVersion,
+                          CatalogExportService catalogExportService,
+                          CategoryAgingJob categoryAgingJob,
+                          OrphanImageCollector orphanImageCollector) {
         this.userRepository = userRepository;
         this.farmerRepository = farmerRepository;
         this.cropListingRepository = cropListingRepository;
+        this.cropListingService = cropListingService;
+        this.catalogCache = catalogCache;
+        this.catalogVersion = catalogVersion;
+        this.catalogExportService = catalogExportService;
+        this.categoryAgingJob = categoryAgingJob;
+        this.orphanImageCollector = orphanImageCollector;
     }
 
     @GetMapping("/stats")
@@ -55,58 +85,72 @@ public class AdminController {
     }
 
     @GetMapping("/crops")
-    public ResponseEntity<List<CropListing>> getAllCrops() {
-        return ResponseEntity.ok(cropListingRepository.findAll());
+    public ResponseEntity<List<CropListingView>> getAllCrops(
+            @RequestParam(required = false) Long farmerId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cropType,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (CatalogResponses.notModified(request, catalogVersion)) {
+            return null;
+        }
+        CatalogQuery query = cropListingService.query(farmerId, category, cropType, sort, cursor, limit);
+        return CatalogResponses.page(cropListingService.getPage(query));
     }
 
-    @GetMapping("/crops/category/{category}")
-    public ResponseEntity<List<CropListing>> getCropsByCategory(@PathVariable String category) {
-        List<CropListing> crops;
-        if ("PRODUCTS".equals(category)) {
-            // For PRODUCTS, include crops with null category or PRODUCTS category
-            List<CropListing> allCrops = cropListingRepository.findAll();
-            crops = allCrops.stream()
-                    .filter(c -> c.getCategory() == null || "PRODUCTS".equals(c.getCategory()))
-                    .collect(Collectors.toList());
+    /**
+     * Stream every listing as NDJSON (default) or CSV without building the list in memory.
+     */
+    @GetMapping("/crops/export")
+    public void exportCrops(@RequestParam(defaultValue = "ndjson") String format,
+                            HttpServletResponse response) throws IOException {
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=\"crops.csv\"");
+            catalogExportService.writeCsv(response.getOutputStream());
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson");
+            response.setHeader("Content-Disposition", "attachment; filename=\"crops.ndjson\"");
+            catalogExportService.writeNdjson(response.getOutputStream());
         } else {
-            crops = cropListingRepository.findByCategory(category);
+            throw new IllegalArgumentException("Invalid format. Use 'ndjson' or 'csv'");
+        }
+    }
+
+    @GetMapping("/crops/category/{category}")
+    public ResponseEntity<List<CropListingView>> getCropsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (CatalogResponses.notModified(request, catalogVersion)) {
+            return null;
         }
-        return ResponseEntity.ok(crops);
+        // For PRODUCTS, the query also includes crops with a null category
+        CatalogQuery query = cropListingService.query(null, category, null, sort, cursor, limit);
+        return CatalogResponses.page(cropListingService.getPage(query));
     }
 
     @PutMapping("/crops/{id}/category")
     public ResponseEntity<CropListing> updateCropCategory(
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
-        CropListing crop = cropListingRepository.findById(id).orElse(null);
-        if (crop == null) {
-            return ResponseEntity.notFound().build();
-        }
         String category = request.get("category");
-        crop.setCategory(category);
-        cropListingRepository.save(crop);
-        return ResponseEntity.ok(crop);
+        return cropListingService.updateCategory(id, category)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/crops/{id}")
     public ResponseEntity<CropListing> updateCrop(
             @PathVariable Long id,
             @RequestBody CropListing updatedCrop) {
-        CropListing crop = cropListingRepository.findById(id).orElse(null);
-        if (crop == null) {
-            return ResponseEntity.notFound().build();
-        }
-        // Update fields
-        if (updatedCrop.getCropName() != null) crop.setCropName(updatedCrop.getCropName());
-        if (updatedCrop.getCropType() != null) crop.setCropType(updatedCrop.getCropType());
-        if (updatedCrop.getQuantity() != null) crop.setQuantity(updatedCrop.getQuantity());
-        if (updatedCrop.getPrice() != null) crop.setPrice(updatedCrop.getPrice());
-        if (updatedCrop.getLocation() != null) crop.setLocation(updatedCrop.getLocation());
-        if (updatedCrop.getDescription() != null) crop.setDescription(updatedCrop.getDescription());
-        if (updatedCrop.getCategory() != null) crop.setCategory(updatedCrop.getCategory());
-        if (updatedCrop.getHarvestDate() != null) crop.setHarvestDate(updatedCrop.getHarvestDate());
-        cropListingRepository.save(crop);
-        return ResponseEntity.ok(crop);
+        return cropListingService.update(id, updatedCrop)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/users/{id}")
@@ -120,11 +164,24 @@ public class AdminController {
 
     @DeleteMapping("/crops/{id}")
     public ResponseEntity<Void> deleteCrop(@PathVariable Long id) {
-        if (cropListingRepository.existsById(id)) {
-            cropListingRepository.deleteById(id);
+        if (cropListingService.delete(id)) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
-}
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(catalogCache.stats());
+    }
+
+    @PostMapping("/crops/aging/run")
+    public ResponseEntity<Map<String, Object>> runCategoryAging() {
+        return ResponseEntity.ok(categoryAgingJob.run());
+    }
+
+    @PostMapping("/images/gc/run")
+    public ResponseEntity<Map<String, Object>> runImageGc(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(orphanImageCollector.run(dryRun));
+    }
+}
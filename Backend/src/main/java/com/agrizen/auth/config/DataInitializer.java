@@ -3,43 +3,56 @@ package com.agrizen.auth.config;
 import com.agrizen.auth.entity.User;
 import com.agrizen.auth.model.Role;
 import com.agrizen.auth.repository.UserRepository;
+import com.agrizen.auth.service.PasswordHashingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.util.Locale;
 
+/**
+ * Creates the admin account from {@code app.admin.email} and {@code app.admin.password} on
+ * first start. Without a password nothing is seeded. An existing account is left alone, so a
+ * password changed later is not reset on restart.
+ */
 @Component
 public class DataInitializer implements CommandLineRunner {
 
+	private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
 	private final UserRepository userRepository;
-	private final BCryptPasswordEncoder passwordEncoder;
+	private final PasswordHashingService passwordHashingService;
 
-	public DataInitializer(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder) {
+	public DataInitializer(UserRepository userRepository, PasswordHashingService passwordHashingService) {
 		this.userRepository = userRepository;
-		this.passwordEncoder = passwordEncoder;
+		this.passwordHashingService = passwordHashingService;
 	}
 
+	@Value("${app.admin.email:admin@agrizen.com}")
+	private String adminEmail;
+
+	@Value("${app.admin.password:}")
+	private String adminPassword;
+
     @Override
     public void run(String... args) {
-        // Ensure admin user exists
-        String adminEmail = "admin@agrizen.com";
-        if (!userRepository.existsByEmail(adminEmail)) {
-            User admin = new User();
-            admin.setName("Admin");
-            admin.setEmail(adminEmail.toLowerCase(Locale.ROOT));
-            admin.setPassword(passwordEncoder.encode("admin"));
-            admin.setRole(Role.ADMIN);
-            userRepository.save(admin);
-            System.out.println("Admin user created: admin@agrizen.com");
-        } else {
-            userRepository.findByEmail(adminEmail.toLowerCase(Locale.ROOT))
-                    .ifPresent(u -> {
-                        u.setPassword(passwordEncoder.encode("admin"));
-                        userRepository.save(u);
-                    });
-            System.out.println("Admin user already exists");
+        String email = adminEmail.trim().toLowerCase(Locale.ROOT);
+        if (userRepository.existsByEmail(email)) {
+            return;
+        }
+        if (adminPassword.isBlank()) {
+            log.warn("No admin account {} and app.admin.password is not set; set ADMIN_PASSWORD to create one", email);
+            return;
         }
+        User admin = new User();
+        admin.setName("Admin");
+        admin.setEmail(email);
+        admin.setPassword(passwordHashingService.hash(adminPassword));
+        admin.setRole(Role.ADMIN);
+        userRepository.save(admin);
+        log.info("Admin account created: {}", email);
     }
 }
 
@@ -0,0 +1,44 @@
+package com.agrizen.auth.config;
+
+import com.agrizen.auth.store.InMemoryOtpStore;
+import com.agrizen.auth.store.JdbcOtpStore;
+import com.agrizen.auth.store.OtpStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+
+/**
+ * Chooses the {@link OtpStore} with {@code app.otp.store.type}:
+ * <ul>
+ *   <li>{@code memory} (default): a map in this JVM; fine for a single instance.</li>
+ *   <li>{@code jdbc}: the {@code otp_codes} table in the application database, shared by all
+ *   instances, so an OTP sent through one can be verified through any other.</li>
+ * </ul>
+ */
+@Configuration
+public class OtpStoreConfig {
+
+	@Value("${app.otp.store.type:memory}")
+	private String type;
+
+	@Value("${app.otp.store.jdbc.purge-batch-size:500}")
+	private int purgeBatchSize;
+
+	@Value("${app.otp.store.jdbc.near-cache-size:0}")
+	private int nearCacheSize;
+
+	@Bean
+	public OtpStore otpStore(DataSource dataSource) {
+		switch (type.trim().toLowerCase(Locale.ROOT)) {
+			case "memory":
+				return new InMemoryOtpStore();
+			case "jdbc":
+				return new JdbcOtpStore(dataSource, purgeBatchSize, nearCacheSize);
+			default:
+				throw new IllegalStateException("Unknown app.otp.store.type: " + type);
+		}
+	}
+}
@@ -4,9 +4,17 @@ import com.agrizen.auth.dto.*;
 import com.agrizen.auth.entity.User;
 import com.agrizen.auth.model.Role;
 import com.agrizen.auth.service.UserService;
+import com.agrizen.auth.store.StoredOtp;
+import com.agrizen.auth.service.JwtService;
+import com.agrizen.auth.service.OtpDeliveryService;
+import com.agrizen.auth.service.OtpOutboxFullException;
+import com.agrizen.auth.service.OtpRateLimiter;
 import com.agrizen.auth.service.OtpService;
 import com.agrizen.farmer.entity.Farmer;
 import com.agrizen.farmer.repository.FarmerRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,11 +27,18 @@ public class AuthController {
 
 	private final UserService userService;
 	private final OtpService otpService;
+	private final OtpDeliveryService otpDeliveryService;
+	private final OtpRateLimiter otpRateLimiter;
+	private final JwtService jwtService;
 	private final FarmerRepository farmerRepository;
 
-	public AuthController(UserService userService, OtpService otpService, FarmerRepository farmerRepository) {
+	public AuthController(UserService userService, OtpService otpService, OtpDeliveryService otpDeliveryService,
+	                      OtpRateLimiter otpRateLimiter, JwtService jwtService, FarmerRepository farmerRepository) {
 		this.userService = userService;
 		this.otpService = otpService;
+		this.otpDeliveryService = otpDeliveryService;
+		this.otpRateLimiter = otpRateLimiter;
+		this.jwtService = jwtService;
 		this.farmerRepository = farmerRepository;
 	}
 
@@ -31,7 +46,7 @@ public class AuthController {
 	public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
 		try {
 			User u = userService.register(request);
-			return ResponseEntity.ok(AuthResponse.ok(u.getId(), u.getName(), u.getEmail(), u.getRole()));
+			return ResponseEntity.ok(AuthResponse.ok(u.getId(), u.getName(), u.getEmail(), u.getRole()).withTokens(jwtService.issue(u)));
 		} catch (IllegalArgumentException ex) {
 			return ResponseEntity.badRequest().body(AuthResponse.error(ex.getMessage()));
 		}
@@ -41,26 +56,35 @@ public class AuthController {
 	public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
 		try {
 			User u = userService.login(request);
-			return ResponseEntity.ok(AuthResponse.ok(u.getId(), u.getName(), u.getEmail(), u.getRole()));
+			return ResponseEntity.ok(AuthResponse.ok(u.getId(), u.getName(), u.getEmail(), u.getRole()).withTokens(jwtService.issue(u)));
 		} catch (IllegalArgumentException ex) {
 			return ResponseEntity.badRequest().body(AuthResponse.error(ex.getMessage()));
 		}
 	}
 
+	/**
+	 * Exchange a refresh token for a new token pair. The user is re-read, so a deleted account
+	 * or a changed role takes effect at the next refresh.
+	 */
+	@PostMapping("/refresh")
+	public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+		return jwtService.parseRefreshToken(request.refreshToken)
+			.flatMap(userService::findById)
+			.map(u -> ResponseEntity.ok(AuthResponse.ok(u.getId(), u.getName(), u.getEmail(), u.getRole()).withTokens(jwtService.issue(u))))
+			.orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(AuthResponse.error("Invalid or expired refresh token")));
+	}
+
 	@GetMapping("/ping")
 	public ResponseEntity<Object> ping() {
 		return ResponseEntity.ok().body(java.util.Map.of("ok", true, "env", "backend"));
 	}
 	
 	@PostMapping("/otp/send")
-	public ResponseEntity<OtpResponse> sendOtp(@RequestBody OtpRequest request) {
+	public ResponseEntity<OtpResponse> sendOtp(@RequestBody OtpRequest request, HttpServletRequest httpRequest) {
 		try {
-			// Clean up expired OTPs
-			otpService.cleanupExpiredOtps();
-			
 			String type = request.type != null ? request.type.toLowerCase() : "";
 			String role = request.role != null ? request.role.toUpperCase() : "BUYER";
-			boolean sent = false;
+			Optional<String> deliveryId;
 			String message = "";
 			
 			// Validate role
@@ -83,9 +107,14 @@ public class AuthController {
 				
 				String email = request.email.trim().toLowerCase();
 				
+				ResponseEntity<OtpResponse> throttled = throttle(httpRequest, type, email);
+				if (throttled != null) {
+					return throttled;
+				}
+				
 				// No need to check if user exists - OTP login works for new and existing users
-				sent = otpService.sendOtpViaEmail(email, role);
-				if (sent) {
+				deliveryId = otpService.sendOtpViaEmail(email, role);
+				if (deliveryId.isPresent()) {
 					message = "OTP has been sent to your email address. Please check your inbox.";
 				} else {
 					message = "Failed to send OTP. Please ensure email configuration is correct.";
@@ -97,9 +126,14 @@ public class AuthController {
 				
 				String mobile = request.mobileNumber.trim();
 				
+				ResponseEntity<OtpResponse> throttled = throttle(httpRequest, type, mobile);
+				if (throttled != null) {
+					return throttled;
+				}
+				
 				// No need to check if user exists - OTP login works for new and existing users
-				sent = otpService.sendOtpViaSms(mobile, role);
-				if (sent) {
+				deliveryId = otpService.sendOtpViaSms(mobile, role);
+				if (deliveryId.isPresent()) {
 					message = "OTP has been sent to your mobile number. Please check your SMS.";
 				} else {
 					message = "Failed to send OTP. Please ensure SMS gateway is configured correctly.";
@@ -108,15 +142,26 @@ public class AuthController {
 				return ResponseEntity.badRequest().body(OtpResponse.error("Invalid type. Use 'email' or 'mobile'"));
 			}
 			
-			return sent 
-				? ResponseEntity.ok(OtpResponse.success(message))
+			return deliveryId.isPresent()
+				? ResponseEntity.ok(OtpResponse.queued(message, deliveryId.get()))
 				: ResponseEntity.badRequest().body(OtpResponse.error(message));
+		} catch (OtpOutboxFullException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+				.body(OtpResponse.error(e.getMessage()));
 		} catch (Exception e) {
 			System.err.println("Error in sendOtp endpoint: " + e.getMessage());
 			return ResponseEntity.badRequest().body(OtpResponse.error("Error sending OTP: " + e.getMessage()));
 		}
 	}
 	
+	@GetMapping("/otp/deliveries/{deliveryId}")
+	public ResponseEntity<OtpDeliveryStatus> otpDeliveryStatus(@PathVariable String deliveryId) {
+		return otpDeliveryService.status(deliveryId)
+			.map(ResponseEntity::ok)
+			.orElse(ResponseEntity.notFound().build());
+	}
+	
 	@PostMapping("/otp/verify")
 	public ResponseEntity<AuthResponse> verifyOtp(@RequestBody OtpVerifyRequest request) {
 		try {
@@ -125,66 +170,62 @@ public class AuthController {
 			}
 			
 			String type = request.type != null ? request.type.toLowerCase() : "";
-			boolean isValid = false;
-			User user = null;
-			String roleFromOtp = null;
+			String email = null;
+			String mobile = null;
 			
 			if ("email".equals(type)) {
 				if (request.email == null || request.email.trim().isEmpty()) {
 					return ResponseEntity.badRequest().body(AuthResponse.error("Email is required"));
 				}
-				
-				// Get role from OTP before verification
-				roleFromOtp = otpService.getRoleFromOtp(request.email.trim().toLowerCase(), null, "email");
-				
-				isValid = otpService.verifyOtp(request.email.trim().toLowerCase(), null, request.otp, "email");
-				if (isValid) {
-					// Get or create user based on role from OTP
-					Role role = roleFromOtp != null ? Role.valueOf(roleFromOtp.toUpperCase()) : Role.BUYER;
-					user = userService.createOrGetUserForOtp(request.email.trim().toLowerCase(), null, role);
-					
-					// If farmer, ensure farmer profile exists
-					if (role == Role.FARMER) {
-						ensureFarmerProfileExists(user);
-					}
-				}
+				email = request.email.trim().toLowerCase();
 			} else if ("mobile".equals(type)) {
 				if (request.mobileNumber == null || request.mobileNumber.trim().isEmpty()) {
 					return ResponseEntity.badRequest().body(AuthResponse.error("Mobile number is required"));
 				}
-				
-				// Get role from OTP before verification
-				roleFromOtp = otpService.getRoleFromOtp(null, request.mobileNumber.trim(), "mobile");
-				
-				isValid = otpService.verifyOtp(null, request.mobileNumber.trim(), request.otp, "mobile");
-				if (isValid) {
-					// Get or create user based on role from OTP
-					Role role = roleFromOtp != null ? Role.valueOf(roleFromOtp.toUpperCase()) : Role.BUYER;
-					user = userService.createOrGetUserForOtp(null, request.mobileNumber.trim(), role);
-					
-					// If farmer, ensure farmer profile exists
-					if (role == Role.FARMER) {
-						ensureFarmerProfileExists(user);
-					}
-				}
+				mobile = request.mobileNumber.trim();
 			} else {
 				return ResponseEntity.badRequest().body(AuthResponse.error("Invalid type. Use 'email' or 'mobile'"));
 			}
 			
-			if (!isValid) {
+			// Check and use up the OTP in one step; the role stored with it comes back with it
+			Optional<StoredOtp> consumed = otpService.consume(OtpService.keyFor(type, email, mobile), request.otp);
+			if (consumed.isEmpty()) {
 				return ResponseEntity.badRequest().body(AuthResponse.error("Invalid or expired OTP"));
 			}
 			
+			// Get or create user based on role from OTP
+			String roleFromOtp = consumed.get().role();
+			Role role = roleFromOtp != null ? Role.valueOf(roleFromOtp.toUpperCase()) : Role.BUYER;
+			User user = userService.createOrGetUserForOtp(email, mobile, role);
+			
 			if (user == null) {
 				return ResponseEntity.badRequest().body(AuthResponse.error("Failed to create or retrieve user"));
 			}
 			
-			return ResponseEntity.ok(AuthResponse.ok(user.getId(), user.getName(), user.getEmail(), user.getRole()));
+			// If farmer, ensure farmer profile exists
+			if (role == Role.FARMER) {
+				ensureFarmerProfileExists(user);
+			}
+			
+			return ResponseEntity.ok(AuthResponse.ok(user.getId(), user.getName(), user.getEmail(), user.getRole()).withTokens(jwtService.issue(user)));
 		} catch (Exception e) {
 			return ResponseEntity.badRequest().body(AuthResponse.error("Error verifying OTP: " + e.getMessage()));
 		}
 	}
 	
+	/**
+	 * 429 with Retry-After if this client or recipient has asked for too many OTPs, otherwise null
+	 */
+	private ResponseEntity<OtpResponse> throttle(HttpServletRequest httpRequest, String type, String recipient) {
+		long retryAfter = otpRateLimiter.tryAcquire(httpRequest.getRemoteAddr(), type, recipient);
+		if (retryAfter == 0) {
+			return null;
+		}
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+			.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+			.body(OtpResponse.error("Too many OTP requests. Please try again in " + retryAfter + " seconds."));
+	}
+	
 	/**
 	 * Ensure farmer profile exists for the user
 	 */
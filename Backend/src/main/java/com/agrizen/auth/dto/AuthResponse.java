@@ -9,6 +9,11 @@ public class AuthResponse {
 	public Role role;
 	public String name;
 	public String email;
+	// Send as "Authorization: Bearer <accessToken>"; renew with POST /api/auth/refresh
+	public String accessToken;
+	public String refreshToken;
+	public String tokenType;
+	public Long expiresIn;
 
 	public static AuthResponse ok(Long id, String name, String email, Role role) {
 		AuthResponse r = new AuthResponse();
@@ -21,6 +26,14 @@ public class AuthResponse {
 		return r;
 	}
 
+	public AuthResponse withTokens(TokenPair tokens) {
+		this.accessToken = tokens.accessToken();
+		this.refreshToken = tokens.refreshToken();
+		this.tokenType = "Bearer";
+		this.expiresIn = tokens.expiresIn();
+		return this;
+	}
+
 	public static AuthResponse error(String message) {
 		AuthResponse r = new AuthResponse();
 		r.success = false;
@@ -0,0 +1,12 @@
+package com.agrizen.auth.dto;
+
+import com.agrizen.auth.model.Role;
+
+/**
+ * Caller identity taken from a verified access token; set as a request attribute by the JWT filter.
+ */
+public record AuthenticatedUser(Long userId, Role role, String email) {
+
+	// A literal so controllers can bind it with @RequestAttribute
+	public static final String REQUEST_ATTRIBUTE = "com.agrizen.auth.dto.AuthenticatedUser";
+}
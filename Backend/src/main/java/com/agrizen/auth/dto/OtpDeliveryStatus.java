@@ -0,0 +1,14 @@
+package com.agrizen.auth.dto;
+
+import java.time.Instant;
+
+/**
+ * State of one queued OTP message. The recipient and the code itself are never exposed.
+ */
+public record OtpDeliveryStatus(String deliveryId, String channel, State state, int attempts,
+                                String lastError, Instant createdAt, Instant updatedAt) {
+
+	public enum State {
+		QUEUED, RETRYING, SENT, FAILED
+	}
+}
@@ -4,6 +4,8 @@ public class OtpResponse {
 	public boolean success;
 	public String message;
 	public boolean otpSent;
+	// Poll GET /api/auth/otp/deliveries/{deliveryId} for the delivery outcome
+	public String deliveryId;
 	
 	public static OtpResponse success(String message) {
 		OtpResponse r = new OtpResponse();
@@ -13,6 +15,12 @@ public class OtpResponse {
 		return r;
 	}
 	
+	public static OtpResponse queued(String message, String deliveryId) {
+		OtpResponse r = success(message);
+		r.deliveryId = deliveryId;
+		return r;
+	}
+	
 	public static OtpResponse error(String message) {
 		OtpResponse r = new OtpResponse();
 		r.success = false;
@@ -0,0 +1,5 @@
+package com.agrizen.auth.dto;
+
+public class RefreshRequest {
+	public String refreshToken;
+}
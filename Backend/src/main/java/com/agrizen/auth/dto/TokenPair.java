@@ -0,0 +1,7 @@
+package com.agrizen.auth.dto;
+
+/**
+ * Signed session tokens; {@code expiresIn} is the access token lifetime in seconds.
+ */
+public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+}
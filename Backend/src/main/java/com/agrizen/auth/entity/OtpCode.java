@@ -0,0 +1,48 @@
+package com.agrizen.auth.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Table behind the JDBC OTP store; one row per key, holding the latest OTP issued for it.
+ * Only mapped so the schema is created with the rest; the store itself uses plain JDBC.
+ */
+@Entity
+@Table(name = "otp_codes", indexes = @Index(name = "idx_otp_codes_expires_at", columnList = "expires_at"))
+public class OtpCode {
+	@Id
+	@Column(name = "otp_key", length = 191)
+	private String key;
+
+	@Column(length = 10, nullable = false)
+	private String code;
+
+	private String email;
+
+	@Column(name = "mobile_number")
+	private String mobileNumber;
+
+	@Column(length = 20)
+	private String role;
+
+	// Epoch millis
+	@Column(name = "expires_at", nullable = false)
+	private Long expiresAt;
+
+	@Column(name = "failed_attempts", nullable = false)
+	private Integer failedAttempts;
+
+	public String getKey() { return key; }
+	public void setKey(String key) { this.key = key; }
+	public String getCode() { return code; }
+	public void setCode(String code) { this.code = code; }
+	public String getEmail() { return email; }
+	public void setEmail(String email) { this.email = email; }
+	public String getMobileNumber() { return mobileNumber; }
+	public void setMobileNumber(String mobileNumber) { this.mobileNumber = mobileNumber; }
+	public String getRole() { return role; }
+	public void setRole(String role) { this.role = role; }
+	public Long getExpiresAt() { return expiresAt; }
+	public void setExpiresAt(Long expiresAt) { this.expiresAt = expiresAt; }
+	public Integer getFailedAttempts() { return failedAttempts; }
+	public void setFailedAttempts(Integer failedAttempts) { this.failedAttempts = failedAttempts; }
+}
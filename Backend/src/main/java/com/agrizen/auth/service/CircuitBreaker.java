@@ -0,0 +1,67 @@
+package com.agrizen.auth.service;
+
+/**
+ * Consecutive-failure circuit breaker for an outbound channel.
+ * After {@code failureThreshold} failures in a row the circuit opens for {@code openMillis};
+ * then a single trial call is let through, which either closes it again or re-opens it.
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openMillis;
+
+	private int consecutiveFailures;
+	private long openUntil;
+	private boolean trialInFlight;
+
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openMillis = openMillis;
+	}
+
+	/**
+	 * @return true if the caller may make a call now; a caller that gets true must report
+	 * the outcome through {@link #recordSuccess()} or {@link #recordFailure()}
+	 */
+	public synchronized boolean tryAcquire() {
+		if (consecutiveFailures < failureThreshold) {
+			return true;
+		}
+		if (trialInFlight || System.currentTimeMillis() < openUntil) {
+			return false;
+		}
+		trialInFlight = true;
+		return true;
+	}
+
+	public synchronized void recordSuccess() {
+		consecutiveFailures = 0;
+		trialInFlight = false;
+	}
+
+	public synchronized void recordFailure() {
+		consecutiveFailures++;
+		trialInFlight = false;
+		if (consecutiveFailures >= failureThreshold) {
+			openUntil = System.currentTimeMillis() + openMillis;
+		}
+	}
+
+	/**
+	 * Milliseconds until a trial call will be allowed; 0 if the circuit is not open.
+	 */
+	public synchronized long millisUntilTrial() {
+		return Math.max(0, openUntil - System.currentTimeMillis());
+	}
+
+	public synchronized State state() {
+		if (consecutiveFailures < failureThreshold) {
+			return State.CLOSED;
+		}
+		return trialInFlight || System.currentTimeMillis() >= openUntil ? State.HALF_OPEN : State.OPEN;
+	}
+}
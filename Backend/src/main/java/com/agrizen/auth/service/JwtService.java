@@ -0,0 +1,141 @@
+package com.agrizen.auth.service;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.auth.dto.TokenPair;
+import com.agrizen.auth.entity.User;
+import com.agrizen.auth.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Issues and checks HS256-signed session tokens. A short-lived access token carries the user id,
+ * role and email, so authenticated requests need no database or BCrypt work; a longer-lived
+ * refresh token only carries the user id and is exchanged for a new pair at
+ * {@code POST /api/auth/refresh}. The signing key and parser are built once at startup.
+ * <p>
+ * Without {@code jwt.secret} a random key is used, so tokens stop working on restart and are
+ * not accepted by other instances.
+ */
+@Service
+public class JwtService implements InitializingBean {
+
+	private static final Logger log = LoggerFactory.getLogger(JwtService.class);
+
+	private static final String ISSUER = "agrizen";
+	private static final String TYPE_CLAIM = "typ";
+	private static final String ACCESS = "access";
+	private static final String REFRESH = "refresh";
+
+	@Value("${jwt.secret:}")
+	private String secret;
+
+	@Value("${app.auth.jwt.access-ttl-seconds:900}")
+	private long accessTtlSeconds;
+
+	@Value("${app.auth.jwt.refresh-ttl-seconds:604800}")
+	private long refreshTtlSeconds;
+
+	@Value("${app.auth.jwt.clock-skew-seconds:30}")
+	private long clockSkewSeconds;
+
+	private SecretKey key;
+	private JwtParser parser;
+
+	@Override
+	public void afterPropertiesSet() {
+		byte[] keyBytes;
+		if (secret.isBlank()) {
+			log.warn("jwt.secret is not set; using a random key, so sessions end on restart and are not shared between instances");
+			keyBytes = new byte[32];
+			new SecureRandom().nextBytes(keyBytes);
+		} else {
+			keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+			if (keyBytes.length < 32) {
+				throw new IllegalStateException("jwt.secret must be at least 32 bytes for HS256");
+			}
+		}
+		key = Keys.hmacShaKeyFor(keyBytes);
+		parser = Jwts.parserBuilder()
+				.setSigningKey(key)
+				.requireIssuer(ISSUER)
+				.setAllowedClockSkewSeconds(clockSkewSeconds)
+				.build();
+	}
+
+	public TokenPair issue(User user) {
+		long now = System.currentTimeMillis();
+		String access = Jwts.builder()
+				.setIssuer(ISSUER)
+				.setSubject(String.valueOf(user.getId()))
+				.claim(TYPE_CLAIM, ACCESS)
+				.claim("role", user.getRole().name())
+				.claim("email", user.getEmail())
+				.setIssuedAt(new Date(now))
+				.setExpiration(new Date(now + accessTtlSeconds * 1000))
+				.signWith(key, SignatureAlgorithm.HS256)
+				.compact();
+		String refresh = Jwts.builder()
+				.setIssuer(ISSUER)
+				.setSubject(String.valueOf(user.getId()))
+				.claim(TYPE_CLAIM, REFRESH)
+				.setIssuedAt(new Date(now))
+				.setExpiration(new Date(now + refreshTtlSeconds * 1000))
+				.signWith(key, SignatureAlgorithm.HS256)
+				.compact();
+		return new TokenPair(access, refresh, accessTtlSeconds);
+	}
+
+	/**
+	 * The caller behind a valid, unexpired access token.
+	 */
+	public Optional<AuthenticatedUser> parseAccessToken(String token) {
+		return claims(token, ACCESS).flatMap(claims -> {
+			try {
+				return Optional.of(new AuthenticatedUser(Long.valueOf(claims.getSubject()),
+						Role.valueOf(claims.get("role", String.class)), claims.get("email", String.class)));
+			} catch (RuntimeException e) {
+				return Optional.empty();
+			}
+		});
+	}
+
+	/**
+	 * The user id behind a valid, unexpired refresh token.
+	 */
+	public Optional<Long> parseRefreshToken(String token) {
+		return claims(token, REFRESH).flatMap(claims -> {
+			try {
+				return Optional.of(Long.valueOf(claims.getSubject()));
+			} catch (NumberFormatException e) {
+				return Optional.empty();
+			}
+		});
+	}
+
+	private Optional<Claims> claims(String token, String type) {
+		if (token == null || token.isBlank()) {
+			return Optional.empty();
+		}
+		try {
+			Claims claims = parser.parseClaimsJws(token).getBody();
+			return type.equals(claims.get(TYPE_CLAIM, String.class)) ? Optional.of(claims) : Optional.empty();
+		} catch (JwtException | IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package com.agrizen.auth.service;
+
+import com.agrizen.auth.dto.OtpDeliveryStatus;
+import com.agrizen.auth.dto.OtpDeliveryStatus.State;
+import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.rest.api.v2010.account.Message;
+import com.twilio.type.PhoneNumber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbox for OTP messages. Requests only enqueue a delivery and get its id back; a small
+ * worker pool sends the mail or SMS, retrying with exponential backoff until the OTP itself
+ * expires. Each channel has its own circuit breaker, so a mail server that is down costs one
+ * trial call per cool-down instead of a timeout per message. At most {@code queueCapacity}
+ * deliveries are in flight; beyond that new ones are refused with {@link OtpOutboxFullException}.
+ */
+@Service
+public class OtpDeliveryService implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(OtpDeliveryService.class);
+
+	private static final long FULL_RETRY_AFTER_SECONDS = 5;
+
+	public enum Channel {
+		EMAIL, SMS
+	}
+
+	@Autowired(required = false)
+	private JavaMailSender mailSender;
+
+	@Value("${twilio.account.sid:}")
+	private String twilioAccountSid;
+
+	@Value("${twilio.auth.token:}")
+	private String twilioAuthToken;
+
+	@Value("${twilio.phone.number:}")
+	private String twilioPhoneNumber;
+
+	@Value("${app.otp.delivery.threads:4}")
+	private int threads;
+
+	@Value("${app.otp.delivery.queue-capacity:1000}")
+	private int queueCapacity;
+
+	@Value("${app.otp.delivery.max-attempts:4}")
+	private int maxAttempts;
+
+	@Value("${app.otp.delivery.initial-backoff-ms:1000}")
+	private long initialBackoffMs;
+
+	@Value("${app.otp.delivery.breaker.failure-threshold:5}")
+	private int breakerFailureThreshold;
+
+	@Value("${app.otp.delivery.breaker.open-seconds:30}")
+	private long breakerOpenSeconds;
+
+	// Finished deliveries stay queryable this long
+	@Value("${app.otp.delivery.retention-seconds:900}")
+	private long retentionSeconds;
+
+	private ScheduledThreadPoolExecutor executor;
+	private boolean twilioConfigured;
+	private final Map<Channel, CircuitBreaker> breakers = new EnumMap<>(Channel.class);
+	private final Map<String, Delivery> deliveries = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private static final class Delivery {
+		final String id = UUID.randomUUID().toString();
+		final Channel channel;
+		final String recipient;
+		final long expiresAt;
+		final Instant createdAt = Instant.now();
+		volatile String otp;
+		volatile State state = State.QUEUED;
+		volatile int attempts;
+		volatile String lastError;
+		volatile Instant updatedAt = createdAt;
+
+		Delivery(Channel channel, String recipient, String otp, long expiresAt) {
+			this.channel = channel;
+			this.recipient = recipient;
+			this.otp = otp;
+			this.expiresAt = expiresAt;
+		}
+
+		OtpDeliveryStatus status() {
+			return new OtpDeliveryStatus(id, channel.name().toLowerCase(), state, attempts, lastError, createdAt, updatedAt);
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		for (Channel channel : Channel.values()) {
+			breakers.put(channel, new CircuitBreaker(breakerFailureThreshold, TimeUnit.SECONDS.toMillis(breakerOpenSeconds)));
+		}
+		twilioConfigured = !twilioAccountSid.isEmpty() && !twilioAuthToken.isEmpty() && !twilioPhoneNumber.isEmpty();
+		if (twilioConfigured) {
+			// The Twilio REST client is process-wide and keeps its connection pool between messages
+			Twilio.init(twilioAccountSid, twilioAuthToken);
+		}
+		AtomicInteger counter = new AtomicInteger();
+		executor = new ScheduledThreadPoolExecutor(threads, r -> {
+			Thread t = new Thread(r, "otp-delivery-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	public boolean isConfigured(Channel channel) {
+		return channel == Channel.EMAIL ? mailSender != null : twilioConfigured;
+	}
+
+	/**
+	 * Queue an OTP message. Returns immediately.
+	 *
+	 * @param expiresAt epoch millis after which the OTP is useless and delivery is abandoned
+	 * @return the delivery id, or empty if the channel is not configured or the service is shutting down
+	 * @throws OtpOutboxFullException if {@code queueCapacity} deliveries are already in flight
+	 */
+	public Optional<String> enqueue(Channel channel, String recipient, String otp, long expiresAt) {
+		if (!isConfigured(channel)) {
+			return Optional.empty();
+		}
+		if (inFlight.incrementAndGet() > queueCapacity) {
+			inFlight.decrementAndGet();
+			log.warn("OTP outbox is full ({} in flight); refusing {} delivery", queueCapacity, channel);
+			throw new OtpOutboxFullException("OTP service is busy. Please try again in a few seconds.", FULL_RETRY_AFTER_SECONDS);
+		}
+		Delivery delivery = new Delivery(channel, recipient, otp, expiresAt);
+		deliveries.put(delivery.id, delivery);
+		try {
+			executor.execute(() -> attempt(delivery));
+		} catch (RejectedExecutionException e) {
+			finish(delivery, State.FAILED, "Delivery service is shutting down");
+			return Optional.empty();
+		}
+		return Optional.of(delivery.id);
+	}
+
+	public Optional<OtpDeliveryStatus> status(String deliveryId) {
+		return Optional.ofNullable(deliveries.get(deliveryId)).map(Delivery::status);
+	}
+
+	public CircuitBreaker.State breakerState(Channel channel) {
+		return breakers.get(channel).state();
+	}
+
+	@Scheduled(fixedDelayString = "${app.otp.delivery.sweep-interval-ms:60000}")
+	public void forgetFinishedDeliveries() {
+		Instant cutoff = Instant.now().minusSeconds(retentionSeconds);
+		deliveries.values().removeIf(d -> (d.state == State.SENT || d.state == State.FAILED) && d.updatedAt.isBefore(cutoff));
+	}
+
+	private void attempt(Delivery delivery) {
+		boolean rescheduled = false;
+		try {
+			rescheduled = tryDeliver(delivery);
+		} finally {
+			// An Error out of the mail or SMS client skips finish(); without this its outbox slot would leak
+			if (!rescheduled && delivery.state != State.SENT && delivery.state != State.FAILED) {
+				finish(delivery, State.FAILED, "Delivery failed unexpectedly");
+			}
+		}
+	}
+
+	// Returns true if another attempt was scheduled
+	private boolean tryDeliver(Delivery delivery) {
+		if (System.currentTimeMillis() > delivery.expiresAt) {
+			finish(delivery, State.FAILED, "OTP expired before it could be delivered");
+			return false;
+		}
+		CircuitBreaker breaker = breakers.get(delivery.channel);
+		if (!breaker.tryAcquire()) {
+			// Wait out the open circuit without spending an attempt; the expiry check above bounds this
+			return schedule(delivery, Math.max(initialBackoffMs, breaker.millisUntilTrial()));
+		}
+		delivery.attempts++;
+		try {
+			send(delivery);
+			breaker.recordSuccess();
+			finish(delivery, State.SENT, null);
+			return false;
+		} catch (RuntimeException e) {
+			if (isPermanent(e)) {
+				// The recipient is bad, not the channel
+				breaker.recordSuccess();
+				finish(delivery, State.FAILED, e.getMessage());
+				return false;
+			}
+			breaker.recordFailure();
+			log.warn("OTP {} delivery {} failed (attempt {}/{}): {}", delivery.channel, delivery.id,
+					delivery.attempts, maxAttempts, e.getMessage());
+			if (delivery.attempts >= maxAttempts) {
+				finish(delivery, State.FAILED, e.getMessage());
+				return false;
+			}
+			delivery.state = State.RETRYING;
+			delivery.lastError = e.getMessage();
+			delivery.updatedAt = Instant.now();
+			return schedule(delivery, initialBackoffMs << (delivery.attempts - 1));
+		} catch (Error e) {
+			// Release a half-open trial, or the breaker would wait for its outcome forever
+			breaker.recordFailure();
+			throw e;
+		}
+	}
+
+	private boolean schedule(Delivery delivery, long delayMs) {
+		try {
+			executor.schedule(() -> attempt(delivery), delayMs, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (RejectedExecutionException e) {
+			finish(delivery, State.FAILED, "Delivery service is shutting down");
+			return false;
+		}
+	}
+
+	private void send(Delivery delivery) {
+		if (delivery.channel == Channel.EMAIL) {
+			SimpleMailMessage message = new SimpleMailMessage();
+			message.setTo(delivery.recipient);
+			message.setSubject("AgriZen - Your Login OTP");
+			message.setText("Your OTP for login is: " + delivery.otp + "\n\nThis OTP is valid for 5 minutes.\n\nIf you didn't request this, please ignore this email.");
+			mailSender.send(message);
+		} else {
+			Message.creator(
+				new PhoneNumber(delivery.recipient),
+				new PhoneNumber(twilioPhoneNumber),
+				"Your AgriZen login OTP is: " + delivery.otp + ". Valid for 5 minutes."
+			).create();
+		}
+	}
+
+	private static boolean isPermanent(RuntimeException e) {
+		if (e instanceof MailParseException) {
+			return true;
+		}
+		// 4xx from Twilio (invalid number, unverified recipient, ...) will not succeed on retry, except throttling
+		return e instanceof ApiException api && api.getStatusCode() != null
+				&& api.getStatusCode() >= 400 && api.getStatusCode() < 500 && api.getStatusCode() != 429;
+	}
+
+	// Frees the outbox slot first, so whoever sees the final state can enqueue again
+	private void finish(Delivery delivery, State state, String error) {
+		inFlight.decrementAndGet();
+		delivery.state = state;
+		delivery.lastError = error;
+		delivery.otp = null;
+		delivery.updatedAt = Instant.now();
+	}
+}
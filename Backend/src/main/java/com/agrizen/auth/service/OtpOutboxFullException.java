@@ -0,0 +1,19 @@
+package com.agrizen.auth.service;
+
+/**
+ * Thrown when the OTP delivery outbox already holds its capacity of messages; answered with
+ * 503 and Retry-After.
+ */
+public class OtpOutboxFullException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public OtpOutboxFullException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
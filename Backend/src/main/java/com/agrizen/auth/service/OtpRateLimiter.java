@@ -0,0 +1,95 @@
+package com.agrizen.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles OTP sends per recipient and per client IP, so one caller can neither flood a
+ * single inbox or phone nor spray OTPs across many recipients.
+ * Behind a reverse proxy, set {@code server.forward-headers-strategy=native} so the client
+ * IP is the real one rather than the proxy's.
+ */
+@Service
+public class OtpRateLimiter implements InitializingBean {
+
+	private static final Logger log = LoggerFactory.getLogger(OtpRateLimiter.class);
+
+	@Value("${app.otp.rate-limit.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.otp.rate-limit.identity.capacity:3}")
+	private int identityCapacity;
+
+	@Value("${app.otp.rate-limit.identity.refill-seconds:60}")
+	private long identityRefillSeconds;
+
+	@Value("${app.otp.rate-limit.ip.capacity:20}")
+	private int ipCapacity;
+
+	@Value("${app.otp.rate-limit.ip.refill-seconds:6}")
+	private long ipRefillSeconds;
+
+	@Value("${app.otp.rate-limit.max-keys:100000}")
+	private int maxKeys;
+
+	private TokenBucketRateLimiter byIdentity;
+	private TokenBucketRateLimiter byIp;
+
+	@Override
+	public void afterPropertiesSet() {
+		byIdentity = new TokenBucketRateLimiter(identityCapacity, TimeUnit.SECONDS.toNanos(identityRefillSeconds), maxKeys);
+		byIp = new TokenBucketRateLimiter(ipCapacity, TimeUnit.SECONDS.toNanos(ipRefillSeconds), maxKeys);
+	}
+
+	/**
+	 * Take a send token for this client and recipient.
+	 *
+	 * @param type "email" or "mobile"
+	 * @return 0 if the send may go ahead, otherwise the number of seconds to wait
+	 */
+	public long tryAcquire(String clientIp, String type, String recipient) {
+		if (!enabled) {
+			return 0;
+		}
+		long wait = byIp.tryAcquire(clientIp);
+		if (wait == 0) {
+			wait = byIdentity.tryAcquire(type + ":" + normalize(type, recipient));
+		}
+		return wait == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+	}
+
+	@Scheduled(fixedDelayString = "${app.otp.rate-limit.sweep-interval-ms:60000}")
+	public void evictIdleBuckets() {
+		if (byIdentity == null) {
+			return;
+		}
+		int removed = byIdentity.evictIdle() + byIp.evictIdle();
+		if (removed > 0) {
+			log.debug("Evicted {} idle OTP rate-limit buckets", removed);
+		}
+	}
+
+	/**
+	 * Same recipient, same bucket: case-insensitive emails, and phone numbers without spacing or punctuation.
+	 */
+	static String normalize(String type, String recipient) {
+		if ("mobile".equals(type)) {
+			StringBuilder sb = new StringBuilder(recipient.length());
+			for (int i = 0; i < recipient.length(); i++) {
+				char c = recipient.charAt(i);
+				if (Character.isDigit(c) || (c == '+' && sb.isEmpty())) {
+					sb.append(c);
+				}
+			}
+			return sb.toString();
+		}
+		return recipient.trim().toLowerCase(Locale.ROOT);
+	}
+}
@@ -1,19 +1,14 @@
 package com.agrizen.auth.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import com.agrizen.auth.service.OtpDeliveryService.Channel;
+import com.agrizen.auth.store.OtpStore;
+import com.agrizen.auth.store.StoredOtp;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-
-// Twilio imports for SMS
-import com.twilio.Twilio;
-import com.twilio.rest.api.v2010.account.Message;
-import com.twilio.type.PhoneNumber;
 
 @Service
 public class OtpService {
@@ -21,41 +16,20 @@ public class OtpService {
 	private static final int OTP_LENGTH = 5;
 	private static final long OTP_EXPIRY_TIME = 5 * 60 * 1000; // 5 minutes
 	
-	// In-memory storage for OTPs: key -> OTP, expiry time
-	private final Map<String, OtpData> otpStorage = new ConcurrentHashMap<>();
-	
-	@Autowired(required = false)
-	private JavaMailSender mailSender;
+	// Storage for OTPs: key -> OTP, expiry time (see OtpStoreConfig)
+	private final OtpStore otpStore;
 	
-	@Value("${twilio.account.sid:}")
-	private String twilioAccountSid;
+	private final OtpDeliveryService otpDeliveryService;
 	
-	@Value("${twilio.auth.token:}")
-	private String twilioAuthToken;
-	
-	@Value("${twilio.phone.number:}")
-	private String twilioPhoneNumber;
+	// Wrong guesses allowed per issued OTP before it is invalidated
+	@Value("${app.otp.max-attempts:5}")
+	private int maxAttempts;
 	
 	private final Random random = new Random();
 	
-	static class OtpData {
-		String otp;
-		long expiryTime;
-		String email;
-		String mobileNumber;
-		String role; // Store role for OTP-based registration
-		
-		OtpData(String otp, String email, String mobileNumber, String type, String role) {
-			this.otp = otp;
-			this.email = email;
-			this.mobileNumber = mobileNumber;
-			this.role = role;
-			this.expiryTime = System.currentTimeMillis() + OTP_EXPIRY_TIME;
-		}
-		
-		boolean isExpired() {
-			return System.currentTimeMillis() > expiryTime;
-		}
+	public OtpService(OtpStore otpStore, OtpDeliveryService otpDeliveryService) {
+		this.otpStore = otpStore;
+		this.otpDeliveryService = otpDeliveryService;
 	}
 	
 	/**
@@ -65,167 +39,84 @@ public class OtpService {
 		return String.format("%05d", random.nextInt(100000));
 	}
 	
+	private StoredOtp newOtp(String email, String mobileNumber, String role) {
+		return new StoredOtp(generateOtp(), email, mobileNumber, role, System.currentTimeMillis() + OTP_EXPIRY_TIME);
+	}
+	
 	/**
-	 * Send OTP via email
-	 * Returns true if OTP was sent successfully, false otherwise
+	 * Send OTP via email. The mail is delivered in the background.
+	 * Returns the delivery id, or empty if the OTP could not be queued; throws
+	 * {@link OtpOutboxFullException} when the outbox is full.
 	 */
-	public boolean sendOtpViaEmail(String email, String role) {
-		try {
-			String otp = generateOtp();
-			String key = "email:" + email.toLowerCase();
-			
-			// Store OTP with role information
-			otpStorage.put(key, new OtpData(otp, email, null, "email", role));
-			
-			// Send email if mail sender is configured
-			if (mailSender != null) {
-				try {
-					SimpleMailMessage message = new SimpleMailMessage();
-					message.setTo(email);
-					message.setSubject("AgriZen - Your Login OTP");
-					message.setText("Your OTP for login is: " + otp + "\n\nThis OTP is valid for 5 minutes.\n\nIf you didn't request this, please ignore this email.");
-					mailSender.send(message);
-					// OTP sent successfully - no console logging
-					return true;
-				} catch (Exception e) {
-					System.err.println("Failed to send email OTP: " + e.getMessage());
-					return false;
-				}
-			} else {
-				System.err.println("Email sender not configured. Please configure spring.mail.* properties in application.properties");
-				return false;
-			}
-		} catch (Exception e) {
-			System.err.println("Error in sendOtpViaEmail: " + e.getMessage());
-			return false;
+	public Optional<String> sendOtpViaEmail(String email, String role) {
+		if (!otpDeliveryService.isConfigured(Channel.EMAIL)) {
+			System.err.println("Email sender not configured. Please configure spring.mail.* properties in application.properties");
+			return Optional.empty();
 		}
+		String key = keyFor("email", email, null);
+		return issue(key, newOtp(email, null, role), Channel.EMAIL, email);
 	}
 	
 	/**
-	 * Send OTP via SMS using Twilio
-	 * Returns true if OTP was sent successfully, false otherwise
+	 * Send OTP via SMS using Twilio. The SMS is delivered in the background.
+	 * Returns the delivery id, or empty if the OTP could not be queued; throws
+	 * {@link OtpOutboxFullException} when the outbox is full.
 	 */
-	public boolean sendOtpViaSms(String mobileNumber, String role) {
-		try {
-			String otp = generateOtp();
-			String key = "mobile:" + mobileNumber;
-			
-			// Store OTP with role information
-			otpStorage.put(key, new OtpData(otp, null, mobileNumber, "mobile", role));
-			
-			// Check if Twilio is configured
-			if (twilioAccountSid == null || twilioAccountSid.isEmpty() || 
-			    twilioAuthToken == null || twilioAuthToken.isEmpty() ||
-			    twilioPhoneNumber == null || twilioPhoneNumber.isEmpty()) {
-				System.err.println("Twilio SMS gateway not configured. Please configure twilio.account.sid, twilio.auth.token, and twilio.phone.number in application.properties");
-				return false;
-			}
-			
-			// Send SMS using Twilio
-			try {
-				Twilio.init(twilioAccountSid, twilioAuthToken);
-				
-				Message.creator(
-					new PhoneNumber(mobileNumber),
-					new PhoneNumber(twilioPhoneNumber),
-					"Your AgriZen login OTP is: " + otp + ". Valid for 5 minutes."
-				).create();
-				
-				// OTP sent successfully - no console logging
-				return true;
-			} catch (Exception e) {
-				System.err.println("Failed to send SMS OTP: " + e.getMessage());
-				return false;
-			}
-		} catch (Exception e) {
-			System.err.println("Error in sendOtpViaSms: " + e.getMessage());
-			return false;
+	public Optional<String> sendOtpViaSms(String mobileNumber, String role) {
+		if (!otpDeliveryService.isConfigured(Channel.SMS)) {
+			System.err.println("Twilio SMS gateway not configured. Please configure twilio.account.sid, twilio.auth.token, and twilio.phone.number in application.properties");
+			return Optional.empty();
 		}
+		String key = keyFor("mobile", null, mobileNumber);
+		return issue(key, newOtp(null, mobileNumber, role), Channel.SMS, mobileNumber);
 	}
 	
-	/**
-	 * Get role from OTP before verification
-	 */
-	public String getRoleFromOtp(String email, String mobileNumber, String type) {
-		String key;
-		if ("email".equalsIgnoreCase(type) && email != null) {
-			key = "email:" + email.toLowerCase();
-		} else if ("mobile".equalsIgnoreCase(type) && mobileNumber != null) {
-			key = "mobile:" + mobileNumber;
-		} else {
-			return null;
+	private Optional<String> issue(String key, StoredOtp otp, Channel channel, String recipient) {
+		// Store OTP with role information
+		otpStore.put(key, otp);
+		Optional<String> deliveryId;
+		try {
+			deliveryId = otpDeliveryService.enqueue(channel, recipient, otp.code(), otp.expiresAt());
+		} catch (OtpOutboxFullException e) {
+			otpStore.remove(key, otp);
+			throw e;
 		}
-		
-		OtpData data = otpStorage.get(key);
-		if (data == null || data.isExpired()) {
-			return null;
+		if (deliveryId.isEmpty()) {
+			otpStore.remove(key, otp);
 		}
-		
-		return data.role;
+		return deliveryId;
 	}
 	
 	/**
-	 * Verify OTP
+	 * Storage key for an OTP, or null if the type does not match the identifier given
 	 */
-	public boolean verifyOtp(String email, String mobileNumber, String otp, String type) {
-		if (otp == null || otp.length() != OTP_LENGTH) {
-			return false;
-		}
-		
-		String key;
+	public static String keyFor(String type, String email, String mobileNumber) {
 		if ("email".equalsIgnoreCase(type) && email != null) {
-			key = "email:" + email.toLowerCase();
+			return "email:" + email.toLowerCase();
 		} else if ("mobile".equalsIgnoreCase(type) && mobileNumber != null) {
-			key = "mobile:" + mobileNumber;
-		} else {
-			return false;
-		}
-		
-		OtpData data = otpStorage.get(key);
-		if (data == null) {
-			return false;
-		}
-		
-		// Check if expired
-		if (data.isExpired()) {
-			otpStorage.remove(key);
-			return false;
-		}
-		
-		// Verify OTP
-		boolean isValid = data.otp.equals(otp);
-		
-		// Remove OTP after verification (one-time use)
-		if (isValid) {
-			otpStorage.remove(key);
+			return "mobile:" + mobileNumber;
 		}
-		
-		return isValid;
+		return null;
 	}
 	
 	/**
-	 * Clean up expired OTPs
+	 * Verify and use up an OTP in one atomic step. A correct code removes the entry and returns
+	 * what was stored with it, so of several concurrent verifies at most one succeeds; a wrong
+	 * code counts as a failed attempt and the OTP is dropped after too many.
 	 */
-	public void cleanupExpiredOtps() {
-		otpStorage.entrySet().removeIf(entry -> entry.getValue().isExpired());
+	public Optional<StoredOtp> consume(String key, String otp) {
+		if (key == null || otp == null || otp.length() != OTP_LENGTH) {
+			return Optional.empty();
+		}
+		return otpStore.consume(key, otp, maxAttempts);
 	}
 	
 	/**
-	 * Get stored email/mobile/role for OTP key (for verification response)
+	 * Clean up expired OTPs
 	 */
-	public String getStoredEmail(String key) {
-		OtpData data = otpStorage.get(key);
-		return data != null ? data.email : null;
-	}
-	
-	public String getStoredMobile(String key) {
-		OtpData data = otpStorage.get(key);
-		return data != null ? data.mobileNumber : null;
-	}
-	
-	public String getStoredRole(String key) {
-		OtpData data = otpStorage.get(key);
-		return data != null ? data.role : null;
+	@Scheduled(fixedDelayString = "${app.otp.reap-interval-ms:1000}")
+	public void cleanupExpiredOtps() {
+		otpStore.purgeExpired();
 	}
 	
 }
@@ -0,0 +1,18 @@
+package com.agrizen.auth.service;
+
+/**
+ * Thrown when the password hashing pool is saturated; answered with 503 and Retry-After.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public PasswordHashingBusyException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
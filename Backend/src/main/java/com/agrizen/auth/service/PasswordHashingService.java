@@ -0,0 +1,164 @@
+package com.agrizen.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt hashing and verification on a small dedicated pool, so a burst of logins can use at
+ * most {@code threads} cores and leaves the rest to other requests. Callers wait for their
+ * result; when the queue is full, or a result takes longer than {@code max-wait-ms}, they get
+ * a {@link PasswordHashingBusyException} instead of piling up behind it.
+ * <p>
+ * The cost factor is calibrated at startup to the highest one that hashes within
+ * {@code target-ms} on this machine (never below {@code min-cost}), unless fixed with
+ * {@code cost}. Stored hashes with a lower cost are upgraded on the next successful login.
+ * With several instances, fix the cost so they all agree.
+ */
+@Service
+public class PasswordHashingService implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+	// Lowest cost BCrypt accepts; enough for secrets that are random rather than chosen by people
+	private static final int RANDOM_SECRET_COST = 4;
+
+	@Value("${app.auth.password.threads:0}")
+	private int threads;
+
+	@Value("${app.auth.password.queue-capacity:32}")
+	private int queueCapacity;
+
+	@Value("${app.auth.password.max-wait-ms:5000}")
+	private long maxWaitMs;
+
+	@Value("${app.auth.password.bcrypt.cost:0}")
+	private int fixedCost;
+
+	@Value("${app.auth.password.bcrypt.min-cost:10}")
+	private int minCost;
+
+	@Value("${app.auth.password.bcrypt.max-cost:14}")
+	private int maxCost;
+
+	@Value("${app.auth.password.bcrypt.target-ms:250}")
+	private long targetMs;
+
+	private final SecureRandom random = new SecureRandom();
+	private BCryptPasswordEncoder encoder;
+	private BCryptPasswordEncoder randomSecretEncoder;
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * Outcome of checking a password; {@code upgradedHash} is set when the stored hash matched
+	 * but used an outdated cost and should be replaced.
+	 */
+	public record Verification(boolean matches, String upgradedHash) {
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		int cost = fixedCost > 0 ? fixedCost : calibrate();
+		encoder = new BCryptPasswordEncoder(cost, random);
+		randomSecretEncoder = new BCryptPasswordEncoder(RANDOM_SECRET_COST, random);
+		int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		AtomicInteger counter = new AtomicInteger();
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+					Thread t = new Thread(r, "password-hashing-" + counter.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		log.info("Password hashing: BCrypt cost {}, {} threads, queue {}", cost, poolSize, queueCapacity);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	public String hash(CharSequence rawPassword) {
+		return run(() -> encoder.encode(rawPassword));
+	}
+
+	public Verification verify(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> {
+			if (encodedPassword == null || !encoder.matches(rawPassword, encodedPassword)) {
+				return new Verification(false, null);
+			}
+			return new Verification(true, encoder.upgradeEncoding(encodedPassword) ? encoder.encode(rawPassword) : null);
+		});
+	}
+
+	/**
+	 * A hash of a fresh random secret nobody knows, for accounts that never log in with a
+	 * password. The secret has full entropy, so it needs no key stretching and is hashed at
+	 * minimum cost on the calling thread.
+	 */
+	public String unusablePassword() {
+		byte[] secret = new byte[32];
+		random.nextBytes(secret);
+		return randomSecretEncoder.encode(Base64.getEncoder().encodeToString(secret));
+	}
+
+	private <T> T run(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			throw new PasswordHashingBusyException("Too many sign-ins in progress. Please try again shortly.", 1);
+		}
+		try {
+			return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new PasswordHashingBusyException("Too many sign-ins in progress. Please try again shortly.", 1);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while hashing password", e);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Cost doubles the work per step, so stop at the last cost whose successor would exceed the target.
+	 */
+	private int calibrate() {
+		String sample = "calibration-" + UUID.randomUUID();
+		BCrypt.hashpw(sample, BCrypt.gensalt(minCost)); // warm-up
+		int cost = minCost;
+		while (cost < maxCost) {
+			long start = System.nanoTime();
+			BCrypt.hashpw(sample, BCrypt.gensalt(cost));
+			long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			log.debug("BCrypt cost {} took {} ms", cost, millis);
+			if (millis * 2 > targetMs) {
+				break;
+			}
+			cost++;
+		}
+		log.info("Calibrated BCrypt cost {} for a target of {} ms", cost, targetMs);
+		return cost;
+	}
+}
@@ -0,0 +1,111 @@
+package com.agrizen.auth.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keyed token-bucket limiter: {@code capacity} requests in a burst, refilled at one token per
+ * {@code refillNanos}. Each bucket is stored as a single "theoretical arrival time" (the GCRA
+ * form of a token bucket), so a key costs one map entry and one small holder object.
+ * <p>
+ * Keys are spread over lock stripes, each an access-ordered map capped at its share of
+ * {@code maxKeys}; the least recently used bucket is dropped first. A bucket that has refilled
+ * completely behaves exactly like a missing one, so {@link #evictIdle()} removes those.
+ */
+public class TokenBucketRateLimiter {
+
+	private static final int STRIPES = 16;
+
+	private final long refillNanos;
+	private final long burstNanos;
+	private final Stripe[] stripes = new Stripe[STRIPES];
+
+	private static final class Bucket {
+		long theoreticalArrival;
+	}
+
+	private static final class Stripe extends LinkedHashMap<String, Bucket> {
+		private final int maxEntries;
+
+		Stripe(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+			return size() > maxEntries;
+		}
+	}
+
+	public TokenBucketRateLimiter(int capacity, long refillNanos, int maxKeys) {
+		this.refillNanos = Math.max(1, refillNanos);
+		this.burstNanos = (Math.max(1, capacity) - 1L) * this.refillNanos;
+		int perStripe = Math.max(1, maxKeys / STRIPES);
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(perStripe);
+		}
+	}
+
+	/**
+	 * Take one token for {@code key}.
+	 *
+	 * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+	 */
+	public long tryAcquire(String key) {
+		Stripe stripe = stripeFor(key);
+		synchronized (stripe) {
+			long now = System.nanoTime();
+			Bucket bucket = stripe.get(key);
+			long arrival = bucket == null || bucket.theoreticalArrival - now < 0 ? now : bucket.theoreticalArrival;
+			long wait = arrival - burstNanos - now;
+			if (wait > 0) {
+				return wait;
+			}
+			if (bucket == null) {
+				bucket = new Bucket();
+				stripe.put(key, bucket);
+			}
+			bucket.theoreticalArrival = arrival + refillNanos;
+			return 0;
+		}
+	}
+
+	/**
+	 * Drop buckets that have refilled completely, one stripe at a time.
+	 *
+	 * @return the number of buckets removed
+	 */
+	public int evictIdle() {
+		int removed = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				long now = System.nanoTime();
+				Iterator<Bucket> it = stripe.values().iterator();
+				while (it.hasNext()) {
+					if (it.next().theoreticalArrival - now <= 0) {
+						it.remove();
+						removed++;
+					}
+				}
+			}
+		}
+		return removed;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	private Stripe stripeFor(String key) {
+		int h = key.hashCode();
+		return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+	}
+}
@@ -4,7 +4,6 @@ import com.agrizen.auth.dto.LoginRequest;
 import com.agrizen.auth.dto.RegisterRequest;
 import com.agrizen.auth.entity.User;
 import com.agrizen.auth.repository.UserRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Locale;
@@ -14,12 +13,12 @@ import java.util.Optional;
 public class UserService {
 
 	private final UserRepository userRepository;
-	private final BCryptPasswordEncoder passwordEncoder;
+	private final PasswordHashingService passwordHashingService;
 	private final PasswordValidator passwordValidator;
 
-	public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, PasswordValidator passwordValidator) {
+	public UserService(UserRepository userRepository, PasswordHashingService passwordHashingService, PasswordValidator passwordValidator) {
 		this.userRepository = userRepository;
-		this.passwordEncoder = passwordEncoder;
+		this.passwordHashingService = passwordHashingService;
 		this.passwordValidator = passwordValidator;
 	}
 
@@ -32,14 +31,9 @@ public class UserService {
 		if (!passwordValidator.isValid(req.password)) {
 			throw new IllegalArgumentException(passwordValidator.getValidationErrorMessage(req.password));
 		}
-		// Prevent creating additional admin users
+		// The admin account comes from configuration (see DataInitializer), never from sign-up
 		if (req.role == com.agrizen.auth.model.Role.ADMIN) {
-			long adminCount = userRepository.findAll().stream()
-					.filter(u -> u.getRole() == com.agrizen.auth.model.Role.ADMIN)
-					.count();
-			if (adminCount > 0) {
-				throw new IllegalArgumentException("Admin account already exists. Only one admin is allowed.");
-			}
+			throw new IllegalArgumentException("Admin accounts cannot be registered");
 		}
 		if (userRepository.existsByEmail(req.email)) {
 			throw new IllegalArgumentException("Email already registered");
@@ -55,7 +49,7 @@ public class UserService {
 		User u = new User();
 		u.setName(req.name.trim());
 		u.setEmail(req.email.trim().toLowerCase(Locale.ROOT));
-		u.setPassword(passwordEncoder.encode(req.password));
+		u.setPassword(passwordHashingService.hash(req.password));
 		u.setRole(req.role);
 		if (!isBlank(req.mobileNumber)) {
 			u.setMobileNumber(req.mobileNumber.trim());
@@ -69,35 +63,31 @@ public class UserService {
 		}
 		
 		String emailLower = req.email.trim().toLowerCase(Locale.ROOT);
-		if ("admin@agrizen.com".equals(emailLower) && "admin".equals(req.password)) {
-			Optional<User> existingAdmin = userRepository.findByEmail(emailLower);
-			if (existingAdmin.isPresent()) {
-				return existingAdmin.get();
-			}
-			User admin = new User();
-			admin.setName("Admin");
-			admin.setEmail(emailLower);
-			admin.setPassword(passwordEncoder.encode(req.password));
-			admin.setRole(com.agrizen.auth.model.Role.ADMIN);
-			return userRepository.save(admin);
-		}
 		User u = userRepository.findByEmail(emailLower)
 				.orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
 		
 		// Verify password - authenticate based on email and password only
 		// Role is determined from database, not from request
-		boolean passwordMatch = passwordEncoder.matches(req.password, u.getPassword());
-		
-        
+		PasswordHashingService.Verification verification = passwordHashingService.verify(req.password, u.getPassword());
 		
-		if (!passwordMatch) {
+		if (!verification.matches()) {
 			throw new IllegalArgumentException("Invalid credentials");
 		}
 		
+		// Stored hash used a lower cost than the current one; replace it while we have the password
+		if (verification.upgradedHash() != null) {
+			u.setPassword(verification.upgradedHash());
+			u = userRepository.save(u);
+		}
+		
 		// Return user with their actual role from database
 		return u;
 	}
 
+	public Optional<User> findById(Long id) {
+		return userRepository.findById(id);
+	}
+
 	private boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
 	
 	/**
@@ -165,7 +155,7 @@ public class UserService {
 		
 		newUser.setRole(role);
 		// Set a random password (OTP users don't need password)
-		newUser.setPassword(passwordEncoder.encode("otp_" + System.currentTimeMillis()));
+		newUser.setPassword(passwordHashingService.unusablePassword());
 		
 		return userRepository.save(newUser);
 	}
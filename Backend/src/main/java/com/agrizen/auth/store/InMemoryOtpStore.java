@@ -0,0 +1,75 @@
+package com.agrizen.auth.store;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * OTPs in a map local to this JVM; only correct with a single backend instance.
+ * <p>
+ * OTPs are issued with one fixed lifetime, so issue order is expiry order: {@link #purgeExpired()}
+ * pops expired entries off the head of a FIFO and stops at the first one still valid, instead of
+ * scanning the whole map.
+ */
+public class InMemoryOtpStore implements OtpStore {
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final Queue<Expiry> expiryQueue = new ConcurrentLinkedQueue<>();
+
+	private static final class Entry {
+		final StoredOtp otp;
+		int failedAttempts; // Only changed inside entries.compute*
+
+		Entry(StoredOtp otp) {
+			this.otp = otp;
+		}
+	}
+
+	private record Expiry(String key, Entry entry) {
+	}
+
+	@Override
+	public void put(String key, StoredOtp otp) {
+		Entry entry = new Entry(otp);
+		entries.put(key, entry);
+		expiryQueue.offer(new Expiry(key, entry));
+	}
+
+	@Override
+	public void remove(String key, StoredOtp otp) {
+		entries.computeIfPresent(key, (k, entry) -> entry.otp.equals(otp) ? null : entry);
+	}
+
+	@Override
+	public Optional<StoredOtp> consume(String key, String code, int maxAttempts) {
+		StoredOtp[] consumed = new StoredOtp[1];
+		entries.computeIfPresent(key, (k, entry) -> {
+			if (entry.otp.isExpired(System.currentTimeMillis())) {
+				return null;
+			}
+			if (entry.otp.matches(code)) {
+				consumed[0] = entry.otp;
+				return null;
+			}
+			return ++entry.failedAttempts >= maxAttempts ? null : entry;
+		});
+		return Optional.ofNullable(consumed[0]);
+	}
+
+	@Override
+	public int purgeExpired() {
+		long now = System.currentTimeMillis();
+		int removed = 0;
+		Expiry head;
+		// Entries already consumed or replaced by a newer OTP are skipped by the conditional remove
+		while ((head = expiryQueue.peek()) != null && head.entry().otp.isExpired(now)) {
+			expiryQueue.poll();
+			if (entries.remove(head.key(), head.entry())) {
+				removed++;
+			}
+		}
+		return removed;
+	}
+}
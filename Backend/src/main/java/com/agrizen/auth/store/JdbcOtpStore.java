@@ -0,0 +1,151 @@
+package com.agrizen.auth.store;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * OTPs in the {@code otp_codes} table of the application database, so every backend instance
+ * sees the same codes. Consuming is made atomic across instances by a conditional delete of the
+ * exact OTP that was read: of several concurrent verifies only one deletes the row.
+ * <p>
+ * The optional near-cache remembers OTPs issued by this instance. A correct code for one of
+ * them goes straight to the conditional delete, skipping the read; if the row was replaced or
+ * consumed elsewhere in the meantime the delete misses and the database is consulted as usual.
+ * Everything else always reads the database.
+ */
+public class JdbcOtpStore implements OtpStore {
+
+	private static final String SELECT = "select code, email, mobile_number, role, expires_at from otp_codes where otp_key = ?";
+	private static final String UPDATE = "update otp_codes set code = ?, email = ?, mobile_number = ?, role = ?, expires_at = ?, failed_attempts = 0 where otp_key = ?";
+	private static final String INSERT = "insert into otp_codes (code, email, mobile_number, role, expires_at, failed_attempts, otp_key) values (?, ?, ?, ?, ?, 0, ?)";
+	private static final String DELETE_ISSUE = "delete from otp_codes where otp_key = ? and code = ? and expires_at = ?";
+
+	private static final RowMapper<StoredOtp> ROW_MAPPER = (rs, i) -> new StoredOtp(rs.getString("code"),
+			rs.getString("email"), rs.getString("mobile_number"), rs.getString("role"), rs.getLong("expires_at"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final int purgeBatchSize;
+	private final Map<String, StoredOtp> nearCache;
+
+	/**
+	 * @param nearCacheSize OTPs to remember locally; 0 disables the near-cache
+	 */
+	public JdbcOtpStore(DataSource dataSource, int purgeBatchSize, int nearCacheSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.purgeBatchSize = Math.max(1, purgeBatchSize);
+		this.nearCache = nearCacheSize <= 0 ? null : Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, StoredOtp> eldest) {
+				return size() > nearCacheSize;
+			}
+		});
+	}
+
+	@Override
+	public void put(String key, StoredOtp otp) {
+		// Portable upsert: update, else insert; if another instance inserted first, update its row
+		if (jdbcTemplate.update(UPDATE, values(key, otp)) == 0) {
+			try {
+				jdbcTemplate.update(INSERT, values(key, otp));
+			} catch (DuplicateKeyException e) {
+				jdbcTemplate.update(UPDATE, values(key, otp));
+			}
+		}
+		if (nearCache != null) {
+			nearCache.put(key, otp);
+		}
+	}
+
+	@Override
+	public void remove(String key, StoredOtp otp) {
+		deleteIssue(key, otp);
+		if (nearCache != null) {
+			nearCache.remove(key, otp);
+		}
+	}
+
+	@Override
+	public Optional<StoredOtp> consume(String key, String code, int maxAttempts) {
+		long now = System.currentTimeMillis();
+		if (nearCache != null) {
+			StoredOtp cached = nearCache.remove(key);
+			if (cached != null && !cached.isExpired(now) && cached.matches(code) && deleteIssue(key, cached)) {
+				return Optional.of(cached);
+			}
+		}
+		List<StoredOtp> rows = jdbcTemplate.query(SELECT, ROW_MAPPER, key);
+		if (rows.isEmpty()) {
+			return Optional.empty();
+		}
+		StoredOtp stored = rows.get(0);
+		if (stored.isExpired(now)) {
+			deleteIssue(key, stored);
+			return Optional.empty();
+		}
+		if (stored.matches(code)) {
+			return deleteIssue(key, stored) ? Optional.of(stored) : Optional.empty();
+		}
+		jdbcTemplate.update("update otp_codes set failed_attempts = failed_attempts + 1 where otp_key = ? and code = ? and expires_at = ?",
+				key, stored.code(), stored.expiresAt());
+		jdbcTemplate.update(DELETE_ISSUE + " and failed_attempts >= ?", key, stored.code(), stored.expiresAt(), maxAttempts);
+		return Optional.empty();
+	}
+
+	/**
+	 * Deletes expired rows in batches of {@code purgeBatchSize} keys found through the expiry
+	 * index, so no single statement locks a large range.
+	 */
+	@Override
+	public int purgeExpired() {
+		long now = System.currentTimeMillis();
+		int removed = 0;
+		while (true) {
+			List<String> keys = jdbcTemplate.query(con -> {
+				PreparedStatement ps = con.prepareStatement("select otp_key from otp_codes where expires_at < ?");
+				ps.setLong(1, now);
+				ps.setMaxRows(purgeBatchSize);
+				return ps;
+			}, (rs, i) -> rs.getString(1));
+			if (keys.isEmpty()) {
+				break;
+			}
+			int[][] counts = jdbcTemplate.batchUpdate("delete from otp_codes where otp_key = ? and expires_at < ?", keys,
+					keys.size(), (ps, key) -> {
+						ps.setString(1, key);
+						ps.setLong(2, now);
+					});
+			for (int[] batch : counts) {
+				for (int count : batch) {
+					// Some drivers report SUCCESS_NO_INFO (-2) for batched statements
+					removed += count < 0 ? 1 : count;
+				}
+			}
+			if (keys.size() < purgeBatchSize) {
+				break;
+			}
+		}
+		if (nearCache != null && removed > 0) {
+			synchronized (nearCache) {
+				nearCache.values().removeIf(otp -> otp.isExpired(now));
+			}
+		}
+		return removed;
+	}
+
+	private boolean deleteIssue(String key, StoredOtp otp) {
+		return jdbcTemplate.update(DELETE_ISSUE, key, otp.code(), otp.expiresAt()) == 1;
+	}
+
+	private static Object[] values(String key, StoredOtp otp) {
+		return new Object[] { otp.code(), otp.email(), otp.mobileNumber(), otp.role(), otp.expiresAt(), key };
+	}
+}
@@ -0,0 +1,37 @@
+package com.agrizen.auth.store;
+
+import java.util.Optional;
+
+/**
+ * Where issued OTPs live between send and verify. Keys look like {@code email:<address>}
+ * or {@code mobile:<number>}; a key holds at most one OTP, the latest one issued.
+ * With more than one backend instance the store must be shared, or an OTP sent through
+ * one instance cannot be verified through another.
+ */
+public interface OtpStore {
+
+	/**
+	 * Store an OTP under {@code key}, replacing any earlier one.
+	 */
+	void put(String key, StoredOtp otp);
+
+	/**
+	 * Remove {@code otp} if it is still the OTP stored under {@code key}.
+	 */
+	void remove(String key, StoredOtp otp);
+
+	/**
+	 * Check {@code code} against the OTP stored under {@code key}, atomically with respect to
+	 * all other calls, including those made by other instances sharing the store.
+	 * A match removes the OTP and returns it, so a code is consumed at most once; a mismatch
+	 * counts a failed attempt and removes the OTP once {@code maxAttempts} have failed.
+	 */
+	Optional<StoredOtp> consume(String key, String code, int maxAttempts);
+
+	/**
+	 * Remove expired OTPs.
+	 *
+	 * @return how many were removed
+	 */
+	int purgeExpired();
+}
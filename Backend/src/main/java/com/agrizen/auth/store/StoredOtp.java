@@ -0,0 +1,23 @@
+package com.agrizen.auth.store;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * One issued OTP and what it was issued for.
+ *
+ * @param expiresAt epoch millis
+ */
+public record StoredOtp(String code, String email, String mobileNumber, String role, long expiresAt) {
+
+	public boolean isExpired(long now) {
+		return now > expiresAt;
+	}
+
+	/**
+	 * Constant-time comparison with a submitted code.
+	 */
+	public boolean matches(String candidate) {
+		return MessageDigest.isEqual(code.getBytes(StandardCharsets.US_ASCII), candidate.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -27,12 +27,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowCredentials(true)
                 .maxAge(3600);
 
-        // Uploads (open for GET/OPTIONS)
-        registry.addMapping("/uploads/**")
-                .allowedOriginPatterns("*")
-                .allowedMethods("GET", "OPTIONS")
-                .allowedHeaders("*")
-                .maxAge(3600);
+        // Uploads are served by UploadServlet, which sends its own CORS headers
 
         // Legacy payment endpoint
         registry.addMapping("/payment")
@@ -22,6 +22,12 @@ public class CorsFilter implements Filter {
         HttpServletRequest request = (HttpServletRequest) req;
         HttpServletResponse response = (HttpServletResponse) res;
 
+        // UploadServlet sets its own public CORS headers
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/uploads/")) {
+            chain.doFilter(req, res);
+            return;
+        }
+
         // Mirror origin or allow wildcard patterns as configured in CorsConfig
         String origin = request.getHeader("Origin");
         if (origin == null || origin.isEmpty()) {
@@ -32,6 +38,7 @@ public class CorsFilter implements Filter {
         response.setHeader("Vary", "Origin");
         response.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
         response.setHeader("Access-Control-Allow-Headers", "Origin, Content-Type, Accept, Authorization");
+        response.setHeader("Access-Control-Expose-Headers", "X-Next-Cursor, X-Search-Truncated");
         response.setHeader("Access-Control-Allow-Credentials", "true");
         response.setHeader("Access-Control-Max-Age", "3600");
 
@@ -0,0 +1,124 @@
+package com.agrizen.config;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.auth.model.Role;
+import com.agrizen.auth.service.JwtService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Checks "Authorization: Bearer" access tokens and gates endpoints by the role claim:
+ * <ul>
+ *   <li>{@code /api/admin/**}: ADMIN</li>
+ *   <li>writes under {@code /api/farmers/**}, writes to {@code /api/crops/{id}} and anything
+ *   under {@code /api/uploads/**}: FARMER or ADMIN</li>
+ *   <li>{@code POST /api/crops/{id}/reservations} and anything under {@code /api/reservations/**}:
+ *   BUYER or ADMIN</li>
+ * </ul>
+ * Everything else stays public. Only the role is checked here; which farmer's data a FARMER
+ * may touch is checked by the controllers (see FarmerAccessService). A valid token on any request is exposed to controllers as the
+ * {@link AuthenticatedUser#REQUEST_ATTRIBUTE} attribute. Runs right after {@link CorsFilter}
+ * so rejections still carry CORS headers.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class JwtAuthFilter implements Filter {
+
+    private static final Set<Role> ADMIN = EnumSet.of(Role.ADMIN);
+    private static final Set<Role> FARMER = EnumSet.of(Role.FARMER, Role.ADMIN);
+    private static final Set<Role> BUYER = EnumSet.of(Role.BUYER, Role.ADMIN);
+
+    private final JwtService jwtService;
+
+    // Set to false only while clients are being moved over to tokens
+    @Value("${app.auth.jwt.enforce:true}")
+    private boolean enforce;
+
+    public JwtAuthFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+
+        Optional<AuthenticatedUser> user = bearerToken(request).flatMap(jwtService::parseAccessToken);
+        user.ifPresent(u -> request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, u));
+
+        Set<Role> required = enforce ? requiredRoles(request) : null;
+        if (required != null) {
+            if (user.isEmpty()) {
+                response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+                reject(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", "Sign in to continue");
+                return;
+            }
+            if (!required.contains(user.get().role())) {
+                reject(response, HttpServletResponse.SC_FORBIDDEN, "Forbidden", "Your account is not allowed to do this");
+                return;
+            }
+        }
+
+        chain.doFilter(req, res);
+    }
+
+    private static Optional<String> bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return Optional.empty();
+        }
+        return Optional.of(header.substring(7).trim());
+    }
+
+    /**
+     * Roles allowed to call this endpoint, or null if it is public.
+     */
+    private static Set<Role> requiredRoles(HttpServletRequest request) {
+        // Decoded and normalized, as the handler mappings see it; the raw URI could be %-encoded around the checks
+        String path = request.getServletPath() + (request.getPathInfo() == null ? "" : request.getPathInfo());
+        String method = request.getMethod();
+        boolean write = !"GET".equals(method) && !"HEAD".equals(method);
+
+        if (path.startsWith("/api/admin/")) {
+            return ADMIN;
+        }
+        if (path.startsWith("/api/uploads/")) {
+            return FARMER;
+        }
+        if (write && (path.equals("/api/farmers") || path.startsWith("/api/farmers/"))) {
+            return FARMER;
+        }
+        // /api/crops/{id} itself; /api/crops/{id}/reservations is for buyers
+        if (write && path.startsWith("/api/crops/") && path.indexOf('/', "/api/crops/".length()) < 0) {
+            return FARMER;
+        }
+        if (write && path.startsWith("/api/crops/") && path.endsWith("/reservations")) {
+            return BUYER;
+        }
+        if (path.equals("/api/reservations") || path.startsWith("/api/reservations/")) {
+            return BUYER;
+        }
+        return null;
+    }
+
+    private static void reject(HttpServletResponse response, int status, String error, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"message\":\"" + message + "\",\"error\":\"" + error + "\"}");
+    }
+}
@@ -0,0 +1,331 @@
+package com.agrizen.config;
+
+import com.agrizen.farmer.service.ImageBlobStore;
+import com.agrizen.farmer.storage.ImageStore;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves {@code /uploads/**} from the {@link ImageStore}'s local files (the store itself,
+ * or its read-through cache for a remote backend), outside Spring MVC.
+ * Upload names never change content (blob names are SHA-256 hashes, legacy names are
+ * UUIDs), so every response is cacheable forever and the ETag is a content hash:
+ * the blob hash where the name carries one, otherwise a SHA-256 computed once per file.
+ * Supports conditional GETs and single byte ranges, hands file bodies to Tomcat's
+ * sendfile where available (FileChannel.transferTo otherwise), and keeps small
+ * thumbnails in a byte-bounded LRU.
+ * <p>
+ * There is no precompression: no {@code .gz}/{@code .br} siblings are looked up and no
+ * {@code Vary: Accept-Encoding} is sent. Uploads are JPEG, PNG or WebP, which are already
+ * compressed and do not shrink further, and a content encoding would rule out sendfile and
+ * byte ranges over the stored file. UploadServingBenchmarkTest under src/benchmark compares
+ * this servlet with the resource handlers it replaced.
+ */
+public class UploadServlet extends HttpServlet {
+
+	private static final Pattern RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+	private static final Pattern HASH_NAME = Pattern.compile("^([0-9a-f]{64}(?:-[a-z]+)?)\\.[a-z0-9]+$");
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+	private final ImageStore imageStore;
+	private final String cacheControl;
+	private final long thumbnailCacheBytes;
+	private final long thumbnailMaxBytes;
+
+	// Guarded by "this"
+	private final LinkedHashMap<Path, Cached> thumbnails = new LinkedHashMap<>(256, 0.75f, true);
+	private long thumbnailBytes;
+
+	// Content hashes of files whose names do not carry one, keyed by path + size + mtime
+	private final Map<String, String> computedEtags = new LinkedHashMap<>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > 10_000;
+		}
+	};
+
+	private record Cached(byte[] body, long lastModified, String etag) {
+	}
+
+	public UploadServlet(ImageStore imageStore, long maxAgeSeconds, long thumbnailCacheBytes, long thumbnailMaxBytes) {
+		this.imageStore = imageStore;
+		this.cacheControl = "public, max-age=" + maxAgeSeconds + ", immutable";
+		this.thumbnailCacheBytes = thumbnailCacheBytes;
+		this.thumbnailMaxBytes = thumbnailMaxBytes;
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		serve(request, response, true);
+	}
+
+	@Override
+	protected void doHead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		serve(request, response, false);
+	}
+
+	@Override
+	protected void doOptions(HttpServletRequest request, HttpServletResponse response) {
+		response.setHeader("Access-Control-Allow-Origin", "*");
+		response.setHeader("Access-Control-Allow-Methods", "GET, HEAD, OPTIONS");
+		response.setHeader("Access-Control-Allow-Headers", "*");
+		response.setHeader("Access-Control-Max-Age", "3600");
+		response.setStatus(HttpServletResponse.SC_OK);
+	}
+
+	private void serve(HttpServletRequest request, HttpServletResponse response, boolean body) throws IOException {
+		String key = key(request.getPathInfo());
+		Path file = key == null ? null : imageStore.localFile(key).orElse(null);
+		if (file == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		Cached cached = cachedThumbnail(file);
+		long size;
+		long lastModified;
+		String etag;
+		if (cached != null) {
+			size = cached.body.length;
+			lastModified = cached.lastModified;
+			etag = cached.etag;
+		} else {
+			BasicFileAttributes attrs;
+			try {
+				attrs = Files.readAttributes(file, BasicFileAttributes.class);
+			} catch (NoSuchFileException e) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			if (!attrs.isRegularFile()) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			size = attrs.size();
+			lastModified = attrs.lastModifiedTime().toMillis();
+			etag = etag(key, file, size, lastModified);
+		}
+
+		response.setHeader("Access-Control-Allow-Origin", "*");
+		response.setHeader("Cache-Control", cacheControl);
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", lastModified);
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("X-Content-Type-Options", "nosniff");
+
+		if (notModified(request, etag, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		String mime = getServletContext().getMimeType(file.getFileName().toString());
+		response.setContentType(mime != null ? mime : "application/octet-stream");
+
+		long start = 0;
+		long end = size - 1;
+		String range = request.getHeader("Range");
+		String ifRange = request.getHeader("If-Range");
+		if (range != null && (ifRange == null || ifRange.equals(etag))) {
+			long[] bounds = parseRange(range, size);
+			if (bounds == null) {
+				response.setHeader("Content-Range", "bytes */" + size);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (bounds.length == 2) {
+				start = bounds[0];
+				end = bounds[1];
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+			}
+		}
+		long length = end - start + 1;
+		response.setContentLengthLong(length);
+		if (!body || length == 0) {
+			return;
+		}
+
+		if (cached == null) {
+			cached = loadThumbnail(file, size, lastModified, etag);
+		}
+		if (cached != null) {
+			OutputStream out = response.getOutputStream();
+			out.write(cached.body, (int) start, (int) length);
+			return;
+		}
+		if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			// Tomcat writes the file with sendfile(2) after this method returns
+			request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+			request.setAttribute("org.apache.tomcat.sendfile.start", start);
+			request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = start;
+			while (position <= end) {
+				position += channel.transferTo(position, end + 1 - position, out);
+			}
+		}
+	}
+
+	/**
+	 * Map the request path to a store key. Hidden entries (staging dirs, temp files,
+	 * write-behind markers) and relative segments are refused.
+	 */
+	private static String key(String pathInfo) {
+		if (pathInfo == null || pathInfo.length() < 2) {
+			return null;
+		}
+		String key = pathInfo.substring(1);
+		for (String segment : key.split("/")) {
+			if (segment.isEmpty() || segment.startsWith(".")) {
+				return null;
+			}
+		}
+		return key;
+	}
+
+	private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String candidate : ifNoneMatch.split(",")) {
+				String tag = candidate.trim();
+				if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long ifModifiedSince;
+		try {
+			ifModifiedSince = request.getDateHeader("If-Modified-Since");
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	/**
+	 * @return {start, end} for one satisfiable range, an empty array to ignore the header
+	 * (multiple ranges are answered with the whole file), or null if unsatisfiable
+	 */
+	private static long[] parseRange(String header, long size) {
+		Matcher m = RANGE.matcher(header.trim());
+		if (!m.matches()) {
+			return new long[0];
+		}
+		String first = m.group(1);
+		String last = m.group(2);
+		try {
+			if (first.isEmpty()) {
+				if (last.isEmpty()) {
+					return new long[0];
+				}
+				long suffix = Long.parseLong(last);
+				if (suffix == 0 || size == 0) {
+					return null;
+				}
+				return new long[]{Math.max(0, size - suffix), size - 1};
+			}
+			long start = Long.parseLong(first);
+			long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+			if (start >= size || end < start) {
+				return null;
+			}
+			return new long[]{start, end};
+		} catch (NumberFormatException e) {
+			return new long[0];
+		}
+	}
+
+	private String etag(String key, Path file, long size, long lastModified) throws IOException {
+		Matcher m = HASH_NAME.matcher(file.getFileName().toString());
+		if (m.matches() && key.startsWith(ImageBlobStore.BLOB_DIR + "/")) {
+			return "\"" + m.group(1) + "\"";
+		}
+		String version = file + "|" + size + "|" + lastModified;
+		synchronized (computedEtags) {
+			String known = computedEtags.get(version);
+			if (known != null) {
+				return known;
+			}
+		}
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (java.security.NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		String etag = "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+		synchronized (computedEtags) {
+			computedEtags.put(version, etag);
+		}
+		return etag;
+	}
+
+	private Cached cachedThumbnail(Path file) {
+		if (thumbnailCacheBytes <= 0) {
+			return null;
+		}
+		Cached cached;
+		synchronized (this) {
+			cached = thumbnails.get(file);
+		}
+		// A released blob deletes its thumbnail; do not keep serving it from memory
+		if (cached != null && !Files.exists(file)) {
+			synchronized (this) {
+				if (thumbnails.remove(file) != null) {
+					thumbnailBytes -= cached.body.length;
+				}
+			}
+			return null;
+		}
+		return cached;
+	}
+
+	private Cached loadThumbnail(Path file, long size, long lastModified, String etag) throws IOException {
+		if (thumbnailCacheBytes <= 0 || size > thumbnailMaxBytes || !file.getFileName().toString().endsWith("-thumb.jpg")) {
+			return null;
+		}
+		Cached cached = new Cached(Files.readAllBytes(file), lastModified, etag);
+		synchronized (this) {
+			Cached old = thumbnails.put(file, cached);
+			thumbnailBytes += cached.body.length - (old == null ? 0 : old.body.length);
+			Iterator<Cached> it = thumbnails.values().iterator();
+			while (thumbnailBytes > thumbnailCacheBytes && it.hasNext()) {
+				thumbnailBytes -= it.next().body.length;
+				it.remove();
+			}
+		}
+		return cached;
+	}
+}
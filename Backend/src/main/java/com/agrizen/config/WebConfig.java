@@ -1,21 +1,33 @@
 package com.agrizen.config;
 
+import com.agrizen.farmer.storage.ImageStore;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
-public class WebConfig implements WebMvcConfigurer {
+public class WebConfig {
 
-	@Value("${app.upload.dir:uploads}")
-	private String uploadDir;
+	@Value("${app.upload.serving.max-age-seconds:31536000}")
+	private long maxAgeSeconds;
 
-	@Override
-	public void addResourceHandlers(ResourceHandlerRegistry registry) {
-		registry.addResourceHandler("/uploads/**")
-				.addResourceLocations("file:" + uploadDir + "/");
-	}
-}
+	@Value("${app.upload.serving.thumbnail-cache-bytes:16777216}")
+	private long thumbnailCacheBytes;
 
+	@Value("${app.upload.serving.thumbnail-max-bytes:131072}")
+	private long thumbnailMaxBytes;
 
+	/**
+	 * Uploaded images are served by a plain servlet mapped ahead of the DispatcherServlet,
+	 * so they skip handler mapping, interceptors and message conversion entirely.
+	 */
+	@Bean
+	public ServletRegistrationBean<UploadServlet> uploadServlet(ImageStore imageStore) {
+		UploadServlet servlet = new UploadServlet(imageStore, maxAgeSeconds, thumbnailCacheBytes, thumbnailMaxBytes);
+		ServletRegistrationBean<UploadServlet> registration = new ServletRegistrationBean<>(servlet, "/uploads/*");
+		registration.setName("uploadServlet");
+		registration.setLoadOnStartup(1);
+		return registration;
+	}
+}
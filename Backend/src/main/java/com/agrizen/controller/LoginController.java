@@ -1,10 +1,10 @@
 package com.agrizen.controller;
 
+import com.agrizen.auth.service.PasswordHashingService;
 import com.agrizen.auth.service.PasswordValidator;
 import com.agrizen.model.Login;
 import com.agrizen.repository.LoginRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -15,7 +15,7 @@ public class LoginController {
     private LoginRepository loginRepository;
     
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
     private PasswordValidator passwordValidator;
@@ -30,7 +30,7 @@ public class LoginController {
             }
             
             // Encrypt password before saving
-            String encryptedPassword = passwordEncoder.encode(login.getPassword());
+            String encryptedPassword = passwordHashingService.hash(login.getPassword());
             login.setPassword(encryptedPassword);
         }
         
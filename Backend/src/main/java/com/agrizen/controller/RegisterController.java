@@ -1,10 +1,10 @@
 package com.agrizen.controller;
 
+import com.agrizen.auth.service.PasswordHashingService;
 import com.agrizen.auth.service.PasswordValidator;
 import com.agrizen.model.Register;
 import com.agrizen.repository.RegisterRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -15,7 +15,7 @@ public class RegisterController {
     private RegisterRepository registerRepository;
     
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
     private PasswordValidator passwordValidator;
@@ -28,7 +28,7 @@ public class RegisterController {
         }
         
         // Encrypt password before saving
-        String encryptedPassword = passwordEncoder.encode(register.getPassword());
+        String encryptedPassword = passwordHashingService.hash(register.getPassword());
         register.setPassword(encryptedPassword);
         
         return registerRepository.save(register);
@@ -0,0 +1,75 @@
+package com.agrizen.farmer.config;
+
+import com.agrizen.farmer.entity.CropListing;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.Locale;
+
+/**
+ * Crop listing ids moved from IDENTITY to a pooled sequence. On databases that already
+ * hold listings, a freshly created sequence would start below the existing ids, so before
+ * the app serves requests this pushes the sequence past max(id) + one allocation block.
+ * Runs after the EntityManagerFactory so the schema update has created the sequence.
+ */
+@Component
+public class CropListingSequenceAligner implements InitializingBean {
+
+	private static final Logger log = LoggerFactory.getLogger(CropListingSequenceAligner.class);
+	private static final String SEQUENCE = "crop_listings_seq";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public CropListingSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from crop_listings", Long.class);
+		if (maxId == null || maxId == 0) {
+			return;
+		}
+		// The pooled optimizer hands out (value - allocationSize, value], so the next value
+		// must clear the highest existing id by a full block
+		long target = maxId + CropListing.ID_ALLOCATION_SIZE + 1;
+		String product = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+		product = product == null ? "" : product.toLowerCase(Locale.ROOT);
+
+		try {
+			if (product.contains("mysql") || product.contains("mariadb")) {
+				// Hibernate emulates sequences with a one-row table on MySQL
+				int updated = jdbcTemplate.update("update " + SEQUENCE + " set next_val = ? where next_val < ?", target, target);
+				logAligned(updated > 0, target);
+			} else if (product.contains("postgres")) {
+				Long last = jdbcTemplate.queryForObject("select last_value from " + SEQUENCE, Long.class);
+				if (last == null || last < target) {
+					jdbcTemplate.queryForObject("select setval('" + SEQUENCE + "', ?, false)", Long.class, target);
+					logAligned(true, target);
+				}
+			} else if (product.contains("h2")) {
+				Long next = jdbcTemplate.queryForObject(
+						"select base_value from information_schema.sequences where lower(sequence_name) = ?", Long.class, SEQUENCE);
+				if (next == null || next < target) {
+					jdbcTemplate.execute("alter sequence " + SEQUENCE + " restart with " + target);
+					logAligned(true, target);
+				}
+			} else {
+				log.warn("Cannot verify {} on {}; make sure it is above max(crop_listings.id) = {}", SEQUENCE, product, maxId);
+			}
+		} catch (RuntimeException e) {
+			log.warn("Could not align {} with existing crop listing ids: {}", SEQUENCE, e.getMessage());
+		}
+	}
+
+	private void logAligned(boolean changed, long target) {
+		if (changed) {
+			log.info("Moved {} to {} to clear existing crop listing ids", SEQUENCE, target);
+		}
+	}
+}
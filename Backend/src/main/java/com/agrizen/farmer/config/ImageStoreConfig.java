@@ -0,0 +1,75 @@
+package com.agrizen.farmer.config;
+
+import com.agrizen.farmer.storage.CachingImageStore;
+import com.agrizen.farmer.storage.HttpObjectImageStore;
+import com.agrizen.farmer.storage.ImageStore;
+import com.agrizen.farmer.storage.LocalImageStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Chooses the {@link ImageStore} backend with {@code app.image.store.type}:
+ * <ul>
+ *   <li>{@code local} (default): files under {@code app.upload.dir}.</li>
+ *   <li>{@code http}: an HTTP object store shared by all replicas, fronted by a read-through
+ *   cache in {@code app.upload.dir} with optional write-behind.</li>
+ * </ul>
+ */
+@Configuration
+public class ImageStoreConfig {
+
+	@Value("${app.upload.dir:uploads}")
+	private String uploadDir;
+
+	@Value("${app.image.store.type:local}")
+	private String type;
+
+	@Value("${app.image.store.http.base-url:}")
+	private String httpBaseUrl;
+
+	@Value("${app.image.store.http.authorization:}")
+	private String httpAuthorization;
+
+	@Value("${app.image.store.http.timeout-ms:10000}")
+	private long httpTimeoutMs;
+
+	@Value("${app.image.store.write-behind.enabled:true}")
+	private boolean writeBehind;
+
+	@Value("${app.image.store.write-behind.queue-capacity:1000}")
+	private int queueCapacity;
+
+	@Value("${app.image.store.write-behind.threads:2}")
+	private int threads;
+
+	@Value("${app.image.store.write-behind.max-attempts:5}")
+	private int maxAttempts;
+
+	@Value("${app.image.store.cache.max-size:1GB}")
+	private DataSize cacheMaxSize;
+
+	@Bean
+	public ImageStore imageStore() {
+		LocalImageStore local = new LocalImageStore(Paths.get(uploadDir));
+		switch (type.trim().toLowerCase(Locale.ROOT)) {
+			case "local":
+				return local;
+			case "http":
+				if (httpBaseUrl.isBlank()) {
+					throw new IllegalStateException("app.image.store.http.base-url is required when app.image.store.type=http");
+				}
+				HttpObjectImageStore remote = new HttpObjectImageStore(httpBaseUrl,
+						Duration.ofMillis(httpTimeoutMs), httpAuthorization);
+				return new CachingImageStore(local, remote, writeBehind, queueCapacity, threads, maxAttempts,
+						cacheMaxSize.toBytes());
+			default:
+				throw new IllegalStateException("Unknown app.image.store.type: " + type);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.agrizen.farmer.controller;
+
+import com.agrizen.farmer.dto.CatalogPage;
+import com.agrizen.farmer.dto.SearchPage;
+import com.agrizen.farmer.service.CatalogVersion;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+/**
+ * Shared response shaping for paginated catalog endpoints and search.
+ * The body stays a plain JSON array; the continuation token and the truncation flag travel in headers.
+ */
+public final class CatalogResponses {
+
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	// Set to "true" when some prefix matches were left out of a search
+	public static final String SEARCH_TRUNCATED_HEADER = "X-Search-Truncated";
+
+	private CatalogResponses() {
+	}
+
+	/**
+	 * Conditional GET against the catalog version. Sets ETag and Last-Modified on the response
+	 * and returns true when the client's copy is current, in which case the caller must return
+	 * null and Spring answers 304. Call it before loading anything so the tag is never newer
+	 * than the data it describes.
+	 */
+	public static boolean notModified(WebRequest request, CatalogVersion version) {
+		return request.checkNotModified(version.etag(), version.lastModified());
+	}
+
+	public static <T> ResponseEntity<List<T>> page(CatalogPage<T> page) {
+		// Let clients keep the body but revalidate it on every use
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok().header("Cache-Control", "no-cache");
+		if (page.nextCursor() != null) {
+			builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+		}
+		return builder.body(page.items());
+	}
+
+	public static <T> ResponseEntity<List<T>> search(SearchPage<T> page) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		if (page.truncated()) {
+			builder.header(SEARCH_TRUNCATED_HEADER, "true");
+		}
+		return builder.body(page.items());
+	}
+}
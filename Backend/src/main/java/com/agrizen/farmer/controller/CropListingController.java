@@ -1,15 +1,30 @@
 package com.agrizen.farmer.controller;
 
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.farmer.dto.BulkImportResult;
+import com.agrizen.farmer.dto.CatalogQuery;
+import com.agrizen.farmer.dto.CropListingView;
+import com.agrizen.farmer.dto.FacetedPage;
+import com.agrizen.farmer.dto.NearbyListing;
 import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.service.CatalogFacetIndex;
+import com.agrizen.farmer.service.CatalogVersion;
+import com.agrizen.farmer.service.CropListingImportService;
 import com.agrizen.farmer.service.CropListingService;
+import com.agrizen.farmer.service.FarmerAccessService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -17,9 +32,18 @@ import java.util.List;
 public class CropListingController {
 
 	private final CropListingService cropListingService;
+	private final CatalogVersion catalogVersion;
+	private final CropListingImportService cropListingImportService;
+	private final FarmerAccessService farmerAccessService;
 
-	public CropListingController(CropListingService cropListingService) {
+	public CropListingController(CropListingService cropListingService,
+	                             CatalogVersion catalogVersion,
+	                             CropListingImportService cropListingImportService,
+	                             FarmerAccessService farmerAccessService) {
 		this.cropListingService = cropListingService;
+		this.catalogVersion = catalogVersion;
+		this.cropListingImportService = cropListingImportService;
+		this.farmerAccessService = farmerAccessService;
 	}
 
 	@PostMapping(value = "/farmers/{farmerId}/crops", consumes = {"multipart/form-data"})
@@ -31,27 +55,130 @@ public class CropListingController {
 			@RequestParam BigDecimal price,
 			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate harvestDate,
 			@RequestParam String location,
+			@RequestParam(required = false) Double latitude,
+			@RequestParam(required = false) Double longitude,
 			@RequestParam(required = false) String description,
-			@RequestParam(required = false) MultipartFile image
+			@RequestParam(required = false) MultipartFile image,
+			@RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser user
 	) throws IOException {
+		farmerAccessService.requireFarmer(user, farmerId);
 		CropListing listing = cropListingService.createListing(
-				farmerId, cropName, cropType, quantity, price, harvestDate, location, description, image
+				farmerId, cropName, cropType, quantity, price, harvestDate, location, latitude, longitude, description, image
 		);
 		return ResponseEntity.ok(listing);
 	}
 
+	@PostMapping(value = "/farmers/{farmerId}/crops/bulk", consumes = "text/csv")
+	public ResponseEntity<BulkImportResult> bulkImportCsv(@PathVariable Long farmerId, InputStream body,
+	                                                      @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser user) throws IOException {
+		farmerAccessService.requireFarmer(user, farmerId);
+		return ResponseEntity.ok(cropListingImportService.importCsv(farmerId, body));
+	}
+
+	@PostMapping(value = "/farmers/{farmerId}/crops/bulk", consumes = "application/json")
+	public ResponseEntity<BulkImportResult> bulkImportJson(@PathVariable Long farmerId, InputStream body,
+	                                                       @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser user) throws IOException {
+		farmerAccessService.requireFarmer(user, farmerId);
+		return ResponseEntity.ok(cropListingImportService.importJson(farmerId, body));
+	}
+
 	@GetMapping("/farmers/{farmerId}/crops")
-	public ResponseEntity<List<CropListing>> listByFarmer(@PathVariable Long farmerId) {
-		return ResponseEntity.ok(cropListingService.getByFarmer(farmerId));
+	public ResponseEntity<List<CropListingView>> listByFarmer(
+			@PathVariable Long farmerId,
+			@RequestParam(required = false) String category,
+			@RequestParam(required = false) String cropType,
+			@RequestParam(required = false) String sort,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			WebRequest request
+	) {
+		if (CatalogResponses.notModified(request, catalogVersion)) {
+			return null;
+		}
+		CatalogQuery query = cropListingService.query(farmerId, category, cropType, sort, cursor, limit);
+		return CatalogResponses.page(cropListingService.getPage(query));
 	}
 
 	@GetMapping("/crops")
-	public ResponseEntity<List<CropListing>> listAll() {
-		return ResponseEntity.ok(cropListingService.getAll());
+	public ResponseEntity<List<CropListingView>> listAll(
+			@RequestParam(required = false) String category,
+			@RequestParam(required = false) String cropType,
+			@RequestParam(required = false) String sort,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			WebRequest request
+	) {
+		if (CatalogResponses.notModified(request, catalogVersion)) {
+			return null;
+		}
+		CatalogQuery query = cropListingService.query(null, category, cropType, sort, cursor, limit);
+		return CatalogResponses.page(cropListingService.getPage(query));
+	}
+
+	@GetMapping("/crops/search")
+	public ResponseEntity<List<CropListingView>> search(
+			@RequestParam("q") String query,
+			@RequestParam(required = false) Integer limit,
+			WebRequest request
+	) {
+		if (CatalogResponses.notModified(request, catalogVersion)) {
+			return null;
+		}
+		return CatalogResponses.search(cropListingService.search(query, limit));
+	}
+
+	@GetMapping("/crops/browse")
+	public ResponseEntity<FacetedPage<CropListingView>> browse(
+			@RequestParam(required = false) List<String> cropType,
+			@RequestParam(required = false) List<String> category,
+			@RequestParam(required = false) List<String> location,
+			@RequestParam(required = false) List<String> priceBand,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			WebRequest request
+	) {
+		if (CatalogResponses.notModified(request, catalogVersion)) {
+			return null;
+		}
+		Map<String, Collection<String>> filters = new LinkedHashMap<>();
+		if (cropType != null) filters.put(CatalogFacetIndex.CROP_TYPE, cropType);
+		if (category != null) filters.put(CatalogFacetIndex.CATEGORY, category);
+		if (location != null) filters.put(CatalogFacetIndex.LOCATION, location);
+		if (priceBand != null) filters.put(CatalogFacetIndex.PRICE_BAND, priceBand);
+		return ResponseEntity.ok(cropListingService.browse(filters, cursor, limit));
+	}
+
+	@GetMapping("/crops/cheapest")
+	public ResponseEntity<List<CropListingView>> cheapest(
+			@RequestParam String cropType,
+			@RequestParam(required = false) String by,
+			@RequestParam(required = false) Integer limit,
+			WebRequest request
+	) {
+		if (CatalogResponses.notModified(request, catalogVersion)) {
+			return null;
+		}
+		return ResponseEntity.ok(cropListingService.cheapest(cropType, by, limit));
+	}
+
+	@GetMapping("/crops/nearby")
+	public ResponseEntity<List<NearbyListing>> nearby(
+			@RequestParam double lat,
+			@RequestParam double lon,
+			@RequestParam(defaultValue = "50") double radiusKm,
+			@RequestParam(required = false) Integer limit,
+			WebRequest request
+	) {
+		if (CatalogResponses.notModified(request, catalogVersion)) {
+			return null;
+		}
+		return ResponseEntity.ok(cropListingService.nearby(lat, lon, radiusKm, limit));
 	}
 
 	@DeleteMapping("/crops/{cropId}")
-	public ResponseEntity<Void> delete(@PathVariable Long cropId) {
+	public ResponseEntity<Void> delete(@PathVariable Long cropId,
+	                                   @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser user) {
+		farmerAccessService.requireListingOwner(user, cropId);
 		cropListingService.delete(cropId);
 		return ResponseEntity.noContent().build();
 	}
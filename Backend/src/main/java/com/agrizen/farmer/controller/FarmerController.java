@@ -1,7 +1,9 @@
 package com.agrizen.farmer.controller;
 
+import com.agrizen.auth.dto.AuthenticatedUser;
 import com.agrizen.farmer.entity.Farmer;
 import com.agrizen.farmer.repository.FarmerRepository;
+import com.agrizen.farmer.service.FarmerAccessService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,13 +15,17 @@ import java.net.URI;
 public class FarmerController {
 
 	private final FarmerRepository farmerRepository;
+	private final FarmerAccessService farmerAccessService;
 
-	public FarmerController(FarmerRepository farmerRepository) {
+	public FarmerController(FarmerRepository farmerRepository, FarmerAccessService farmerAccessService) {
 		this.farmerRepository = farmerRepository;
+		this.farmerAccessService = farmerAccessService;
 	}
 
 	@PostMapping
-	public ResponseEntity<Farmer> create(@RequestBody Farmer farmer) {
+	public ResponseEntity<Farmer> create(@RequestBody Farmer farmer,
+	                                     @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser user) {
+		farmerAccessService.requireOwnEmail(user, farmer.getEmail());
 		Farmer saved = farmerRepository.save(farmer);
 		return ResponseEntity.created(URI.create("/api/farmers/" + saved.getId())).body(saved);
 	}
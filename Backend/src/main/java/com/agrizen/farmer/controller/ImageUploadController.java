@@ -0,0 +1,112 @@
+package com.agrizen.farmer.controller;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.farmer.dto.UploadStatus;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.service.ChunkedUploadService;
+import com.agrizen.farmer.service.FarmerAccessService;
+import com.agrizen.farmer.service.UploadOffsetConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Resumable crop image uploads for slow or flaky connections.
+ * Flow: POST init, PUT chunks with ?offset=, GET to learn where to resume, POST complete.
+ * Every step is limited to the farmer the upload was started for.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+public class ImageUploadController {
+
+	private static final String USER = AuthenticatedUser.REQUEST_ATTRIBUTE;
+
+	private final ChunkedUploadService chunkedUploadService;
+	private final FarmerAccessService farmerAccessService;
+
+	public ImageUploadController(ChunkedUploadService chunkedUploadService, FarmerAccessService farmerAccessService) {
+		this.chunkedUploadService = chunkedUploadService;
+		this.farmerAccessService = farmerAccessService;
+	}
+
+	@PostMapping("/farmers/{farmerId}/uploads")
+	public ResponseEntity<UploadStatus> init(@PathVariable Long farmerId, @RequestBody Map<String, Object> body,
+	                                         @RequestAttribute(name = USER, required = false) AuthenticatedUser user) throws IOException {
+		farmerAccessService.requireFarmer(user, farmerId);
+		Object size = body.get("size");
+		if (!(size instanceof Number)) {
+			throw new IllegalArgumentException("size is required");
+		}
+		UploadStatus status = chunkedUploadService.init(farmerId, string(body, "fileName"),
+				((Number) size).longValue(), string(body, "sha256"));
+		return ResponseEntity.status(HttpStatus.CREATED).body(status);
+	}
+
+	@GetMapping("/uploads/{uploadId}")
+	public ResponseEntity<UploadStatus> status(@PathVariable String uploadId,
+	                                           @RequestAttribute(name = USER, required = false) AuthenticatedUser user) {
+		requireOwner(user, uploadId);
+		return ResponseEntity.ok(chunkedUploadService.status(uploadId));
+	}
+
+	@PutMapping(value = "/uploads/{uploadId}", consumes = "application/octet-stream")
+	public ResponseEntity<UploadStatus> append(@PathVariable String uploadId,
+	                                           @RequestParam long offset,
+	                                           InputStream body,
+	                                           @RequestAttribute(name = USER, required = false) AuthenticatedUser user) throws IOException {
+		requireOwner(user, uploadId);
+		return ResponseEntity.ok(chunkedUploadService.append(uploadId, offset, body));
+	}
+
+	@PostMapping("/uploads/{uploadId}/complete")
+	public ResponseEntity<CropListing> complete(@PathVariable String uploadId, @RequestParam Long listingId,
+	                                            @RequestAttribute(name = USER, required = false) AuthenticatedUser user) throws IOException {
+		requireOwner(user, uploadId);
+		return ResponseEntity.ok(chunkedUploadService.complete(uploadId, listingId));
+	}
+
+	@DeleteMapping("/uploads/{uploadId}")
+	public ResponseEntity<Void> cancel(@PathVariable String uploadId,
+	                                   @RequestAttribute(name = USER, required = false) AuthenticatedUser user) throws IOException {
+		requireOwner(user, uploadId);
+		chunkedUploadService.cancel(uploadId);
+		return ResponseEntity.noContent().build();
+	}
+
+	// Optional string field; anything else in the JSON body is a 400
+	private static String string(Map<String, Object> body, String field) {
+		Object value = body.get(field);
+		if (value != null && !(value instanceof String)) {
+			throw new IllegalArgumentException(field + " must be a string");
+		}
+		return (String) value;
+	}
+
+	private void requireOwner(AuthenticatedUser user, String uploadId) {
+		farmerAccessService.requireFarmer(user, chunkedUploadService.farmerId(uploadId));
+	}
+
+	@ExceptionHandler(NoSuchElementException.class)
+	public ResponseEntity<Map<String, Object>> handleNotFound(NoSuchElementException ex) {
+		return error(HttpStatus.NOT_FOUND, ex.getMessage());
+	}
+
+	@ExceptionHandler(UploadOffsetConflictException.class)
+	public ResponseEntity<Map<String, Object>> handleConflict(UploadOffsetConflictException ex) {
+		return error(HttpStatus.CONFLICT, ex.getMessage());
+	}
+
+	private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("message", message);
+		body.put("error", status.getReasonPhrase());
+		return ResponseEntity.status(status).body(body);
+	}
+}
@@ -0,0 +1,65 @@
+package com.agrizen.farmer.controller;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.farmer.dto.Reservation;
+import com.agrizen.farmer.service.InventoryReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stock holds for buyers. The JWT filter only lets buyers and admins in; the service checks that
+ * a reservation is committed or released by the buyer who made it.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+public class InventoryReservationController {
+
+	private static final String USER = AuthenticatedUser.REQUEST_ATTRIBUTE;
+
+	private final InventoryReservationService reservationService;
+
+	public InventoryReservationController(InventoryReservationService reservationService) {
+		this.reservationService = reservationService;
+	}
+
+	@PostMapping("/crops/{cropId}/reservations")
+	public ResponseEntity<?> reserve(@PathVariable Long cropId, @RequestBody Map<String, Integer> body,
+	                                 @RequestAttribute(name = USER, required = false) AuthenticatedUser user) {
+		Integer quantity = body.get("quantity");
+		if (quantity == null) {
+			throw new IllegalArgumentException("quantity is required");
+		}
+		return reservationService.reserve(cropId, quantity, user)
+				.<ResponseEntity<?>>map(r -> ResponseEntity.status(HttpStatus.CREATED).body(r))
+				.orElseGet(() -> error(HttpStatus.CONFLICT, "Not enough stock left for crop listing " + cropId));
+	}
+
+	@PostMapping("/reservations/{reservationId}/commit")
+	public ResponseEntity<Reservation> commit(@PathVariable String reservationId,
+	                                          @RequestAttribute(name = USER, required = false) AuthenticatedUser user) {
+		return reservationService.commit(reservationId, user)
+				.map(ResponseEntity::ok)
+				.orElse(ResponseEntity.notFound().build());
+	}
+
+	@DeleteMapping("/reservations/{reservationId}")
+	public ResponseEntity<Void> release(@PathVariable String reservationId,
+	                                    @RequestAttribute(name = USER, required = false) AuthenticatedUser user) {
+		if (reservationService.release(reservationId, user).isPresent()) {
+			return ResponseEntity.noContent().build();
+		}
+		return ResponseEntity.notFound().build();
+	}
+
+	private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("message", message);
+		body.put("error", status.getReasonPhrase());
+		return ResponseEntity.status(status).body(body);
+	}
+}
@@ -0,0 +1,26 @@
+package com.agrizen.farmer.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk listing import: totals, throughput and one entry per input row read.
+ * {@code truncated} is set when the input had more rows than one import accepts; rows past
+ * the limit were not read and {@code message} says where it stopped.
+ */
+public record BulkImportResult(int total,
+                               int imported,
+                               int failed,
+                               long durationMs,
+                               double rowsPerSecond,
+                               boolean truncated,
+                               String message,
+                               List<RowResult> rows) {
+
+	/**
+	 * @param row   1-based position in the input (data rows only, header excluded)
+	 * @param id    id of the created listing, or null if the row failed
+	 * @param error validation or persistence error, or null on success
+	 */
+	public record RowResult(int row, Long id, String error) {
+	}
+}
@@ -0,0 +1,43 @@
+package com.agrizen.farmer.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ * Encodes the sort order and the key of the last row returned, so the next page
+ * starts strictly after it regardless of inserts or deletes in between.
+ */
+public record CatalogCursor(CatalogSort sort, BigDecimal lastPrice, Long lastId) {
+
+	private static final String VERSION = "v1";
+
+	public String encode() {
+		String raw = VERSION + "|" + sort.name() + "|" + (lastPrice != null ? lastPrice.toPlainString() : "") + "|" + lastId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static CatalogCursor decode(String token, CatalogSort expectedSort) {
+		CatalogCursor cursor;
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\|", -1);
+			if (parts.length != 4 || !VERSION.equals(parts[0])) {
+				throw new IllegalArgumentException();
+			}
+			BigDecimal price = parts[2].isEmpty() ? null : new BigDecimal(parts[2]);
+			cursor = new CatalogCursor(CatalogSort.valueOf(parts[1]), price, Long.parseLong(parts[3]));
+		} catch (IllegalArgumentException e) {
+			// Covers bad Base64, unknown sort names and NumberFormatException
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+		if (cursor.sort() != expectedSort) {
+			throw new IllegalArgumentException("Cursor was issued for a different sort order");
+		}
+		if (cursor.sort() == CatalogSort.PRICE && cursor.lastPrice() == null) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+		return cursor;
+	}
+}
@@ -0,0 +1,9 @@
+package com.agrizen.farmer.dto;
+
+import java.util.List;
+
+/**
+ * One page of catalog results. {@code nextCursor} is null on the last page.
+ */
+public record CatalogPage<T>(List<T> items, String nextCursor) {
+}
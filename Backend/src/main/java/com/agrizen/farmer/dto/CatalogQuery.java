@@ -0,0 +1,13 @@
+package com.agrizen.farmer.dto;
+
+/**
+ * Filters and paging parameters for a catalog listing request.
+ * Null filters are ignored; {@code cursor} is null for the first page.
+ */
+public record CatalogQuery(Long farmerId,
+                           String category,
+                           String cropType,
+                           CatalogSort sort,
+                           CatalogCursor cursor,
+                           int limit) {
+}
@@ -0,0 +1,18 @@
+package com.agrizen.farmer.dto;
+
+import java.util.Locale;
+
+public enum CatalogSort {
+	ID, PRICE;
+
+	public static CatalogSort parse(String value) {
+		if (value == null || value.isBlank()) {
+			return ID;
+		}
+		try {
+			return CatalogSort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid sort. Use 'id' or 'price'");
+		}
+	}
+}
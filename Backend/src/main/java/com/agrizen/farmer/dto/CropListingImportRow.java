@@ -0,0 +1,17 @@
+package com.agrizen.farmer.dto;
+
+/**
+ * One listing in a bulk import, as read from a CSV row or JSON object.
+ * Values are kept as text so every row can be validated and reported individually.
+ */
+public class CropListingImportRow {
+	public String cropName;
+	public String cropType;
+	public String quantity;
+	public String price;
+	public String harvestDate;
+	public String location;
+	public String latitude;
+	public String longitude;
+	public String description;
+}
@@ -0,0 +1,38 @@
+package com.agrizen.farmer.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a crop listing with just the columns the catalog UI shows.
+ * Built directly by JPQL constructor expressions, so no entity or persistence-context state is created.
+ * The JSON shape matches the entity's (including {@code farmer.name}) for existing clients.
+ */
+public record CropListingView(Long id,
+                              String cropName,
+                              String cropType,
+                              Integer quantity,
+                              BigDecimal price,
+                              LocalDate harvestDate,
+                              String location,
+                              Double latitude,
+                              Double longitude,
+                              String description,
+                              String imageUrl,
+                              String thumbnailUrl,
+                              String mediumUrl,
+                              String category,
+                              FarmerSummary farmer) {
+
+	public record FarmerSummary(Long id, String name) {
+	}
+
+	// Flat constructor used by the repository's "select new" queries
+	public CropListingView(Long id, String cropName, String cropType, Integer quantity, BigDecimal price,
+	                       LocalDate harvestDate, String location, Double latitude, Double longitude,
+	                       String description, String imageUrl, String thumbnailUrl, String mediumUrl, String category,
+	                       Long farmerId, String farmerName) {
+		this(id, cropName, cropType, quantity, price, harvestDate, location, latitude, longitude, description,
+				imageUrl, thumbnailUrl, mediumUrl, category, new FarmerSummary(farmerId, farmerName));
+	}
+}
@@ -0,0 +1,14 @@
+package com.agrizen.farmer.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of filtered listings plus, for each facet, the number of listings per value.
+ * Counts for a facet ignore that facet's own filter so the other values stay selectable.
+ */
+public record FacetedPage<T>(List<T> items,
+                             long total,
+                             String nextCursor,
+                             Map<String, Map<String, Integer>> facets) {
+}
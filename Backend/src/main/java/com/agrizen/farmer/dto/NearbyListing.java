@@ -0,0 +1,9 @@
+package com.agrizen.farmer.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * A catalog listing plus its great-circle distance from the search point.
+ */
+public record NearbyListing(@JsonUnwrapped CropListingView listing, double distanceKm) {
+}
@@ -0,0 +1,9 @@
+package com.agrizen.farmer.dto;
+
+import java.time.Instant;
+
+/**
+ * Stock held for one buyer until it is committed, released or expires.
+ */
+public record Reservation(String id, Long listingId, int quantity, Instant expiresAt) {
+}
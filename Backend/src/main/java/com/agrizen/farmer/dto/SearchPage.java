@@ -0,0 +1,10 @@
+package com.agrizen.farmer.dto;
+
+import java.util.List;
+
+/**
+ * Full-text search results. {@code truncated} is set when a word of the query was a prefix of
+ * too many indexed terms for all of them to be searched; a longer word narrows it.
+ */
+public record SearchPage<T>(List<T> items, boolean truncated) {
+}
@@ -0,0 +1,9 @@
+package com.agrizen.farmer.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of a resumable upload; a client resumes by sending the next chunk at {@code offset}.
+ */
+public record UploadStatus(String uploadId, long size, long offset, Instant expiresAt) {
+}
@@ -2,15 +2,24 @@ package com.agrizen.farmer.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "crop_listings")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+// Only changed columns are written, so an edit to other fields never overwrites a concurrent stock change
+@DynamicUpdate
 public class CropListing {
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	// Pooled sequence ids (one sequence call per 50 rows) so inserts can be JDBC-batched;
+	// IDENTITY would force Hibernate to insert row by row
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "crop_listings_seq")
+	@SequenceGenerator(name = "crop_listings_seq", sequenceName = "crop_listings_seq", allocationSize = CropListing.ID_ALLOCATION_SIZE)
 	private Long id;
 
 	@Column(name = "crop_name", nullable = false, length = 120)
@@ -31,15 +40,31 @@ public class CropListing {
 	@Column(nullable = false, length = 150)
 	private String location;
 
+	// Optional coordinates; resolved from the location through the gazetteer when not supplied
+	private Double latitude;
+
+	private Double longitude;
+
 	@Column(columnDefinition = "TEXT")
 	private String description;
 
 	@Column(name = "image_url", length = 500)
 	private String imageUrl;
 
+	// Resized, metadata-free JPEG variants filled in asynchronously by ImageDerivativeService
+	@Column(name = "thumbnail_url", length = 500)
+	private String thumbnailUrl;
+
+	@Column(name = "medium_url", length = 500)
+	private String mediumUrl;
+
 	@Column(name = "category", length = 50)
 	private String category; // PRODUCTS, NEW_ARRIVAL, SEEDS_SAPLINGS
 
+	// Nullable so rows that predate the column survive a schema update; those count as already aged
+	@Column(name = "created_at", updatable = false)
+	private LocalDateTime createdAt;
+
 	@ManyToOne(fetch = FetchType.EAGER, optional = false)
 	@JoinColumn(name = "farmer_id", nullable = false)
 	private Farmer farmer;
@@ -58,14 +83,31 @@ public class CropListing {
 	public void setHarvestDate(LocalDate harvestDate) { this.harvestDate = harvestDate; }
 	public String getLocation() { return location; }
 	public void setLocation(String location) { this.location = location; }
+	public Double getLatitude() { return latitude; }
+	public void setLatitude(Double latitude) { this.latitude = latitude; }
+	public Double getLongitude() { return longitude; }
+	public void setLongitude(Double longitude) { this.longitude = longitude; }
 	public String getDescription() { return description; }
 	public void setDescription(String description) { this.description = description; }
 	public String getImageUrl() { return imageUrl; }
 	public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+	public String getThumbnailUrl() { return thumbnailUrl; }
+	public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+	public String getMediumUrl() { return mediumUrl; }
+	public void setMediumUrl(String mediumUrl) { this.mediumUrl = mediumUrl; }
 	public String getCategory() { return category; }
 	public void setCategory(String category) { this.category = category; }
+	public LocalDateTime getCreatedAt() { return createdAt; }
+	public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 	public Farmer getFarmer() { return farmer; }
 	public void setFarmer(Farmer farmer) { this.farmer = farmer; }
+
+	@PrePersist
+	void onCreate() {
+		if (createdAt == null) {
+			createdAt = LocalDateTime.now();
+		}
+	}
 }
 
 
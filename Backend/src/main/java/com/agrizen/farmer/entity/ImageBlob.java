@@ -0,0 +1,45 @@
+package com.agrizen.farmer.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stored image file, named by the SHA-256 of its bytes, and how many listings point at it.
+ */
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+	@Id
+	@Column(length = 64)
+	private String hash;
+
+	@Column(length = 10, nullable = false)
+	private String extension;
+
+	@Column(name = "size_bytes", nullable = false)
+	private Long sizeBytes;
+
+	// -1 while the blob's files are being deleted
+	@Column(name = "ref_count", nullable = false)
+	private Integer refCount;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	// Lets the orphan collector leave blobs alone while a new reference is being attached
+	@Column(name = "last_referenced_at")
+	private LocalDateTime lastReferencedAt;
+
+	public String getHash() { return hash; }
+	public void setHash(String hash) { this.hash = hash; }
+	public String getExtension() { return extension; }
+	public void setExtension(String extension) { this.extension = extension; }
+	public Long getSizeBytes() { return sizeBytes; }
+	public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+	public Integer getRefCount() { return refCount; }
+	public void setRefCount(Integer refCount) { this.refCount = refCount; }
+	public LocalDateTime getCreatedAt() { return createdAt; }
+	public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+	public LocalDateTime getLastReferencedAt() { return lastReferencedAt; }
+	public void setLastReferencedAt(LocalDateTime lastReferencedAt) { this.lastReferencedAt = lastReferencedAt; }
+}
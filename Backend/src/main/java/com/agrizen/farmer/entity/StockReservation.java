@@ -0,0 +1,54 @@
+package com.agrizen.farmer.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Durable copy of a stock hold, so a hold outlives the instance that made it: any instance can
+ * commit or release it, and the expiry sweep returns holds left behind by a restart.
+ * Whoever deletes the row finishes the reservation.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = @Index(name = "idx_stock_reservations_expires_at", columnList = "expires_at"))
+public class StockReservation implements Persistable<String> {
+	@Id
+	@Column(length = 36)
+	private String id;
+
+	@Column(name = "listing_id", nullable = false)
+	private Long listingId;
+
+	@Column(nullable = false)
+	private Integer quantity;
+
+	// Null when the reservation was made without a token
+	@Column(name = "user_id")
+	private Long userId;
+
+	// Epoch millis
+	@Column(name = "expires_at", nullable = false)
+	private Long expiresAt;
+
+	// Ids are assigned, so save() needs this to insert without a select first
+	@Transient
+	private boolean persisted;
+
+	@PostLoad
+	@PostPersist
+	void markPersisted() { persisted = true; }
+
+	@Override
+	public boolean isNew() { return !persisted; }
+
+	@Override
+	public String getId() { return id; }
+	public void setId(String id) { this.id = id; }
+	public Long getListingId() { return listingId; }
+	public void setListingId(Long listingId) { this.listingId = listingId; }
+	public Integer getQuantity() { return quantity; }
+	public void setQuantity(Integer quantity) { this.quantity = quantity; }
+	public Long getUserId() { return userId; }
+	public void setUserId(Long userId) { this.userId = userId; }
+	public Long getExpiresAt() { return expiresAt; }
+	public void setExpiresAt(Long expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -1,12 +1,99 @@
 package com.agrizen.farmer.repository;
 
+import com.agrizen.farmer.dto.CropListingView;
 import com.agrizen.farmer.entity.CropListing;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CropListingRepository extends JpaRepository<CropListing, Long> {
 	List<CropListing> findByFarmer_Id(Long farmerId);
 	List<CropListing> findByCategory(String category);
-}
 
+	String VIEW_SELECT = "select new com.agrizen.farmer.dto.CropListingView(" +
+			"c.id, c.cropName, c.cropType, c.quantity, c.price, c.harvestDate, c.location, c.latitude, c.longitude, " +
+			"c.description, c.imageUrl, c.thumbnailUrl, c.mediumUrl, c.category, f.id, f.name) " +
+			"from CropListing c join c.farmer f ";
+
+	// Keyset pages: callers pass the last seen key and a Pageable whose size is the page limit.
+	// A PRODUCTS filter also matches legacy rows that were saved without a category.
+	@Query(VIEW_SELECT +
+			"where c.id > :afterId " +
+			"and (:farmerId is null or f.id = :farmerId) " +
+			"and (:category is null or c.category = :category or (:category = 'PRODUCTS' and c.category is null)) " +
+			"and (:cropType is null or lower(c.cropType) = :cropType) " +
+			"order by c.id")
+	List<CropListingView> findPageOrderById(@Param("afterId") Long afterId,
+	                                        @Param("farmerId") Long farmerId,
+	                                        @Param("category") String category,
+	                                        @Param("cropType") String cropType,
+	                                        Pageable pageable);
+
+	@Query(VIEW_SELECT +
+			"where (:afterPrice is null or c.price > :afterPrice or (c.price = :afterPrice and c.id > :afterId)) " +
+			"and (:farmerId is null or f.id = :farmerId) " +
+			"and (:category is null or c.category = :category or (:category = 'PRODUCTS' and c.category is null)) " +
+			"and (:cropType is null or lower(c.cropType) = :cropType) " +
+			"order by c.price, c.id")
+	List<CropListingView> findPageOrderByPrice(@Param("afterPrice") BigDecimal afterPrice,
+	                                           @Param("afterId") Long afterId,
+	                                           @Param("farmerId") Long farmerId,
+	                                           @Param("category") String category,
+	                                           @Param("cropType") String cropType,
+	                                           Pageable pageable);
+
+	@Query(VIEW_SELECT + "where c.id in :ids")
+	List<CropListingView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+	// Entity chunks for rebuilding in-memory indexes; the farmer is fetched in the same query
+	@Query("select c from CropListing c join fetch c.farmer where c.id > :afterId order by c.id")
+	List<CropListing> findChunkAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+	// NEW_ARRIVAL listings due to move to PRODUCTS: listed before the cutoff (or before created_at
+	// was recorded) or harvested before the harvest cutoff
+	@Query("select c from CropListing c join fetch c.farmer " +
+			"where c.id > :afterId and c.category = 'NEW_ARRIVAL' " +
+			"and (c.createdAt is null or c.createdAt < :listedBefore or c.harvestDate < :harvestedBefore) " +
+			"order by c.id")
+	List<CropListing> findAgedNewArrivals(@Param("afterId") Long afterId,
+	                                      @Param("listedBefore") LocalDateTime listedBefore,
+	                                      @Param("harvestedBefore") LocalDate harvestedBefore,
+	                                      Pageable pageable);
 
+	@Query("select c from CropListing c join fetch c.farmer where c.id in :ids")
+	List<CropListing> findWithFarmerByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Modifying
+	@Transactional
+	@Query("update CropListing c set c.category = :to where c.id in :ids and c.category = :from")
+	int moveCategory(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+
+	// Stock changes are single conditional UPDATEs so concurrent buyers can never take the quantity below zero
+	@Modifying
+	@Transactional
+	@Query("update CropListing c set c.quantity = c.quantity - :quantity where c.id = :id and c.quantity >= :quantity")
+	int takeStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+	@Modifying
+	@Transactional
+	@Query("update CropListing c set c.quantity = c.quantity + :quantity where c.id = :id")
+	int returnStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+	// Only applies if the listing still points at the image the variants were made from
+	@Modifying
+	@Transactional
+	@Query("update CropListing c set c.thumbnailUrl = :thumbnailUrl, c.mediumUrl = :mediumUrl " +
+			"where c.id = :id and c.imageUrl = :imageUrl")
+	int setImageVariants(@Param("id") Long id,
+	                     @Param("imageUrl") String imageUrl,
+	                     @Param("thumbnailUrl") String thumbnailUrl,
+	                     @Param("mediumUrl") String mediumUrl);
+}
@@ -0,0 +1,65 @@
+package com.agrizen.farmer.repository;
+
+import com.agrizen.farmer.entity.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Reference counts of stored images. A {@code ref_count} of -1 marks a row whose files are
+ * being deleted; see {@link com.agrizen.farmer.service.ImageBlobStore}.
+ */
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+	@Query("select b.extension from ImageBlob b where b.hash = :hash")
+	Optional<String> findExtension(@Param("hash") String hash);
+
+	// A plain insert, so a row another instance created first fails instead of being merged over
+	@Modifying
+	@Transactional
+	@Query(value = "insert into image_blobs (hash, extension, size_bytes, ref_count, created_at, last_referenced_at) " +
+			"values (:hash, :extension, :size, :refCount, :now, :now)", nativeQuery = true)
+	int insert(@Param("hash") String hash, @Param("extension") String extension, @Param("size") long size,
+	           @Param("refCount") int refCount, @Param("now") LocalDateTime now);
+
+	// Only rows not claimed for deletion; an idle row at 0 is revived, which stops its deletion
+	@Modifying
+	@Transactional
+	@Query("update ImageBlob b set b.refCount = b.refCount + 1, b.lastReferencedAt = :now where b.hash = :hash and b.refCount >= 0")
+	int addReference(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+	@Modifying
+	@Transactional
+	@Query("update ImageBlob b set b.refCount = b.refCount - 1 where b.hash = :hash and b.refCount > 0")
+	int removeReference(@Param("hash") String hash);
+
+	@Modifying
+	@Transactional
+	@Query("update ImageBlob b set b.refCount = -1, b.lastReferencedAt = :now where b.hash = :hash and b.refCount = 0")
+	int claimUnreferenced(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+	// Whatever the count says, as long as nothing referenced the blob since the cutoff
+	@Modifying
+	@Transactional
+	@Query("update ImageBlob b set b.refCount = -1, b.lastReferencedAt = :now where b.hash = :hash " +
+			"and (b.lastReferencedAt is null or b.lastReferencedAt < :before)")
+	int claimForPurge(@Param("hash") String hash, @Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+	// For a claim left behind by an instance that died while deleting
+	@Modifying
+	@Transactional
+	@Query("update ImageBlob b set b.refCount = 1, b.extension = :extension, b.sizeBytes = :size, b.lastReferencedAt = :now " +
+			"where b.hash = :hash and b.refCount = -1 and b.lastReferencedAt < :staleBefore")
+	int takeOverStaleClaim(@Param("hash") String hash, @Param("extension") String extension, @Param("size") long size,
+	                       @Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+	@Modifying
+	@Transactional
+	@Query("delete from ImageBlob b where b.hash = :hash and b.refCount = -1")
+	int deleteClaimed(@Param("hash") String hash);
+}
@@ -0,0 +1,23 @@
+package com.agrizen.farmer.repository;
+
+import com.agrizen.farmer.entity.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+	// 1 for the one caller, on any instance, that gets to commit, release or expire the reservation
+	@Modifying
+	@Transactional
+	@Query("delete from StockReservation r where r.id = :id")
+	int claim(@Param("id") String id);
+
+	@Query("select r from StockReservation r where r.expiresAt < :now order by r.expiresAt")
+	List<StockReservation> findExpired(@Param("now") long now, Pageable pageable);
+}
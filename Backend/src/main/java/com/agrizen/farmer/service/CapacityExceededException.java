@@ -0,0 +1,19 @@
+package com.agrizen.farmer.service;
+
+/**
+ * Thrown when a bounded in-memory resource (active reservations, upload sessions) is full;
+ * answered with 503 and Retry-After.
+ */
+public class CapacityExceededException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public CapacityExceededException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
@@ -0,0 +1,159 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.CatalogPage;
+import com.agrizen.farmer.dto.CatalogQuery;
+import com.agrizen.farmer.dto.CropListingView;
+import com.agrizen.farmer.entity.CropListing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of catalog pages, bounded by entry count and TTL.
+ * A write invalidates only the cached queries whose filters match the listing
+ * before or after the change.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CatalogCache implements CatalogListener {
+
+	@Value("${app.catalog.cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.catalog.cache.max-entries:1000}")
+	private int maxEntries;
+
+	@Value("${app.catalog.cache.ttl-seconds:60}")
+	private long ttlSeconds;
+
+	// Access-ordered so the eldest entry is the least recently used one
+	private final LinkedHashMap<CatalogQuery, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+	// Bumped on every invalidation; a load that raced with a write is not stored
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	private record Entry(CatalogPage<CropListingView> page, long expiresAt) {
+	}
+
+	public CatalogPage<CropListingView> get(CatalogQuery query, Supplier<CatalogPage<CropListingView>> loader) {
+		if (!enabled) {
+			return loader.get();
+		}
+		long now = System.nanoTime();
+		synchronized (entries) {
+			Entry entry = entries.get(query);
+			if (entry != null) {
+				if (entry.expiresAt - now > 0) {
+					hits.increment();
+					return entry.page;
+				}
+				entries.remove(query);
+				expirations.increment();
+			}
+		}
+		misses.increment();
+
+		long loadGeneration = generation.get();
+		CatalogPage<CropListingView> page = loader.get();
+		synchronized (entries) {
+			if (generation.get() == loadGeneration) {
+				entries.put(query, new Entry(page, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+				evictOverflow();
+			}
+		}
+		return page;
+	}
+
+	@Override
+	public void listingSaved(CropListing previous, CropListing current) {
+		invalidateMatching(previous, current);
+	}
+
+	@Override
+	public void listingDeleted(CropListing removed) {
+		invalidateMatching(removed, null);
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			generation.incrementAndGet();
+			invalidations.add(entries.size());
+			entries.clear();
+		}
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		synchronized (entries) {
+			stats.put("size", entries.size());
+		}
+		stats.put("maxEntries", maxEntries);
+		stats.put("ttlSeconds", ttlSeconds);
+		stats.put("hits", hits.sum());
+		stats.put("misses", misses.sum());
+		stats.put("evictions", evictions.sum());
+		stats.put("expirations", expirations.sum());
+		stats.put("invalidations", invalidations.sum());
+		return stats;
+	}
+
+	private void invalidateMatching(CropListing a, CropListing b) {
+		synchronized (entries) {
+			generation.incrementAndGet();
+			Iterator<CatalogQuery> it = entries.keySet().iterator();
+			while (it.hasNext()) {
+				CatalogQuery query = it.next();
+				if ((a != null && matches(query, a)) || (b != null && matches(query, b))) {
+					it.remove();
+					invalidations.increment();
+				}
+			}
+		}
+	}
+
+	private void evictOverflow() {
+		Iterator<CatalogQuery> it = entries.keySet().iterator();
+		while (entries.size() > maxEntries && it.hasNext()) {
+			it.next();
+			it.remove();
+			evictions.increment();
+		}
+	}
+
+	private static boolean matches(CatalogQuery query, CropListing listing) {
+		if (query.farmerId() != null
+				&& (listing.getFarmer() == null || !Objects.equals(query.farmerId(), listing.getFarmer().getId()))) {
+			return false;
+		}
+		if (query.category() != null) {
+			String category = listing.getCategory();
+			boolean productsFallback = "PRODUCTS".equals(query.category()) && category == null;
+			if (!productsFallback && !query.category().equals(category)) {
+				return false;
+			}
+		}
+		if (query.cropType() != null) {
+			String cropType = listing.getCropType();
+			if (cropType == null || !query.cropType().equals(cropType.toLowerCase(Locale.ROOT))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,76 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fans out catalog mutations to every registered {@link CatalogListener}.
+ * All code paths that write crop listings must report through here.
+ * <p>
+ * Listeners run in {@link org.springframework.core.annotation.Order @Order}: {@link CatalogCache}
+ * and then {@link CatalogVersion} come first, so stale pages are dropped and conditional GETs
+ * see the new version whatever the other listeners do. A listener that throws is logged and
+ * skipped; the write has already been saved and the remaining listeners still run.
+ */
+@Component
+public class CatalogEvents {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogEvents.class);
+
+	private final List<CatalogListener> listeners;
+
+	public CatalogEvents(List<CatalogListener> listeners) {
+		this.listeners = new ArrayList<>(listeners);
+		AnnotationAwareOrderComparator.sort(this.listeners);
+	}
+
+	public void saved(CropListing previous, CropListing current) {
+		for (CatalogListener listener : listeners) {
+			try {
+				listener.listingSaved(previous, current);
+			} catch (RuntimeException e) {
+				log.error("{} failed on save of listing {}", listener.getClass().getSimpleName(), current.getId(), e);
+			}
+		}
+	}
+
+	public void deleted(CropListing removed) {
+		for (CatalogListener listener : listeners) {
+			try {
+				listener.listingDeleted(removed);
+			} catch (RuntimeException e) {
+				log.error("{} failed on delete of listing {}", listener.getClass().getSimpleName(), removed.getId(), e);
+			}
+		}
+	}
+
+	/**
+	 * Copy the fields of a listing so later in-place edits do not change what listeners see as "previous".
+	 */
+	public static CropListing snapshot(CropListing source) {
+		CropListing copy = new CropListing();
+		copy.setId(source.getId());
+		copy.setCropName(source.getCropName());
+		copy.setCropType(source.getCropType());
+		copy.setQuantity(source.getQuantity());
+		copy.setPrice(source.getPrice());
+		copy.setHarvestDate(source.getHarvestDate());
+		copy.setLocation(source.getLocation());
+		copy.setLatitude(source.getLatitude());
+		copy.setLongitude(source.getLongitude());
+		copy.setDescription(source.getDescription());
+		copy.setImageUrl(source.getImageUrl());
+		copy.setThumbnailUrl(source.getThumbnailUrl());
+		copy.setMediumUrl(source.getMediumUrl());
+		copy.setCategory(source.getCategory());
+		copy.setCreatedAt(source.getCreatedAt());
+		copy.setFarmer(source.getFarmer());
+		return copy;
+	}
+}
@@ -0,0 +1,136 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.CropListingView;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole catalog as NDJSON or CSV straight to an output stream.
+ * Rows come from a forward-only cursor with a fixed fetch size and are read as
+ * {@link CropListingView} projections, so nothing accumulates in the persistence
+ * context and memory stays flat regardless of table size.
+ */
+@Service
+public class CatalogExportService {
+
+	private static final String[] CSV_HEADER = {
+			"id", "cropName", "cropType", "quantity", "price", "harvestDate", "location", "latitude", "longitude",
+			"description", "imageUrl", "thumbnailUrl", "mediumUrl", "category", "farmerId", "farmerName"
+	};
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final ObjectMapper objectMapper;
+
+	// Flushing is left to flush-every; the default flushes the response after every row
+	private final ObjectWriter rowWriter;
+
+	// MySQL only streams with useCursorFetch=true on the JDBC URL; otherwise it buffers the result set
+	@Value("${app.export.fetch-size:500}")
+	private int fetchSize;
+
+	@Value("${app.export.flush-every:1000}")
+	private int flushEvery;
+
+	public CatalogExportService(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.rowWriter = objectMapper.writerFor(CropListingView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	/**
+	 * @return number of rows written
+	 */
+	@Transactional(readOnly = true)
+	public long writeNdjson(OutputStream out) throws IOException {
+		long rows = 0;
+		try (Stream<CropListingView> stream = openStream();
+		     JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// Records are separated by the newline written below, not the default space
+			generator.setRootValueSeparator(null);
+			Iterator<CropListingView> it = stream.iterator();
+			while (it.hasNext()) {
+				rowWriter.writeValue(generator, it.next());
+				generator.writeRaw('\n');
+				if (++rows % flushEvery == 0) {
+					generator.flush();
+				}
+			}
+			generator.flush();
+		}
+		return rows;
+	}
+
+	/**
+	 * @return number of rows written, excluding the header
+	 */
+	@Transactional(readOnly = true)
+	public long writeCsv(OutputStream out) throws IOException {
+		long rows = 0;
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		writeCsvRow(writer, (Object[]) CSV_HEADER);
+		try (Stream<CropListingView> stream = openStream()) {
+			Iterator<CropListingView> it = stream.iterator();
+			while (it.hasNext()) {
+				CropListingView v = it.next();
+				writeCsvRow(writer, v.id(), v.cropName(), v.cropType(), v.quantity(), v.price(), v.harvestDate(),
+						v.location(), v.latitude(), v.longitude(), v.description(), v.imageUrl(), v.thumbnailUrl(), v.mediumUrl(), v.category(),
+						v.farmer().id(), v.farmer().name());
+				if (++rows % flushEvery == 0) {
+					writer.flush();
+				}
+			}
+		}
+		writer.flush();
+		return rows;
+	}
+
+	private Stream<CropListingView> openStream() {
+		return entityManager.createQuery(CropListingRepository.VIEW_SELECT + "order by c.id", CropListingView.class)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream();
+	}
+
+	private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			writer.write(csvField(values[i]));
+		}
+		writer.write("\r\n");
+	}
+
+	// RFC 4180: quote fields containing separators, quotes or line breaks
+	private static String csvField(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String s = value instanceof BigDecimal d ? d.toPlainString() : value.toString();
+		if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+			return '"' + s.replace("\"", "\"\"") + '"';
+		}
+		return s;
+	}
+}
@@ -0,0 +1,281 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet aggregates for catalog browsing, maintained incrementally from {@link CatalogListener} events.
+ * Each listing gets a dense ordinal; every facet value owns a bitset of ordinals and a running count,
+ * so filtering and counting are bitset intersections instead of table scans.
+ */
+@Component
+public class CatalogFacetIndex implements CatalogIndex {
+
+	public static final String CROP_TYPE = "cropType";
+	public static final String CATEGORY = "category";
+	public static final String LOCATION = "location";
+	public static final String PRICE_BAND = "priceBand";
+
+	public static final List<String> FACETS = List.of(CROP_TYPE, CATEGORY, LOCATION, PRICE_BAND);
+
+	private static final int[] PRICE_BAND_BOUNDS = {50, 100, 250, 500, 1000};
+
+	private final Map<String, Facet> facets = new LinkedHashMap<>();
+	private final Map<Long, Integer> ordinalById = new HashMap<>();
+	private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+	private final BitSet live = new BitSet();
+	private long[] idByOrdinal = new long[1024];
+	private String[][] valuesByOrdinal = new String[1024][];
+	private int nextOrdinal;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public CatalogFacetIndex() {
+		for (String name : FACETS) {
+			facets.put(name, new Facet());
+		}
+	}
+
+	private static final class Facet {
+		final Map<String, BitSet> members = new HashMap<>();
+		final Map<String, Integer> counts = new HashMap<>();
+		// Normalized key -> display label as last written by a listing
+		final Map<String, String> labels = new HashMap<>();
+	}
+
+	/**
+	 * Result of a facet query: matching listing ids (one keyset page) and the facet counts.
+	 */
+	public record Result(List<Long> ids, long total, boolean hasMore, Map<String, Map<String, Integer>> counts) {
+	}
+
+	@Override
+	public void listingSaved(CropListing previous, CropListing current) {
+		String[] values = facetValues(current);
+		lock.writeLock().lock();
+		try {
+			removeOrdinal(current.getId());
+			int ordinal = allocateOrdinal(current.getId());
+			valuesByOrdinal[ordinal] = values;
+			int i = 0;
+			for (Map.Entry<String, Facet> facet : facets.entrySet()) {
+				String label = values[i++];
+				if (label == null) {
+					continue;
+				}
+				String key = normalize(label);
+				Facet f = facet.getValue();
+				f.members.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+				f.counts.merge(key, 1, Integer::sum);
+				f.labels.put(key, label);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void listingDeleted(CropListing removed) {
+		lock.writeLock().lock();
+		try {
+			removeOrdinal(removed.getId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			for (Facet facet : facets.values()) {
+				facet.members.clear();
+				facet.counts.clear();
+				facet.labels.clear();
+			}
+			ordinalById.clear();
+			freeOrdinals.clear();
+			live.clear();
+			idByOrdinal = new long[1024];
+			valuesByOrdinal = new String[1024][];
+			nextOrdinal = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param filters facet name -> accepted values (OR within a facet, AND across facets)
+	 * @param afterId keyset position; only listings with a larger id are returned
+	 */
+	public Result query(Map<String, Collection<String>> filters, long afterId, int limit) {
+		lock.readLock().lock();
+		try {
+			Map<String, BitSet> perFacet = new HashMap<>();
+			for (Map.Entry<String, Collection<String>> filter : filters.entrySet()) {
+				Facet facet = facets.get(filter.getKey());
+				if (facet == null) {
+					throw new IllegalArgumentException("Unknown facet: " + filter.getKey());
+				}
+				BitSet union = new BitSet();
+				for (String value : filter.getValue()) {
+					BitSet members = facet.members.get(normalize(value));
+					if (members != null) {
+						union.or(members);
+					}
+				}
+				perFacet.put(filter.getKey(), union);
+			}
+
+			BitSet matching = intersect(perFacet, null);
+			Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+			for (Map.Entry<String, Facet> facet : facets.entrySet()) {
+				counts.put(facet.getKey(), countValues(facet.getValue(), perFacet, facet.getKey()));
+			}
+
+			// Keep the smallest ids above the cursor, one more than requested to detect a next page
+			PriorityQueue<Long> page = new PriorityQueue<>((a, b) -> Long.compare(b, a));
+			for (int ord = matching.nextSetBit(0); ord >= 0; ord = matching.nextSetBit(ord + 1)) {
+				long id = idByOrdinal[ord];
+				if (id <= afterId) {
+					continue;
+				}
+				if (page.size() <= limit) {
+					page.add(id);
+				} else if (id < page.peek()) {
+					page.poll();
+					page.add(id);
+				}
+			}
+			List<Long> ids = new ArrayList<>(page);
+			ids.sort(Long::compare);
+			boolean hasMore = ids.size() > limit;
+			if (hasMore) {
+				ids = ids.subList(0, limit);
+			}
+			return new Result(ids, matching.cardinality(), hasMore, counts);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Map<String, Integer> countValues(Facet facet, Map<String, BitSet> perFacet, String facetName) {
+		Map<String, Integer> counts = new TreeMap<>();
+		boolean otherFilters = perFacet.keySet().stream().anyMatch(name -> !name.equals(facetName));
+		if (!otherFilters) {
+			// Unfiltered for this facet: the maintained counts are the answer
+			for (Map.Entry<String, Integer> count : facet.counts.entrySet()) {
+				counts.put(facet.labels.get(count.getKey()), count.getValue());
+			}
+			return counts;
+		}
+		BitSet others = intersect(perFacet, facetName);
+		for (Map.Entry<String, BitSet> value : facet.members.entrySet()) {
+			BitSet overlap = (BitSet) value.getValue().clone();
+			overlap.and(others);
+			int count = overlap.cardinality();
+			if (count > 0) {
+				counts.put(facet.labels.get(value.getKey()), count);
+			}
+		}
+		return counts;
+	}
+
+	private BitSet intersect(Map<String, BitSet> perFacet, String excludedFacet) {
+		BitSet result = (BitSet) live.clone();
+		for (Map.Entry<String, BitSet> filter : perFacet.entrySet()) {
+			if (!filter.getKey().equals(excludedFacet)) {
+				result.and(filter.getValue());
+			}
+		}
+		return result;
+	}
+
+	private int allocateOrdinal(Long id) {
+		Integer reused = freeOrdinals.poll();
+		int ordinal = reused != null ? reused : nextOrdinal++;
+		if (ordinal >= idByOrdinal.length) {
+			int capacity = idByOrdinal.length * 2;
+			idByOrdinal = Arrays.copyOf(idByOrdinal, capacity);
+			valuesByOrdinal = Arrays.copyOf(valuesByOrdinal, capacity);
+		}
+		idByOrdinal[ordinal] = id;
+		ordinalById.put(id, ordinal);
+		live.set(ordinal);
+		return ordinal;
+	}
+
+	private void removeOrdinal(Long id) {
+		Integer ordinal = ordinalById.remove(id);
+		if (ordinal == null) {
+			return;
+		}
+		String[] values = valuesByOrdinal[ordinal];
+		int i = 0;
+		for (Facet facet : facets.values()) {
+			String label = values[i++];
+			if (label == null) {
+				continue;
+			}
+			String key = normalize(label);
+			BitSet members = facet.members.get(key);
+			members.clear(ordinal);
+			if (facet.counts.merge(key, -1, Integer::sum) <= 0) {
+				facet.counts.remove(key);
+				facet.members.remove(key);
+				facet.labels.remove(key);
+			}
+		}
+		valuesByOrdinal[ordinal] = null;
+		live.clear(ordinal);
+		freeOrdinals.push(ordinal);
+	}
+
+	private static String[] facetValues(CropListing listing) {
+		String category = listing.getCategory() != null ? listing.getCategory() : "PRODUCTS";
+		return new String[] {
+				trimToNull(listing.getCropType()),
+				category,
+				trimToNull(listing.getLocation()),
+				priceBand(listing.getPrice())
+		};
+	}
+
+	static String priceBand(BigDecimal price) {
+		if (price == null) {
+			return null;
+		}
+		int lower = 0;
+		for (int bound : PRICE_BAND_BOUNDS) {
+			if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+				return lower + "-" + bound;
+			}
+			lower = bound;
+		}
+		return lower + "+";
+	}
+
+	private static String trimToNull(String s) {
+		return s == null || s.trim().isEmpty() ? null : s.trim();
+	}
+
+	private static String normalize(String value) {
+		return value.trim().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,13 @@
+package com.agrizen.farmer.service;
+
+/**
+ * A {@link CatalogListener} that holds derived state for every listing and therefore
+ * has to be populated from the database at startup by {@link CatalogIndexLoader}.
+ */
+public interface CatalogIndex extends CatalogListener {
+
+	/**
+	 * Drop all indexed state before a full reload.
+	 */
+	void clear();
+}
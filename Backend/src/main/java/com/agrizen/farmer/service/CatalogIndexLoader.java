@@ -0,0 +1,61 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.repository.CropListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Populates every {@link CatalogIndex} at startup by scanning crop listings in id order,
+ * one bounded chunk at a time so the whole table is never held in memory.
+ */
+@Component
+public class CatalogIndexLoader implements CommandLineRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogIndexLoader.class);
+
+	private final CropListingRepository cropListingRepository;
+	private final List<CatalogIndex> indexes;
+
+	@Value("${app.catalog.index.load-chunk-size:1000}")
+	private int chunkSize;
+
+	public CatalogIndexLoader(CropListingRepository cropListingRepository, List<CatalogIndex> indexes) {
+		this.cropListingRepository = cropListingRepository;
+		this.indexes = indexes;
+	}
+
+	@Override
+	public void run(String... args) {
+		reload();
+	}
+
+	public void reload() {
+		long started = System.currentTimeMillis();
+		indexes.forEach(CatalogIndex::clear);
+
+		long afterId = 0L;
+		long loaded = 0;
+		while (true) {
+			List<CropListing> chunk = cropListingRepository.findChunkAfter(afterId, PageRequest.of(0, chunkSize));
+			for (CropListing listing : chunk) {
+				for (CatalogIndex index : indexes) {
+					index.listingSaved(null, listing);
+				}
+			}
+			loaded += chunk.size();
+			if (chunk.size() < chunkSize) {
+				break;
+			}
+			afterId = chunk.get(chunk.size() - 1).getId();
+		}
+		log.info("Loaded {} crop listings into {} catalog indexes in {} ms",
+				loaded, indexes.size(), System.currentTimeMillis() - started);
+	}
+}
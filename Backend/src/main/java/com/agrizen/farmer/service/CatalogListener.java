@@ -0,0 +1,20 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+
+/**
+ * Callback for components that keep derived state about the crop catalog
+ * (caches, indexes, counters). Listeners are notified after the change is saved.
+ */
+public interface CatalogListener {
+
+	/**
+	 * @param previous detached copy of the listing before the change, or null when it was created
+	 * @param current  the listing as saved
+	 */
+	default void listingSaved(CropListing previous, CropListing current) {
+	}
+
+	default void listingDeleted(CropListing removed) {
+	}
+}
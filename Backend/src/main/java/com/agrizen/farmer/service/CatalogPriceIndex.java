@@ -0,0 +1,114 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Per-crop-type listings kept sorted by price and by price per unit of quantity.
+ * Readers walk the head of a skip list without locking, so a top-N query costs O(N)
+ * no matter how many listings there are; writers update both orderings on every event.
+ */
+@Component
+public class CatalogPriceIndex implements CatalogIndex {
+
+	public enum Order { PRICE, UNIT_PRICE }
+
+	private record Entry(Long id, String cropType, BigDecimal price, BigDecimal unitPrice) {
+	}
+
+	private static final Comparator<Entry> BY_PRICE =
+			Comparator.comparing(Entry::price).thenComparing(Entry::id);
+	private static final Comparator<Entry> BY_UNIT_PRICE =
+			Comparator.comparing(Entry::unitPrice).thenComparing(Entry::id);
+
+	private static final class TypeIndex {
+		final NavigableSet<Entry> byPrice = new ConcurrentSkipListSet<>(BY_PRICE);
+		final NavigableSet<Entry> byUnitPrice = new ConcurrentSkipListSet<>(BY_UNIT_PRICE);
+	}
+
+	private final Map<String, TypeIndex> types = new ConcurrentHashMap<>();
+	// Guarded by "this": the entry currently indexed for each listing
+	private final Map<Long, Entry> entries = new HashMap<>();
+
+	@Override
+	public synchronized void listingSaved(CropListing previous, CropListing current) {
+		remove(current.getId());
+		if (current.getCropType() == null || current.getPrice() == null) {
+			return;
+		}
+		String type = normalize(current.getCropType());
+		BigDecimal unitPrice = current.getQuantity() != null && current.getQuantity() > 0
+				? current.getPrice().divide(BigDecimal.valueOf(current.getQuantity()), MathContext.DECIMAL64)
+				: null;
+		Entry entry = new Entry(current.getId(), type, current.getPrice(), unitPrice);
+		TypeIndex index = types.computeIfAbsent(type, t -> new TypeIndex());
+		index.byPrice.add(entry);
+		// Listings with no stock have no meaningful unit price
+		if (unitPrice != null) {
+			index.byUnitPrice.add(entry);
+		}
+		entries.put(entry.id(), entry);
+	}
+
+	@Override
+	public synchronized void listingDeleted(CropListing removed) {
+		remove(removed.getId());
+	}
+
+	@Override
+	public synchronized void clear() {
+		types.clear();
+		entries.clear();
+	}
+
+	/**
+	 * @return ids of the {@code limit} cheapest listings of the crop type, cheapest first
+	 */
+	public List<Long> cheapest(String cropType, Order order, int limit) {
+		TypeIndex index = types.get(normalize(cropType));
+		if (index == null) {
+			return List.of();
+		}
+		NavigableSet<Entry> set = order == Order.UNIT_PRICE ? index.byUnitPrice : index.byPrice;
+		List<Long> ids = new ArrayList<>(limit);
+		Iterator<Entry> it = set.iterator();
+		while (ids.size() < limit && it.hasNext()) {
+			ids.add(it.next().id());
+		}
+		return ids;
+	}
+
+	private void remove(Long id) {
+		Entry old = entries.remove(id);
+		if (old == null) {
+			return;
+		}
+		TypeIndex index = types.get(old.cropType());
+		if (index != null) {
+			index.byPrice.remove(old);
+			if (old.unitPrice() != null) {
+				index.byUnitPrice.remove(old);
+			}
+			if (index.byPrice.isEmpty()) {
+				types.remove(old.cropType());
+			}
+		}
+	}
+
+	private static String normalize(String cropType) {
+		return cropType.trim().toLowerCase(Locale.ROOT);
+	}
+}
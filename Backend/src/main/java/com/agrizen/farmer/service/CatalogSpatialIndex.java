@@ -0,0 +1,168 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fixed-grid spatial index over listing coordinates. Listings are bucketed into
+ * {@value #CELL_DEGREES}-degree cells, so a radius query only visits the cells
+ * overlapping its bounding box and computes exact distances for those listings.
+ * Listings without stored coordinates are placed through the {@link Gazetteer}.
+ */
+@Component
+public class CatalogSpatialIndex implements CatalogIndex {
+
+	private static final double CELL_DEGREES = 0.1;
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+	private static final double KM_PER_DEGREE_LAT = 111.32;
+
+	private final Gazetteer gazetteer;
+
+	private final Map<Long, Set<Long>> cells = new HashMap<>();
+	private final Map<Long, double[]> points = new HashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public record Hit(Long listingId, double distanceKm) {
+	}
+
+	public CatalogSpatialIndex(Gazetteer gazetteer) {
+		this.gazetteer = gazetteer;
+	}
+
+	@Override
+	public void listingSaved(CropListing previous, CropListing current) {
+		double[] point = coordinates(current);
+		lock.writeLock().lock();
+		try {
+			remove(current.getId());
+			if (point != null) {
+				points.put(current.getId(), point);
+				cells.computeIfAbsent(cellKey(point[0], point[1]), k -> new HashSet<>()).add(current.getId());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void listingDeleted(CropListing removed) {
+		lock.writeLock().lock();
+		try {
+			remove(removed.getId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			cells.clear();
+			points.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return up to {@code limit} listings within {@code radiusKm}, nearest first
+	 */
+	public List<Hit> nearby(double latitude, double longitude, double radiusKm, int limit) {
+		double latSpan = radiusKm / KM_PER_DEGREE_LAT;
+		double cosLat = Math.cos(Math.toRadians(latitude));
+		// Near the poles the longitude span covers the whole circle
+		double lonSpan = cosLat < 1e-6 ? 180 : Math.min(180, radiusKm / (KM_PER_DEGREE_LAT * cosLat));
+
+		int minRow = row(Math.max(-90, latitude - latSpan));
+		int maxRow = row(Math.min(90, latitude + latSpan));
+		int minCol = col(longitude - lonSpan);
+		int maxCol = col(longitude + lonSpan);
+		int colsPerRing = (int) Math.round(360 / CELL_DEGREES);
+
+		List<Hit> hits = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			Set<Long> visitedCells = new HashSet<>();
+			for (int r = minRow; r <= maxRow; r++) {
+				for (int c = minCol; c <= maxCol; c++) {
+					// Wrap across the antimeridian
+					int wrapped = Math.floorMod(c, colsPerRing);
+					long key = ((long) r << 32) | (wrapped & 0xffffffffL);
+					if (!visitedCells.add(key)) {
+						continue;
+					}
+					Set<Long> ids = cells.get(key);
+					if (ids == null) {
+						continue;
+					}
+					for (Long id : ids) {
+						double[] p = points.get(id);
+						double distance = haversineKm(latitude, longitude, p[0], p[1]);
+						if (distance <= radiusKm) {
+							hits.add(new Hit(id, distance));
+						}
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		hits.sort((a, b) -> {
+			int byDistance = Double.compare(a.distanceKm(), b.distanceKm());
+			return byDistance != 0 ? byDistance : Long.compare(a.listingId(), b.listingId());
+		});
+		return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+	}
+
+	private double[] coordinates(CropListing listing) {
+		if (listing.getLatitude() != null && listing.getLongitude() != null) {
+			return new double[] {listing.getLatitude(), listing.getLongitude()};
+		}
+		return gazetteer.resolve(listing.getLocation()).orElse(null);
+	}
+
+	private void remove(Long id) {
+		double[] point = points.remove(id);
+		if (point == null) {
+			return;
+		}
+		long key = cellKey(point[0], point[1]);
+		Set<Long> ids = cells.get(key);
+		if (ids != null) {
+			ids.remove(id);
+			if (ids.isEmpty()) {
+				cells.remove(key);
+			}
+		}
+	}
+
+	private static long cellKey(double latitude, double longitude) {
+		int wrapped = Math.floorMod(col(longitude), (int) Math.round(360 / CELL_DEGREES));
+		return ((long) row(latitude) << 32) | (wrapped & 0xffffffffL);
+	}
+
+	private static int row(double latitude) {
+		return (int) Math.floor((latitude + 90) / CELL_DEGREES);
+	}
+
+	private static int col(double longitude) {
+		return (int) Math.floor((longitude + 180) / CELL_DEGREES);
+	}
+
+	static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+}
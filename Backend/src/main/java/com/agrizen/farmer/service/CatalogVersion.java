@@ -0,0 +1,50 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic catalog version, bumped on every listing write.
+ * Catalog GET endpoints derive their ETag and Last-Modified from it, so a conditional
+ * request can be answered with 304 before any database work. The startup time is part
+ * of the tag so versions from a previous process are never mistaken for current ones.
+ */
+@Component
+// Right after CatalogCache: a tag for the new version must not be answered from a stale page
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CatalogVersion implements CatalogListener {
+
+	private final long epoch = System.currentTimeMillis();
+	private final AtomicLong version = new AtomicLong();
+	private volatile long lastModified = epoch;
+
+	@Override
+	public void listingSaved(CropListing previous, CropListing current) {
+		bump();
+	}
+
+	@Override
+	public void listingDeleted(CropListing removed) {
+		bump();
+	}
+
+	/**
+	 * Mark the catalog as changed by a write that bypassed per-listing events.
+	 */
+	public void bump() {
+		version.incrementAndGet();
+		lastModified = System.currentTimeMillis();
+	}
+
+	public String etag() {
+		return Long.toString(epoch, 36) + "-" + version.get();
+	}
+
+	public long lastModified() {
+		return lastModified;
+	}
+}
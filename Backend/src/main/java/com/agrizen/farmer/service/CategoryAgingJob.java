@@ -0,0 +1,143 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.repository.CropListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves NEW_ARRIVAL listings into PRODUCTS once they have been listed for
+ * {@code app.catalog.aging.new-arrival-days} or were harvested more than
+ * {@code app.catalog.aging.max-harvest-age-days} ago.
+ * Rows are moved with one set-based UPDATE per chunk, each in its own short transaction,
+ * and every listing the UPDATE actually moved is reported through {@link CatalogEvents} so caches
+ * and indexes follow.
+ */
+@Component
+public class CategoryAgingJob {
+
+	private static final Logger log = LoggerFactory.getLogger(CategoryAgingJob.class);
+
+	static final String FROM = "NEW_ARRIVAL";
+	static final String TO = "PRODUCTS";
+
+	private final CropListingRepository cropListingRepository;
+	private final CatalogEvents catalogEvents;
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	@Value("${app.catalog.aging.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.catalog.aging.new-arrival-days:7}")
+	private int newArrivalDays;
+
+	@Value("${app.catalog.aging.max-harvest-age-days:30}")
+	private int maxHarvestAgeDays;
+
+	@Value("${app.catalog.aging.chunk-size:500}")
+	private int chunkSize;
+
+	public CategoryAgingJob(CropListingRepository cropListingRepository, CatalogEvents catalogEvents) {
+		this.cropListingRepository = cropListingRepository;
+		this.catalogEvents = catalogEvents;
+	}
+
+	@Scheduled(cron = "${app.catalog.aging.cron:0 15 * * * *}")
+	public void scheduledRun() {
+		if (enabled) {
+			run();
+		}
+	}
+
+	/**
+	 * Run one aging pass now. Overlapping runs are skipped rather than queued.
+	 *
+	 * @return rows moved, chunks and duration of this run
+	 */
+	public Map<String, Object> run() {
+		Map<String, Object> report = new LinkedHashMap<>();
+		if (!running.compareAndSet(false, true)) {
+			report.put("skipped", "An aging run is already in progress");
+			return report;
+		}
+		try {
+			long started = System.currentTimeMillis();
+			LocalDateTime listedBefore = LocalDateTime.now().minusDays(newArrivalDays);
+			LocalDate harvestedBefore = LocalDate.now().minusDays(maxHarvestAgeDays);
+
+			long afterId = 0L;
+			int moved = 0;
+			int chunks = 0;
+			while (true) {
+				List<CropListing> chunk = cropListingRepository.findAgedNewArrivals(
+						afterId, listedBefore, harvestedBefore, PageRequest.of(0, chunkSize));
+				if (chunk.isEmpty()) {
+					break;
+				}
+				List<Long> ids = new ArrayList<>(chunk.size());
+				for (CropListing listing : chunk) {
+					ids.add(listing.getId());
+				}
+				int chunkMoved = cropListingRepository.moveCategory(ids, FROM, TO);
+				moved += chunkMoved;
+				chunks++;
+				publishMoved(chunk, ids, chunkMoved);
+				if (chunk.size() < chunkSize) {
+					break;
+				}
+				afterId = ids.get(ids.size() - 1);
+			}
+
+			long durationMs = System.currentTimeMillis() - started;
+			report.put("moved", moved);
+			report.put("chunks", chunks);
+			report.put("durationMs", durationMs);
+			log.info("Category aging moved {} listings from {} to {} in {} chunks, {} ms",
+					moved, FROM, TO, chunks, durationMs);
+			return report;
+		} finally {
+			running.set(false);
+		}
+	}
+
+	/**
+	 * Report the listings of a chunk that are now in {@link #TO}. If the UPDATE skipped rows that
+	 * were edited or deleted after the chunk was read, the chunk is reloaded and only rows now in
+	 * {@link #TO} are reported, as they currently are.
+	 */
+	private void publishMoved(List<CropListing> chunk, List<Long> ids, int moved) {
+		if (moved == chunk.size()) {
+			for (CropListing listing : chunk) {
+				CropListing previous = CatalogEvents.snapshot(listing);
+				listing.setCategory(TO);
+				catalogEvents.saved(previous, listing);
+			}
+			return;
+		}
+		if (moved == 0) {
+			return;
+		}
+		Map<Long, CropListing> read = new HashMap<>();
+		for (CropListing listing : chunk) {
+			read.put(listing.getId(), listing);
+		}
+		for (CropListing current : cropListingRepository.findWithFarmerByIdIn(ids)) {
+			if (TO.equals(current.getCategory())) {
+				catalogEvents.saved(read.get(current.getId()), current);
+			}
+		}
+	}
+}
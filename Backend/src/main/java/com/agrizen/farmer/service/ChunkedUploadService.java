@@ -0,0 +1,294 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.UploadStatus;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable image uploads: init a session with the expected size and SHA-256, append chunks
+ * at byte offsets, then complete. Chunks are read from the raw request body and written
+ * straight into a part file with positional {@link FileChannel} writes, so nothing is
+ * buffered in full and a dropped connection only loses the chunk in flight. The session lock
+ * is only held to check and advance the offset, never while a chunk is read from the network,
+ * so a slow client does not block status checks, the expiry sweep or a retried chunk. On completion
+ * the checksum is verified and the part file is copied into {@link ImageBlobStore}.
+ * Sessions are in memory; unfinished ones are deleted after a TTL.
+ */
+@Service
+public class ChunkedUploadService {
+
+	private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+	// Sessions free up as uploads complete or are cancelled, and at the next expiry sweep
+	private static final long RETRY_AFTER_SECONDS = 30;
+
+	private final ImageBlobStore imageBlobStore;
+	private final ImageStorageService imageStorageService;
+	private final CropListingService cropListingService;
+	private final FarmerRepository farmerRepository;
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+	@Value("${app.upload.chunked.max-size-bytes:15728640}")
+	private long maxSizeBytes;
+
+	@Value("${app.upload.chunked.max-chunk-bytes:4194304}")
+	private long maxChunkBytes;
+
+	@Value("${app.upload.chunked.ttl-minutes:60}")
+	private long ttlMinutes;
+
+	@Value("${app.upload.chunked.max-sessions:1000}")
+	private int maxSessions;
+
+	private static final class Session {
+		final String id;
+		final Long farmerId;
+		final String extension;
+		final long size;
+		final String sha256;
+		final Path part;
+		// Guarded by "this"; only grows, so a chunk checked against it can never leave a gap
+		long offset;
+		volatile Instant expiresAt;
+
+		Session(String id, Long farmerId, String extension, long size, String sha256, Path part, Instant expiresAt) {
+			this.id = id;
+			this.farmerId = farmerId;
+			this.extension = extension;
+			this.size = size;
+			this.sha256 = sha256;
+			this.part = part;
+			this.expiresAt = expiresAt;
+		}
+
+		UploadStatus status() {
+			return new UploadStatus(id, size, offset, expiresAt);
+		}
+	}
+
+	public ChunkedUploadService(ImageBlobStore imageBlobStore,
+	                            ImageStorageService imageStorageService,
+	                            CropListingService cropListingService,
+	                            FarmerRepository farmerRepository) {
+		this.imageBlobStore = imageBlobStore;
+		this.imageStorageService = imageStorageService;
+		this.cropListingService = cropListingService;
+		this.farmerRepository = farmerRepository;
+	}
+
+	public UploadStatus init(Long farmerId, String fileName, long size, String sha256) throws IOException {
+		if (size <= 0 || size > maxSizeBytes) {
+			throw new IllegalArgumentException("size must be between 1 and " + maxSizeBytes + " bytes");
+		}
+		if (sha256 == null || !sha256.matches("(?i)[0-9a-f]{64}")) {
+			throw new IllegalArgumentException("sha256 must be 64 hex characters");
+		}
+		if (farmerId == null || !farmerRepository.existsById(farmerId)) {
+			throw new IllegalArgumentException("Farmer not found: " + farmerId);
+		}
+		if (sessions.size() >= maxSessions) {
+			throw new CapacityExceededException("Too many uploads in progress, try again later", RETRY_AFTER_SECONDS);
+		}
+		String extension = fileName == null ? "" : StringUtils.getFilenameExtension(StringUtils.cleanPath(fileName));
+		String id = UUID.randomUUID().toString();
+		Path part = imageBlobStore.incomingDir().resolve(id + ".part");
+		Files.createFile(part);
+		Session session = new Session(id, farmerId, extension == null ? "" : extension, size,
+				sha256.toLowerCase(Locale.ROOT), part, Instant.now().plusSeconds(ttlMinutes * 60));
+		sessions.put(id, session);
+		return session.status();
+	}
+
+	public UploadStatus status(String uploadId) {
+		Session session = session(uploadId);
+		synchronized (session) {
+			requireActive(session);
+			return session.status();
+		}
+	}
+
+	/**
+	 * Write a chunk at {@code offset}. A chunk may overlap bytes already received (a retry
+	 * after an unacknowledged write), but may not leave a gap.
+	 *
+	 * @throws UploadOffsetConflictException if {@code offset} is past the bytes received so far
+	 */
+	public UploadStatus append(String uploadId, long offset, InputStream body) throws IOException {
+		Session session = session(uploadId);
+		synchronized (session) {
+			requireActive(session);
+			if (offset < 0 || offset > session.offset) {
+				throw new UploadOffsetConflictException("Chunk offset " + offset + " does not match upload offset " + session.offset);
+			}
+			// Keeps the sweep away while the chunk is read
+			session.expiresAt = Instant.now().plusSeconds(ttlMinutes * 60);
+		}
+		// Positional writes outside the lock: overlapping retries write the same bytes to the same place
+		long limit = Math.min(session.size, offset + maxChunkBytes);
+		long position = offset;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+		try (ReadableByteChannel in = Channels.newChannel(body);
+		     FileChannel out = FileChannel.open(session.part, StandardOpenOption.WRITE)) {
+			while (in.read(buffer) >= 0) {
+				buffer.flip();
+				if (position + buffer.remaining() > limit) {
+					throw new IllegalArgumentException(position + buffer.remaining() > session.size
+							? "Chunk runs past the declared upload size"
+							: "Chunk is larger than " + maxChunkBytes + " bytes");
+				}
+				while (buffer.hasRemaining()) {
+					position += out.write(buffer, position);
+				}
+				buffer.clear();
+			}
+			out.force(false);
+		} catch (IOException e) {
+			synchronized (session) {
+				// Completed, cancelled or expired while the chunk was written
+				requireActive(session);
+			}
+			throw e;
+		} finally {
+			synchronized (session) {
+				// Whatever reached the file before a failure still counts, so the client can resume from it
+				session.offset = Math.max(session.offset, position);
+				session.expiresAt = Instant.now().plusSeconds(ttlMinutes * 60);
+			}
+		}
+		synchronized (session) {
+			requireActive(session);
+			return session.status();
+		}
+	}
+
+	/**
+	 * Farmer the upload was started for.
+	 */
+	public Long farmerId(String uploadId) {
+		return session(uploadId).farmerId;
+	}
+
+	/**
+	 * Verify the finished upload and make it the listing's image.
+	 *
+	 * @return the listing with its new image URL
+	 * @throws UploadOffsetConflictException if not every byte has been received
+	 */
+	public CropListing complete(String uploadId, Long listingId) throws IOException {
+		Session session = session(uploadId);
+		synchronized (session) {
+			requireActive(session);
+			if (session.offset != session.size) {
+				throw new UploadOffsetConflictException("Upload incomplete: " + session.offset + " of " + session.size + " bytes received");
+			}
+			cropListingService.requireOwnedListing(listingId, session.farmerId);
+			String actual = sha256(session.part);
+			if (!actual.equals(session.sha256)) {
+				discard(session);
+				throw new IllegalArgumentException("Checksum mismatch; the upload was discarded");
+			}
+			// Re-read through put() rather than moving the part file, so the metadata is stripped
+			String key;
+			try (InputStream in = Files.newInputStream(session.part)) {
+				key = imageBlobStore.put(in, session.extension);
+			} finally {
+				discard(session);
+			}
+			String url = imageStorageService.urlFor(key);
+			try {
+				return cropListingService.attachImage(listingId, url);
+			} catch (RuntimeException e) {
+				imageStorageService.release(url);
+				throw e;
+			}
+		}
+	}
+
+	public void cancel(String uploadId) throws IOException {
+		Session session = session(uploadId);
+		synchronized (session) {
+			discard(session);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.upload.chunked.sweep-interval-ms:60000}")
+	public void expireSessions() {
+		Instant now = Instant.now();
+		for (Session session : sessions.values()) {
+			if (session.expiresAt.isBefore(now)) {
+				synchronized (session) {
+					// A chunk that was being written when the sweep started has extended the session
+					if (!session.expiresAt.isBefore(now)) {
+						continue;
+					}
+					try {
+						discard(session);
+						log.debug("Expired unfinished upload {}", session.id);
+					} catch (IOException e) {
+						log.warn("Could not delete expired upload {}: {}", session.id, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	private void discard(Session session) throws IOException {
+		sessions.remove(session.id);
+		Files.deleteIfExists(session.part);
+	}
+
+	/**
+	 * Called with the session lock held: the session may have completed, been cancelled or
+	 * expired while the caller waited for it.
+	 */
+	private void requireActive(Session session) {
+		if (sessions.get(session.id) != session) {
+			throw new NoSuchElementException("Upload not found: " + session.id);
+		}
+	}
+
+	private Session session(String uploadId) {
+		Session session = sessions.get(uploadId);
+		if (session == null) {
+			throw new NoSuchElementException("Upload not found: " + uploadId);
+		}
+		return session;
+	}
+
+	private static String sha256(Path file) throws IOException {
+		MessageDigest digest = ImageBlobStore.sha256();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+}
@@ -0,0 +1,320 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.BulkImportResult;
+import com.agrizen.farmer.dto.CropListingImportRow;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.FarmerRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk creation of crop listings from CSV or a JSON array.
+ * Input is parsed and validated one row at a time; valid rows are buffered up to the
+ * JDBC batch size and inserted together, so memory is bounded by the batch, not the file.
+ */
+@Service
+public class CropListingImportService {
+
+	private static final Logger log = LoggerFactory.getLogger(CropListingImportService.class);
+
+	private final CropListingService cropListingService;
+	private final FarmerRepository farmerRepository;
+	private final ObjectMapper objectMapper;
+
+	@Value("${app.import.batch-size:50}")
+	private int batchSize;
+
+	@Value("${app.import.max-rows:10000}")
+	private int maxRows;
+
+	public CropListingImportService(CropListingService cropListingService,
+	                                FarmerRepository farmerRepository,
+	                                ObjectMapper objectMapper) {
+		this.cropListingService = cropListingService;
+		this.farmerRepository = farmerRepository;
+		this.objectMapper = objectMapper;
+	}
+
+	public BulkImportResult importCsv(Long farmerId, InputStream in) throws IOException {
+		Batch batch = new Batch(findFarmer(farmerId));
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		skipByteOrderMark(reader);
+		List<String> header = readCsvRecord(reader);
+		if (header == null) {
+			throw new IllegalArgumentException("CSV input is empty");
+		}
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < header.size(); i++) {
+			columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		List<String> record;
+		while ((record = readCsvRecord(reader)) != null) {
+			if (record.size() == 1 && record.get(0).isBlank()) {
+				continue;
+			}
+			if (batch.isFull()) {
+				batch.truncate();
+				break;
+			}
+			CropListingImportRow row = new CropListingImportRow();
+			row.cropName = column(record, columns, "cropname");
+			row.cropType = column(record, columns, "croptype");
+			row.quantity = column(record, columns, "quantity");
+			row.price = column(record, columns, "price");
+			row.harvestDate = column(record, columns, "harvestdate");
+			row.location = column(record, columns, "location");
+			row.latitude = column(record, columns, "latitude");
+			row.longitude = column(record, columns, "longitude");
+			row.description = column(record, columns, "description");
+			batch.add(row);
+		}
+		return batch.finish();
+	}
+
+	public BulkImportResult importJson(Long farmerId, InputStream in) throws IOException {
+		Batch batch = new Batch(findFarmer(farmerId));
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IllegalArgumentException("JSON input must be an array of listings");
+			}
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				if (batch.isFull()) {
+					batch.truncate();
+					break;
+				}
+				// Read each element as a tree so a bad field fails only its own row
+				JsonNode node = parser.readValueAsTree();
+				CropListingImportRow row = new CropListingImportRow();
+				row.cropName = text(node, "cropName");
+				row.cropType = text(node, "cropType");
+				row.quantity = text(node, "quantity");
+				row.price = text(node, "price");
+				row.harvestDate = text(node, "harvestDate");
+				row.location = text(node, "location");
+				row.latitude = text(node, "latitude");
+				row.longitude = text(node, "longitude");
+				row.description = text(node, "description");
+				batch.add(row);
+			}
+			if (!batch.truncated && parser.currentToken() != JsonToken.END_ARRAY) {
+				throw new IllegalArgumentException("JSON input must be an array of listing objects");
+			}
+		}
+		return batch.finish();
+	}
+
+	private Farmer findFarmer(Long farmerId) {
+		return farmerRepository.findById(farmerId)
+				.orElseThrow(() -> new IllegalArgumentException("Farmer not found: " + farmerId));
+	}
+
+	/**
+	 * Accumulates validated rows and flushes them in JDBC-batch-sized transactions.
+	 * Input beyond {@code max-rows} is not read: the import stops there and the report says so,
+	 * since the rows before it have already been committed.
+	 */
+	private final class Batch {
+		private final Farmer farmer;
+		private final long started = System.nanoTime();
+		private final List<BulkImportResult.RowResult> results = new ArrayList<>();
+		private final List<CropListing> pending = new ArrayList<>();
+		private final List<Integer> pendingRows = new ArrayList<>();
+		private int rowNumber;
+		private int imported;
+		private boolean truncated;
+
+		Batch(Farmer farmer) {
+			this.farmer = farmer;
+		}
+
+		boolean isFull() {
+			return rowNumber >= maxRows;
+		}
+
+		void truncate() {
+			truncated = true;
+		}
+
+		void add(CropListingImportRow row) {
+			rowNumber++;
+			CropListing listing;
+			try {
+				listing = toListing(row);
+			} catch (IllegalArgumentException e) {
+				results.add(new BulkImportResult.RowResult(rowNumber, null, e.getMessage()));
+				return;
+			}
+			pending.add(listing);
+			pendingRows.add(rowNumber);
+			if (pending.size() >= batchSize) {
+				flush();
+			}
+		}
+
+		BulkImportResult finish() {
+			flush();
+			results.sort((a, b) -> Integer.compare(a.row(), b.row()));
+			long durationNanos = System.nanoTime() - started;
+			double seconds = durationNanos / 1_000_000_000.0;
+			double rowsPerSecond = seconds > 0 ? Math.round(imported / seconds * 10) / 10.0 : imported;
+			log.info("Imported {} of {} crop listings for farmer {} in {} ms ({} rows/s){}",
+					imported, rowNumber, farmer.getId(), durationNanos / 1_000_000, rowsPerSecond,
+					truncated ? ", truncated at " + maxRows + " rows" : "");
+			String message = truncated ? "Input truncated at " + maxRows + " rows; later rows were not imported" : null;
+			return new BulkImportResult(rowNumber, imported, rowNumber - imported,
+					durationNanos / 1_000_000, rowsPerSecond, truncated, message, results);
+		}
+
+		private void flush() {
+			if (pending.isEmpty()) {
+				return;
+			}
+			try {
+				List<CropListing> saved = cropListingService.saveAll(pending);
+				for (int i = 0; i < saved.size(); i++) {
+					results.add(new BulkImportResult.RowResult(pendingRows.get(i), saved.get(i).getId(), null));
+				}
+				imported += saved.size();
+			} catch (RuntimeException e) {
+				// The batch transaction rolled back as a whole
+				String message = "Batch insert failed: " + e.getMessage();
+				for (Integer row : pendingRows) {
+					results.add(new BulkImportResult.RowResult(row, null, message));
+				}
+			}
+			pending.clear();
+			pendingRows.clear();
+		}
+
+		private CropListing toListing(CropListingImportRow row) {
+			String cropName = required(row.cropName, "cropName", 120);
+			String cropType = required(row.cropType, "cropType", 80);
+			String location = required(row.location, "location", 150);
+			int quantity;
+			BigDecimal price;
+			LocalDate harvestDate;
+			Double latitude = null;
+			Double longitude = null;
+			try {
+				quantity = Integer.parseInt(required(row.quantity, "quantity", 20));
+				price = new BigDecimal(required(row.price, "price", 20));
+				if (!isBlank(row.latitude) || !isBlank(row.longitude)) {
+					latitude = Double.valueOf(required(row.latitude, "latitude", 32));
+					longitude = Double.valueOf(required(row.longitude, "longitude", 32));
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+			}
+			try {
+				harvestDate = LocalDate.parse(required(row.harvestDate, "harvestDate", 10));
+			} catch (DateTimeParseException e) {
+				throw new IllegalArgumentException("harvestDate must be an ISO date (yyyy-MM-dd)");
+			}
+			if (quantity < 0) {
+				throw new IllegalArgumentException("quantity must not be negative");
+			}
+			if (price.signum() < 0 || price.precision() - price.scale() > 8 || price.scale() > 2) {
+				throw new IllegalArgumentException("price must be a non-negative amount with at most 2 decimals");
+			}
+			return cropListingService.newListing(farmer, cropName, cropType, quantity, price, harvestDate,
+					location, latitude, longitude, isBlank(row.description) ? null : row.description, null);
+		}
+	}
+
+	private static String required(String value, String field, int maxLength) {
+		if (isBlank(value)) {
+			throw new IllegalArgumentException(field + " is required");
+		}
+		String trimmed = value.trim();
+		if (trimmed.length() > maxLength) {
+			throw new IllegalArgumentException(field + " is longer than " + maxLength + " characters");
+		}
+		return trimmed;
+	}
+
+	private static boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
+
+	private static String text(JsonNode node, String field) {
+		JsonNode value = node.get(field);
+		return value == null || value.isNull() ? null : value.asText();
+	}
+
+	private static String column(List<String> record, Map<String, Integer> columns, String name) {
+		Integer index = columns.get(name);
+		return index == null || index >= record.size() ? null : record.get(index);
+	}
+
+	// Spreadsheet exports often start with a UTF-8 BOM, which would otherwise stick to the first header
+	private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+		reader.mark(1);
+		if (reader.read() != '\uFEFF') {
+			reader.reset();
+		}
+	}
+
+	/**
+	 * Read one RFC 4180 record; quoted fields may contain commas, quotes and line breaks.
+	 *
+	 * @return the fields, or null at end of input
+	 */
+	private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+		int c = reader.read();
+		if (c == -1) {
+			return null;
+		}
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (c != -1) {
+			if (quoted) {
+				if (c == '"') {
+					reader.mark(1);
+					int next = reader.read();
+					if (next == '"') {
+						field.append('"');
+					} else {
+						quoted = false;
+						if (next != -1) {
+							reader.reset();
+						}
+					}
+				} else {
+					field.append((char) c);
+				}
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\n') {
+				break;
+			} else if (c != '\r') {
+				field.append((char) c);
+			}
+			c = reader.read();
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
@@ -1,15 +1,31 @@
 package com.agrizen.farmer.service;
 
+import com.agrizen.farmer.dto.CatalogCursor;
+import com.agrizen.farmer.dto.CatalogPage;
+import com.agrizen.farmer.dto.CatalogQuery;
+import com.agrizen.farmer.dto.CatalogSort;
+import com.agrizen.farmer.dto.CropListingView;
+import com.agrizen.farmer.dto.FacetedPage;
+import com.agrizen.farmer.dto.SearchPage;
+import com.agrizen.farmer.dto.NearbyListing;
 import com.agrizen.farmer.entity.CropListing;
 import com.agrizen.farmer.entity.Farmer;
 import com.agrizen.farmer.repository.CropListingRepository;
 import com.agrizen.farmer.repository.FarmerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class CropListingService {
@@ -17,13 +33,49 @@ public class CropListingService {
 	private final CropListingRepository cropListingRepository;
 	private final FarmerRepository farmerRepository;
 	private final ImageStorageService imageStorageService;
+	private final CatalogCache catalogCache;
+	private final CatalogEvents catalogEvents;
+	private final CropSearchIndex cropSearchIndex;
+	private final CatalogFacetIndex catalogFacetIndex;
+	private final CatalogSpatialIndex catalogSpatialIndex;
+	private final Gazetteer gazetteer;
+	private final CatalogPriceIndex catalogPriceIndex;
+	private final ImageDerivativeService imageDerivativeService;
+
+	@Value("${app.catalog.page.default-size:100}")
+	private int defaultPageSize;
+
+	@Value("${app.catalog.page.max-size:500}")
+	private int maxPageSize;
+
+	@Value("${app.catalog.search.max-results:100}")
+	private int maxSearchResults;
+
+	@Value("${app.geo.max-radius-km:500}")
+	private double maxRadiusKm;
 
 	public CropListingService(CropListingRepository cropListingRepository,
 	                          FarmerRepository farmerRepository,
-	                          ImageStorageService imageStorageService) {
+	                          ImageStorageService imageStorageService,
+	                          CatalogCache catalogCache,
+	                          CatalogEvents catalogEvents,
+	                          CropSearchIndex cropSearchIndex,
+	                          CatalogFacetIndex catalogFacetIndex,
+	                          CatalogSpatialIndex catalogSpatialIndex,
+	                          Gazetteer gazetteer,
+	                          CatalogPriceIndex catalogPriceIndex,
+	                          ImageDerivativeService imageDerivativeService) {
 		this.cropListingRepository = cropListingRepository;
 		this.farmerRepository = farmerRepository;
 		this.imageStorageService = imageStorageService;
+		this.catalogCache = catalogCache;
+		this.catalogEvents = catalogEvents;
+		this.cropSearchIndex = cropSearchIndex;
+		this.catalogFacetIndex = catalogFacetIndex;
+		this.catalogSpatialIndex = catalogSpatialIndex;
+		this.gazetteer = gazetteer;
+		this.catalogPriceIndex = catalogPriceIndex;
+		this.imageDerivativeService = imageDerivativeService;
 	}
 
 	public CropListing createListing(Long farmerId,
@@ -33,8 +85,11 @@ public class CropListingService {
 	                                 BigDecimal price,
 	                                 LocalDate harvestDate,
 	                                 String location,
+	                                 Double latitude,
+	                                 Double longitude,
 	                                 String description,
 	                                 MultipartFile image) throws IOException {
+		requireCoordinatePair(latitude, longitude);
 		Farmer farmer = farmerRepository.findById(farmerId)
 				.orElseThrow(() -> new IllegalArgumentException("Farmer not found: " + farmerId));
 
@@ -43,6 +98,29 @@ public class CropListingService {
 			imageUrl = imageStorageService.saveFarmerCropImage(farmerId, image);
 		}
 
+		CropListing listing = newListing(farmer, cropName, cropType, quantity, price, harvestDate,
+				location, latitude, longitude, description, imageUrl);
+		CropListing saved = cropListingRepository.save(listing);
+		catalogEvents.saved(null, saved);
+		// The original is already on disk; thumbnails follow in the background
+		imageDerivativeService.submit(saved.getId(), saved.getImageUrl());
+		return saved;
+	}
+
+	/**
+	 * Build an unsaved listing with the default category and resolved coordinates.
+	 */
+	public CropListing newListing(Farmer farmer,
+	                              String cropName,
+	                              String cropType,
+	                              Integer quantity,
+	                              BigDecimal price,
+	                              LocalDate harvestDate,
+	                              String location,
+	                              Double latitude,
+	                              Double longitude,
+	                              String description,
+	                              String imageUrl) {
 		CropListing listing = new CropListing();
 		listing.setFarmer(farmer);
 		listing.setCropName(cropName);
@@ -51,6 +129,7 @@ public class CropListingService {
 		listing.setPrice(price);
 		listing.setHarvestDate(harvestDate);
 		listing.setLocation(location);
+		applyCoordinates(listing, latitude, longitude);
 		listing.setDescription(description);
 		listing.setImageUrl(imageUrl);
 		
@@ -62,21 +141,271 @@ public class CropListingService {
 		} else {
 			listing.setCategory("NEW_ARRIVAL");
 		}
+		return listing;
+	}
 
-		return cropListingRepository.save(listing);
+	/**
+	 * Insert new listings in one transaction. With pooled sequence ids and
+	 * hibernate.jdbc.batch_size set, Hibernate sends them as JDBC batches.
+	 */
+	public List<CropListing> saveAll(List<CropListing> listings) {
+		List<CropListing> saved = cropListingRepository.saveAll(listings);
+		for (CropListing listing : saved) {
+			catalogEvents.saved(null, listing);
+		}
+		return saved;
 	}
 
-	public List<CropListing> getByFarmer(Long farmerId) {
-		return cropListingRepository.findByFarmer_Id(farmerId);
+	/**
+	 * Build a catalog query from raw request parameters, clamping the page size.
+	 */
+	public CatalogQuery query(Long farmerId, String category, String cropType,
+	                          String sort, String cursor, Integer limit) {
+		CatalogSort catalogSort = CatalogSort.parse(sort);
+		int size = limit == null ? defaultPageSize : limit;
+		if (size < 1) {
+			throw new IllegalArgumentException("limit must be at least 1");
+		}
+		return new CatalogQuery(
+				farmerId,
+				isBlank(category) ? null : category.trim().toUpperCase(Locale.ROOT),
+				isBlank(cropType) ? null : cropType.trim().toLowerCase(Locale.ROOT),
+				catalogSort,
+				isBlank(cursor) ? null : CatalogCursor.decode(cursor.trim(), catalogSort),
+				Math.min(size, maxPageSize)
+		);
 	}
 
-	public List<CropListing> getAll() {
-		return cropListingRepository.findAll();
+	/**
+	 * Fetch one keyset page, served from the catalog cache when possible.
+	 */
+	public CatalogPage<CropListingView> getPage(CatalogQuery query) {
+		return catalogCache.get(query, () -> loadPage(query));
 	}
 
-	public void delete(Long listingId) {
-		cropListingRepository.deleteById(listingId);
+	/**
+	 * Read one keyset page. One extra row is read to decide whether a next page exists.
+	 */
+	private CatalogPage<CropListingView> loadPage(CatalogQuery query) {
+		PageRequest window = PageRequest.of(0, query.limit() + 1);
+		CatalogCursor after = query.cursor();
+		List<CropListingView> rows;
+		if (query.sort() == CatalogSort.PRICE) {
+			rows = cropListingRepository.findPageOrderByPrice(
+					after != null ? after.lastPrice() : null,
+					after != null ? after.lastId() : 0L,
+					query.farmerId(), query.category(), query.cropType(), window);
+		} else {
+			rows = cropListingRepository.findPageOrderById(
+					after != null ? after.lastId() : 0L,
+					query.farmerId(), query.category(), query.cropType(), window);
+		}
+
+		if (rows.size() <= query.limit()) {
+			return new CatalogPage<>(rows, null);
+		}
+		List<CropListingView> items = List.copyOf(rows.subList(0, query.limit()));
+		CropListingView last = items.get(items.size() - 1);
+		String next = new CatalogCursor(query.sort(), query.sort() == CatalogSort.PRICE ? last.price() : null, last.id()).encode();
+		return new CatalogPage<>(items, next);
 	}
+
+	/**
+	 * Full-text search over the in-memory index; only the matching rows are read from the database.
+	 */
+	public SearchPage<CropListingView> search(String text, Integer limit) {
+		int size = limit == null ? 20 : Math.min(Math.max(limit, 1), maxSearchResults);
+		CropSearchIndex.Result result = cropSearchIndex.search(text, size);
+		if (result.hits().isEmpty()) {
+			return new SearchPage<>(List.of(), result.truncated());
+		}
+		List<Long> ids = result.hits().stream().map(CropSearchIndex.Hit::listingId).toList();
+		return new SearchPage<>(inOrder(ids, cropListingRepository.findViewsByIdIn(ids)), result.truncated());
+	}
+
+	/**
+	 * The cheapest listings of one crop type, by total price or by price per unit of quantity,
+	 * read from {@link CatalogPriceIndex}.
+	 */
+	public List<CropListingView> cheapest(String cropType, String by, Integer limit) {
+		if (isBlank(cropType)) {
+			throw new IllegalArgumentException("cropType is required");
+		}
+		CatalogPriceIndex.Order order;
+		if (isBlank(by) || "price".equalsIgnoreCase(by.trim())) {
+			order = CatalogPriceIndex.Order.PRICE;
+		} else if ("unitPrice".equalsIgnoreCase(by.trim())) {
+			order = CatalogPriceIndex.Order.UNIT_PRICE;
+		} else {
+			throw new IllegalArgumentException("Invalid 'by'. Use 'price' or 'unitPrice'");
+		}
+		int size = limit == null ? 10 : Math.min(Math.max(limit, 1), maxSearchResults);
+		List<Long> ids = catalogPriceIndex.cheapest(cropType, order, size);
+		return ids.isEmpty() ? List.of() : inOrder(ids, cropListingRepository.findViewsByIdIn(ids));
+	}
+
+	/**
+	 * Listings within {@code radiusKm} of a point, nearest first, answered from {@link CatalogSpatialIndex}.
+	 */
+	public List<NearbyListing> nearby(double latitude, double longitude, double radiusKm, Integer limit) {
+		if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+			throw new IllegalArgumentException("Invalid coordinates");
+		}
+		if (!(radiusKm > 0) || radiusKm > maxRadiusKm) {
+			throw new IllegalArgumentException("radiusKm must be greater than 0 and at most " + maxRadiusKm);
+		}
+		int size = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+		List<CatalogSpatialIndex.Hit> hits = catalogSpatialIndex.nearby(latitude, longitude, radiusKm, size);
+		if (hits.isEmpty()) {
+			return List.of();
+		}
+		Map<Long, CropListingView> byId = new HashMap<>();
+		for (CropListingView view : cropListingRepository.findViewsByIdIn(hits.stream().map(CatalogSpatialIndex.Hit::listingId).toList())) {
+			byId.put(view.id(), view);
+		}
+		List<NearbyListing> result = new ArrayList<>(hits.size());
+		for (CatalogSpatialIndex.Hit hit : hits) {
+			CropListingView view = byId.get(hit.listingId());
+			if (view != null) {
+				result.add(new NearbyListing(view, Math.round(hit.distanceKm() * 100) / 100.0));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Filter by facet values and return one id-ordered page together with per-facet counts.
+	 * Filtering and counting run against {@link CatalogFacetIndex}; only the page rows are read from the database.
+	 */
+	public FacetedPage<CropListingView> browse(Map<String, Collection<String>> filters, String cursor, Integer limit) {
+		int size = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+		long afterId = isBlank(cursor) ? 0L : CatalogCursor.decode(cursor.trim(), CatalogSort.ID).lastId();
+		CatalogFacetIndex.Result result = catalogFacetIndex.query(filters, afterId, size);
+
+		List<CropListingView> items = result.ids().isEmpty()
+				? List.of()
+				: inOrder(result.ids(), cropListingRepository.findViewsByIdIn(result.ids()));
+		String next = result.hasMore()
+				? new CatalogCursor(CatalogSort.ID, null, result.ids().get(result.ids().size() - 1)).encode()
+				: null;
+		return new FacetedPage<>(items, result.total(), next, result.counts());
+	}
+
+	/**
+	 * Apply the non-null fields of {@code changes} to an existing listing.
+	 */
+	public Optional<CropListing> update(Long listingId, CropListing changes) {
+		requireCoordinatePair(changes.getLatitude(), changes.getLongitude());
+		return cropListingRepository.findById(listingId).map(crop -> {
+			CropListing previous = CatalogEvents.snapshot(crop);
+			if (changes.getCropName() != null) crop.setCropName(changes.getCropName());
+			if (changes.getCropType() != null) crop.setCropType(changes.getCropType());
+			if (changes.getQuantity() != null) crop.setQuantity(changes.getQuantity());
+			if (changes.getPrice() != null) crop.setPrice(changes.getPrice());
+			if (changes.getLocation() != null) crop.setLocation(changes.getLocation());
+			if (changes.getLatitude() != null || changes.getLongitude() != null || changes.getLocation() != null) {
+				applyCoordinates(crop, changes.getLatitude(), changes.getLongitude());
+			}
+			if (changes.getDescription() != null) crop.setDescription(changes.getDescription());
+			if (changes.getCategory() != null) crop.setCategory(changes.getCategory());
+			if (changes.getHarvestDate() != null) crop.setHarvestDate(changes.getHarvestDate());
+			CropListing saved = cropListingRepository.save(crop);
+			catalogEvents.saved(previous, saved);
+			return saved;
+		});
+	}
+
+	public Optional<CropListing> updateCategory(Long listingId, String category) {
+		return cropListingRepository.findById(listingId).map(crop -> {
+			CropListing previous = CatalogEvents.snapshot(crop);
+			crop.setCategory(category);
+			CropListing saved = cropListingRepository.save(crop);
+			catalogEvents.saved(previous, saved);
+			return saved;
+		});
+	}
+
+	/**
+	 * @throws IllegalArgumentException unless the listing exists and belongs to the farmer
+	 */
+	public CropListing requireOwnedListing(Long listingId, Long farmerId) {
+		return cropListingRepository.findById(listingId)
+				.filter(crop -> crop.getFarmer().getId().equals(farmerId))
+				.orElseThrow(() -> new IllegalArgumentException("Crop listing " + listingId + " not found for farmer " + farmerId));
+	}
+
+	/**
+	 * Point a listing at a newly stored image, release the old one and queue new variants.
+	 */
+	public CropListing attachImage(Long listingId, String imageUrl) {
+		CropListing crop = cropListingRepository.findById(listingId)
+				.orElseThrow(() -> new IllegalArgumentException("Crop listing not found: " + listingId));
+		CropListing previous = CatalogEvents.snapshot(crop);
+		crop.setImageUrl(imageUrl);
+		crop.setThumbnailUrl(null);
+		crop.setMediumUrl(null);
+		CropListing saved = cropListingRepository.save(crop);
+		catalogEvents.saved(previous, saved);
+		imageStorageService.release(previous.getImageUrl());
+		imageDerivativeService.submit(saved.getId(), imageUrl);
+		return saved;
+	}
+
+	/**
+	 * @return false if no listing with that id exists
+	 */
+	public boolean delete(Long listingId) {
+		Optional<CropListing> existing = cropListingRepository.findById(listingId);
+		if (existing.isEmpty()) {
+			return false;
+		}
+		cropListingRepository.delete(existing.get());
+		catalogEvents.deleted(existing.get());
+		imageStorageService.release(existing.get().getImageUrl());
+		return true;
+	}
+
+	/**
+	 * Use explicit coordinates when both are given, otherwise look the location up in the gazetteer.
+	 */
+	private void applyCoordinates(CropListing listing, Double latitude, Double longitude) {
+		requireCoordinatePair(latitude, longitude);
+		if (latitude != null) {
+			if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+				throw new IllegalArgumentException("Invalid coordinates");
+			}
+			listing.setLatitude(latitude);
+			listing.setLongitude(longitude);
+			return;
+		}
+		double[] point = gazetteer.resolve(listing.getLocation()).orElse(null);
+		listing.setLatitude(point != null ? point[0] : null);
+		listing.setLongitude(point != null ? point[1] : null);
+	}
+
+	// Half a point is a client bug; geocoding the location instead would hide it
+	private static void requireCoordinatePair(Double latitude, Double longitude) {
+		if ((latitude == null) != (longitude == null)) {
+			throw new IllegalArgumentException("latitude and longitude must be given together");
+		}
+	}
+
+	private static List<CropListingView> inOrder(List<Long> ids, List<CropListingView> rows) {
+		Map<Long, CropListingView> byId = new HashMap<>();
+		for (CropListingView row : rows) {
+			byId.put(row.id(), row);
+		}
+		List<CropListingView> ordered = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			CropListingView row = byId.get(id);
+			if (row != null) {
+				ordered.add(row);
+			}
+		}
+		return ordered;
+	}
+
+	private boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
 }
 
 
@@ -0,0 +1,248 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over crop name, type, location and description.
+ * Kept current through {@link CatalogListener} events, so searches never touch the database.
+ * Every query term must match, either exactly or as a prefix of an indexed term;
+ * results are ranked by field-weighted, idf-scaled score. A prefix expands to at most
+ * {@code MAX_PREFIX_EXPANSIONS} terms; when it would expand to more, the result says so.
+ */
+@Component
+public class CropSearchIndex implements CatalogIndex {
+
+	private static final float NAME_WEIGHT = 3.0f;
+	private static final float TYPE_WEIGHT = 2.0f;
+	private static final float LOCATION_WEIGHT = 1.5f;
+	private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+	// A prefix match scores less than an exact term match
+	private static final float PREFIX_FACTOR = 0.5f;
+	// Shorter prefixes ("to", "po") expand to much of the vocabulary and only match exactly
+	private static final int MIN_PREFIX_LENGTH = 3;
+	private static final int MAX_PREFIX_EXPANSIONS = 64;
+	private static final int MAX_QUERY_TERMS = 8;
+
+	// term -> (listing id -> field weight); sorted so prefixes are a contiguous range
+	private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+	// listing id -> its distinct terms, needed to unindex on update/delete
+	private final Map<Long, String[]> documents = new HashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public record Hit(Long listingId, float score) {
+	}
+
+	/**
+	 * @param truncated a query prefix matched more than {@code MAX_PREFIX_EXPANSIONS} terms, so
+	 *                  listings matching only the terms left out are missing
+	 */
+	public record Result(List<Hit> hits, boolean truncated) {
+
+		static final Result EMPTY = new Result(Collections.emptyList(), false);
+	}
+
+	@Override
+	public void listingSaved(CropListing previous, CropListing current) {
+		Map<String, Float> terms = termWeights(current);
+		lock.writeLock().lock();
+		try {
+			remove(current.getId());
+			for (Map.Entry<String, Float> term : terms.entrySet()) {
+				postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(current.getId(), term.getValue());
+			}
+			documents.put(current.getId(), terms.keySet().toArray(new String[0]));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void listingDeleted(CropListing removed) {
+		lock.writeLock().lock();
+		try {
+			remove(removed.getId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			documents.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return up to {@code limit} hits, best first
+	 */
+	public Result search(String query, int limit) {
+		List<String> terms = tokenize(query);
+		if (terms.isEmpty()) {
+			return Result.EMPTY;
+		}
+		if (terms.size() > MAX_QUERY_TERMS) {
+			terms = terms.subList(0, MAX_QUERY_TERMS);
+		}
+
+		lock.readLock().lock();
+		try {
+			int docCount = documents.size();
+			// Start with the most selective term so intersections stay small
+			List<Map<Long, Float>> perTerm = new ArrayList<>(terms.size());
+			boolean[] truncated = new boolean[1];
+			for (String term : terms) {
+				Map<Long, Float> scores = scoreTerm(term, docCount, truncated);
+				if (scores.isEmpty()) {
+					return new Result(Collections.emptyList(), truncated[0]);
+				}
+				perTerm.add(scores);
+			}
+			perTerm.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+			Map<Long, Float> combined = new HashMap<>(perTerm.get(0));
+			for (int i = 1; i < perTerm.size() && !combined.isEmpty(); i++) {
+				Map<Long, Float> next = perTerm.get(i);
+				combined.entrySet().removeIf(e -> !next.containsKey(e.getKey()));
+				combined.replaceAll((id, score) -> score + next.get(id));
+			}
+			return new Result(topHits(combined, limit), truncated[0]);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Map<Long, Float> scoreTerm(String term, int docCount, boolean[] truncated) {
+		Map<Long, Float> scores = new HashMap<>();
+		Map<Long, Float> exact = postings.get(term);
+		if (exact != null) {
+			addScores(scores, exact, idf(docCount, exact.size()));
+		}
+		if (term.length() >= MIN_PREFIX_LENGTH) {
+			NavigableMap<String, Map<Long, Float>> range =
+					postings.subMap(term, false, term + Character.MAX_VALUE, false);
+			int expansions = 0;
+			for (Map<Long, Float> posting : range.values()) {
+				if (++expansions > MAX_PREFIX_EXPANSIONS) {
+					truncated[0] = true;
+					break;
+				}
+				addScores(scores, posting, PREFIX_FACTOR * idf(docCount, posting.size()));
+			}
+		}
+		return scores;
+	}
+
+	private static void addScores(Map<Long, Float> scores, Map<Long, Float> posting, float factor) {
+		for (Map.Entry<Long, Float> e : posting.entrySet()) {
+			// A listing matching several expansions of one prefix keeps its best match
+			scores.merge(e.getKey(), e.getValue() * factor, Math::max);
+		}
+	}
+
+	private static float idf(int docCount, int docFrequency) {
+		return (float) Math.log(1.0 + (double) docCount / docFrequency);
+	}
+
+	private static List<Hit> topHits(Map<Long, Float> scores, int limit) {
+		PriorityQueue<Hit> heap = new PriorityQueue<>(Math.max(1, limit), CropSearchIndex::worseFirst);
+		for (Map.Entry<Long, Float> e : scores.entrySet()) {
+			Hit hit = new Hit(e.getKey(), e.getValue());
+			if (heap.size() < limit) {
+				heap.add(hit);
+			} else if (worseFirst(hit, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(hit);
+			}
+		}
+		List<Hit> hits = new ArrayList<>(heap);
+		hits.sort((a, b) -> worseFirst(b, a));
+		return hits;
+	}
+
+	// Orders lower scores first; ties go to the newer (higher id) listing being worse
+	private static int worseFirst(Hit a, Hit b) {
+		int byScore = Float.compare(a.score(), b.score());
+		return byScore != 0 ? byScore : Long.compare(b.listingId(), a.listingId());
+	}
+
+	private void remove(Long listingId) {
+		String[] terms = documents.remove(listingId);
+		if (terms == null) {
+			return;
+		}
+		for (String term : terms) {
+			Map<Long, Float> posting = postings.get(term);
+			if (posting != null) {
+				posting.remove(listingId);
+				if (posting.isEmpty()) {
+					postings.remove(term);
+				}
+			}
+		}
+	}
+
+	private static Map<String, Float> termWeights(CropListing listing) {
+		Map<String, Float> weights = new LinkedHashMap<>();
+		addField(weights, listing.getCropName(), NAME_WEIGHT);
+		addField(weights, listing.getCropType(), TYPE_WEIGHT);
+		addField(weights, listing.getLocation(), LOCATION_WEIGHT);
+		addField(weights, listing.getDescription(), DESCRIPTION_WEIGHT);
+		return weights;
+	}
+
+	private static void addField(Map<String, Float> weights, String text, float weight) {
+		for (String term : tokenize(text)) {
+			weights.merge(term, weight, Float::sum);
+		}
+	}
+
+	static List<String> tokenize(String text) {
+		if (text == null || text.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> terms = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		String lower = text.toLowerCase(Locale.ROOT);
+		for (int i = 0; i < lower.length(); i++) {
+			char c = lower.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				current.append(c);
+			} else if (current.length() > 0) {
+				terms.add(current.toString());
+				current.setLength(0);
+			}
+		}
+		if (current.length() > 0) {
+			terms.add(current.toString());
+		}
+		return terms;
+	}
+}
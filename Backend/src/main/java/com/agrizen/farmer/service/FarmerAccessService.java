@@ -0,0 +1,75 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.auth.model.Role;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Ownership checks for farmer writes. The JWT filter only checks the role, and anyone can sign
+ * up as a farmer, so each write also checks that the farmer profile it touches belongs to the
+ * caller: the profile's email must be the token's email. Admins may act on any farmer.
+ */
+@Service
+public class FarmerAccessService {
+
+	private final FarmerRepository farmerRepository;
+	private final CropListingRepository cropListingRepository;
+
+	// Same switch as the filter's role gates; without tokens there is no caller to check
+	@Value("${app.auth.jwt.enforce:true}")
+	private boolean enforce;
+
+	public FarmerAccessService(FarmerRepository farmerRepository, CropListingRepository cropListingRepository) {
+		this.farmerRepository = farmerRepository;
+		this.cropListingRepository = cropListingRepository;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the farmer does not exist
+	 * @throws NotListingOwnerException if the caller is neither that farmer nor an admin
+	 */
+	public void requireFarmer(AuthenticatedUser user, Long farmerId) {
+		if (!enforce || isAdmin(user)) {
+			return;
+		}
+		Farmer farmer = farmerRepository.findById(farmerId)
+				.orElseThrow(() -> new IllegalArgumentException("Farmer not found: " + farmerId));
+		requireEmail(user, farmer.getEmail());
+	}
+
+	/**
+	 * Same as {@link #requireFarmer} for the listing's farmer; a missing listing passes, so the
+	 * caller's own not-found handling applies.
+	 */
+	public void requireListingOwner(AuthenticatedUser user, Long listingId) {
+		if (!enforce || isAdmin(user)) {
+			return;
+		}
+		cropListingRepository.findById(listingId)
+				.ifPresent(listing -> requireEmail(user, listing.getFarmer().getEmail()));
+	}
+
+	/**
+	 * A farmer profile may only be created for the caller's own email.
+	 */
+	public void requireOwnEmail(AuthenticatedUser user, String email) {
+		if (!enforce || isAdmin(user)) {
+			return;
+		}
+		requireEmail(user, email);
+	}
+
+	private static boolean isAdmin(AuthenticatedUser user) {
+		return user != null && user.role() == Role.ADMIN;
+	}
+
+	private static void requireEmail(AuthenticatedUser user, String email) {
+		if (user == null || user.email() == null || email == null || !user.email().equalsIgnoreCase(email.trim())) {
+			throw new NotListingOwnerException("You can only manage your own farm");
+		}
+	}
+}
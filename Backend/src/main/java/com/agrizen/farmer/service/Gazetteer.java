@@ -0,0 +1,93 @@
+package com.agrizen.farmer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves free-text listing locations to coordinates from a local place-name file
+ * ({@code name,latitude,longitude} per line). No network lookups are made.
+ */
+@Component
+public class Gazetteer {
+
+	private static final Logger log = LoggerFactory.getLogger(Gazetteer.class);
+
+	@Value("${app.geo.gazetteer:classpath:gazetteer.csv}")
+	private Resource source;
+
+	private final Map<String, double[]> places = new HashMap<>();
+
+	@PostConstruct
+	void load() throws IOException {
+		if (!source.exists()) {
+			log.warn("Gazetteer {} not found; listing locations will not be geocoded", source);
+			return;
+		}
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split(",");
+				if (parts.length != 3) {
+					continue;
+				}
+				try {
+					places.put(normalize(parts[0]), new double[] {
+							Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim())});
+				} catch (NumberFormatException e) {
+					log.warn("Skipping gazetteer line '{}'", line);
+				}
+			}
+		}
+		log.info("Loaded {} gazetteer places", places.size());
+	}
+
+	/**
+	 * Try the whole location, then each comma-separated part ("Village, Nashik, MH"), then single words.
+	 *
+	 * @return {latitude, longitude}
+	 */
+	public Optional<double[]> resolve(String location) {
+		if (location == null || location.isBlank() || places.isEmpty()) {
+			return Optional.empty();
+		}
+		String whole = normalize(location);
+		double[] point = places.get(whole);
+		if (point != null) {
+			return Optional.of(point);
+		}
+		for (String part : whole.split(",")) {
+			point = places.get(part.trim());
+			if (point != null) {
+				return Optional.of(point);
+			}
+		}
+		for (String word : whole.split("[^\\p{L}\\p{N}]+")) {
+			point = places.get(word);
+			if (point != null) {
+				return Optional.of(point);
+			}
+		}
+		return Optional.empty();
+	}
+
+	private static String normalize(String s) {
+		return s.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+	}
+}
@@ -0,0 +1,275 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.repository.ImageBlobRepository;
+import com.agrizen.farmer.storage.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed images stored in the {@link ImageStore} under {@code blobs/ab/cd/<sha256>.<ext>}.
+ * Identical bytes are stored once and reference counted in {@code image_blobs}; the blob
+ * and its variants are deleted when the last reference is released. Because a name
+ * can only ever hold one content, blob URLs are safe to cache forever.
+ * Incoming files are staged on local disk under the upload dir whatever the backend.
+ * <p>
+ * Instances sharing the database coordinate through the row alone. Deleting first claims the
+ * row by setting {@code ref_count} to -1 with a conditional update, deletes the files and only
+ * then removes the row. A new reference is an update that only matches rows not claimed
+ * (an idle row at 0 is revived, which makes the claim fail), or an insert once the row is
+ * gone; so an upload never skips writing a file that is about to be deleted. An upload that
+ * finds a claim waits for the deletion to finish.
+ */
+@Service
+public class ImageBlobStore {
+
+	private static final Logger log = LoggerFactory.getLogger(ImageBlobStore.class);
+
+	public static final String BLOB_DIR = "blobs";
+	private static final Pattern BLOB_PATH = Pattern.compile("(?:^|/)" + BLOB_DIR + "/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(?:\\.[a-z0-9]+)?$");
+	private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+	private static final String[] VARIANTS = {"thumb", "medium"};
+
+	// How long an upload waits for a concurrent deletion of the same content
+	private static final int CLAIM_WAIT_ATTEMPTS = 50;
+	private static final long CLAIM_WAIT_MILLIS = 100;
+	// A deletion claim this old belongs to an instance that died mid-way
+	private static final long STALE_CLAIM_MINUTES = 10;
+
+	private final ImageBlobRepository imageBlobRepository;
+	private final ImageStore imageStore;
+
+	@Value("${app.upload.dir:uploads}")
+	private String uploadDir;
+
+	public ImageBlobStore(ImageBlobRepository imageBlobRepository, ImageStore imageStore) {
+		this.imageBlobRepository = imageBlobRepository;
+		this.imageStore = imageStore;
+	}
+
+	/**
+	 * Store the stream's bytes (or add a reference to an identical blob) and fsync them.
+	 * JPEG and PNG metadata is stripped on the way in, see {@link ImageMetadata}, so the
+	 * content hash is that of the stored bytes.
+	 *
+	 * @param extension file extension without the dot; ignored if a blob with the same content exists
+	 * @return the blob's store key
+	 */
+	public String put(InputStream in, String extension) throws IOException {
+		Path temp = incomingDir().resolve(UUID.randomUUID() + ".tmp");
+		try {
+			MessageDigest digest = sha256();
+			long size;
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+				OutputStream out = new DigestOutputStream(
+						new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), digest);
+				ImageMetadata.strip(in, out);
+				out.flush();
+				channel.force(true);
+				size = channel.size();
+			}
+			return putFile(temp, HexFormat.of().formatHex(digest.digest()), size, extension);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Local staging directory for files on their way into the store; on the same filesystem
+	 * as a local store or cache, so handing a file over is a rename.
+	 */
+	public Path incomingDir() throws IOException {
+		Path incoming = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(BLOB_DIR).resolve(".incoming");
+		Files.createDirectories(incoming);
+		return incoming;
+	}
+
+	/**
+	 * Hand an already-written, already-hashed file to the store (or drop it if the content exists).
+	 * The file should be in {@link #incomingDir()}; it is gone or may be deleted when this returns.
+	 */
+	private String putFile(Path file, String hash, long size, String extension) throws IOException {
+		try {
+			String key = key(hash, addReference(hash, size, normalizeExtension(extension)));
+			try {
+				// Safe to skip: our reference is on a live row, so nobody is deleting this file
+				if (!imageStore.exists(key)) {
+					imageStore.put(key, file);
+				}
+			} catch (IOException | RuntimeException e) {
+				release(hash);
+				throw e;
+			}
+			return key;
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Drop one reference; the last one deletes the blob and its variants.
+	 */
+	public void release(String hash) {
+		if (imageBlobRepository.removeReference(hash) == 0) {
+			return;
+		}
+		// Fails if the count is no longer 0 or another instance claimed the row first
+		if (imageBlobRepository.claimUnreferenced(hash, LocalDateTime.now()) > 0) {
+			deleteClaimed(hash, Set.of());
+		}
+	}
+
+	/**
+	 * Delete a blob that no listing points at, whatever its reference count says, unless it
+	 * gained a reference after {@code referencedBefore}. Used by the orphan collector; claims
+	 * the row first like {@link #release}, so it cannot race a new upload of the same content.
+	 *
+	 * @param knownKeys keys already seen for this hash (a blob without a row has no recorded extension)
+	 * @return bytes freed, or -1 if the blob was referenced too recently to delete
+	 */
+	public long purge(String hash, LocalDateTime referencedBefore, Collection<String> knownKeys) {
+		LocalDateTime now = LocalDateTime.now();
+		if (imageBlobRepository.claimForPurge(hash, referencedBefore, now) == 0) {
+			if (imageBlobRepository.existsById(hash)) {
+				return -1;
+			}
+			// Files without a row: claim with a placeholder row so an upload of the same content waits
+			try {
+				imageBlobRepository.insert(hash, "", 0, -1, now);
+			} catch (DataIntegrityViolationException e) {
+				return -1;
+			}
+		}
+		return deleteClaimed(hash, knownKeys);
+	}
+
+	// Deletes the files of a row this instance claimed, then the row
+	private long deleteClaimed(String hash, Collection<String> knownKeys) {
+		try {
+			Set<String> keys = new LinkedHashSet<>(knownKeys);
+			imageBlobRepository.findExtension(hash)
+					.filter(ext -> !ext.isEmpty())
+					.ifPresent(ext -> keys.add(key(hash, ext)));
+			return deleteObjects(hash, keys);
+		} finally {
+			imageBlobRepository.deleteClaimed(hash);
+		}
+	}
+
+	private long deleteObjects(String hash, Collection<String> blobKeys) {
+		Set<String> keys = new LinkedHashSet<>(blobKeys);
+		for (String variant : VARIANTS) {
+			keys.add(variantKey(key(hash, ""), variant));
+		}
+		long freed = 0;
+		for (String key : keys) {
+			try {
+				freed += Math.max(0, imageStore.delete(key));
+			} catch (IOException e) {
+				log.warn("Could not delete image {}: {}", key, e.getMessage());
+			}
+		}
+		return freed;
+	}
+
+	/**
+	 * Key of a resized variant of the image stored under {@code key}, e.g. {@code <hash>-thumb.jpg}.
+	 */
+	public static String variantKey(String key, String variant) {
+		int slash = key.lastIndexOf('/');
+		int dot = key.lastIndexOf('.');
+		String base = dot > slash + 1 ? key.substring(0, dot) : key;
+		return base + "-" + variant + ".jpg";
+	}
+
+	/**
+	 * @return the content hash if the path or URL names a blob
+	 */
+	public static Optional<String> hashOf(String pathOrUrl) {
+		if (pathOrUrl == null) {
+			return Optional.empty();
+		}
+		Matcher m = BLOB_PATH.matcher(pathOrUrl);
+		return m.find() ? Optional.of(m.group(1)) : Optional.empty();
+	}
+
+	public static String key(String hash, String extension) {
+		String name = extension.isEmpty() ? hash : hash + "." + extension;
+		return BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + name;
+	}
+
+	// Returns the extension the blob is stored under
+	private String addReference(String hash, long size, String extension) throws IOException {
+		for (int attempt = 0; ; attempt++) {
+			LocalDateTime now = LocalDateTime.now();
+			if (imageBlobRepository.addReference(hash, now) > 0) {
+				return imageBlobRepository.findExtension(hash).orElse(extension);
+			}
+			try {
+				imageBlobRepository.insert(hash, extension, size, 1, now);
+				return extension;
+			} catch (DataIntegrityViolationException e) {
+				// Another instance inserted it first (the next update hits it) or is deleting it
+			}
+			if (imageBlobRepository.takeOverStaleClaim(hash, extension, size, now.minusMinutes(STALE_CLAIM_MINUTES), now) > 0) {
+				log.warn("Took over a stale deletion claim on image blob {}", hash);
+				return extension;
+			}
+			if (attempt == CLAIM_WAIT_ATTEMPTS) {
+				throw new CapacityExceededException("The same image is being deleted; try again shortly", 1);
+			}
+			try {
+				Thread.sleep(CLAIM_WAIT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to store image " + hash);
+			}
+		}
+	}
+
+	private static String normalizeExtension(String extension) {
+		if (extension == null) {
+			return "";
+		}
+		String ext = extension.toLowerCase(Locale.ROOT);
+		if (ext.startsWith(".")) {
+			ext = ext.substring(1);
+		}
+		return EXTENSION.matcher(ext).matches() ? ext : "";
+	}
+
+	static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
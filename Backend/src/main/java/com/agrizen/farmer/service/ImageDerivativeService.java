@@ -0,0 +1,277 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.storage.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates thumbnail and medium JPEG variants of listing images off the request thread.
+ * Work runs on a small fixed pool with a bounded queue; when the queue is full the job is
+ * dropped and the listing keeps serving its original image. The source is turned upright
+ * according to its EXIF orientation, then variants are re-encoded from pixels only, so EXIF
+ * and other metadata (including GPS tags) never reach them, and both are capped to a fixed
+ * bounding box. Originals are scrubbed of metadata on upload, see {@link ImageMetadata}.
+ */
+@Service
+public class ImageDerivativeService implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+	private final CropListingRepository cropListingRepository;
+	private final ImageStorageService imageStorageService;
+	private final CatalogEvents catalogEvents;
+	private final ImageStore imageStore;
+	private final ImageBlobStore imageBlobStore;
+
+	private ThreadPoolExecutor executor;
+
+	@Value("${app.image.derivatives.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.image.derivatives.threads:2}")
+	private int threads;
+
+	@Value("${app.image.derivatives.queue-capacity:200}")
+	private int queueCapacity;
+
+	@Value("${app.image.derivatives.thumbnail-size:240}")
+	private int thumbnailSize;
+
+	@Value("${app.image.derivatives.medium-size:960}")
+	private int mediumSize;
+
+	@Value("${app.image.derivatives.jpeg-quality:0.82}")
+	private float jpegQuality;
+
+	// Sources above this many pixels are not decoded at all (decompression bombs)
+	@Value("${app.image.derivatives.max-source-pixels:60000000}")
+	private long maxSourcePixels;
+
+	public ImageDerivativeService(CropListingRepository cropListingRepository,
+	                              ImageStorageService imageStorageService,
+	                              CatalogEvents catalogEvents,
+	                              ImageStore imageStore,
+	                              ImageBlobStore imageBlobStore) {
+		this.cropListingRepository = cropListingRepository;
+		this.imageStorageService = imageStorageService;
+		this.catalogEvents = catalogEvents;
+		this.imageStore = imageStore;
+		this.imageBlobStore = imageBlobStore;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		AtomicInteger counter = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), r -> {
+					Thread t = new Thread(r, "image-derivatives-" + counter.incrementAndGet());
+					t.setDaemon(true);
+					t.setPriority(Thread.NORM_PRIORITY - 1);
+					return t;
+				});
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Queue variant generation for a listing's current image. Returns immediately.
+	 */
+	public void submit(Long listingId, String imageUrl) {
+		if (!enabled || listingId == null || imageUrl == null) {
+			return;
+		}
+		try {
+			executor.execute(() -> process(listingId, imageUrl));
+		} catch (RejectedExecutionException e) {
+			log.warn("Image derivative queue full, listing {} keeps its original image only", listingId);
+		}
+	}
+
+	private void process(Long listingId, String imageUrl) {
+		long started = System.currentTimeMillis();
+		try {
+			Optional<String> key = imageStorageService.keyOf(imageUrl);
+			if (key.isEmpty()) {
+				return;
+			}
+			String thumbnail = ImageBlobStore.variantKey(key.get(), "thumb");
+			String medium = ImageBlobStore.variantKey(key.get(), "medium");
+			// Blobs are shared by content, so another listing may already have produced these
+			if (!imageStore.exists(thumbnail) || !imageStore.exists(medium)) {
+				BufferedImage image = readSource(key.get());
+				if (image == null) {
+					log.debug("No readable image for {}, skipping derivatives", imageUrl);
+					return;
+				}
+				write(scale(image, thumbnailSize), thumbnail);
+				write(scale(image, mediumSize), medium);
+			}
+
+			String thumbnailUrl = imageStorageService.urlFor(thumbnail);
+			String mediumUrl = imageStorageService.urlFor(medium);
+			if (cropListingRepository.setImageVariants(listingId, imageUrl, thumbnailUrl, mediumUrl) > 0) {
+				cropListingRepository.findById(listingId).ifPresent(current -> {
+					CropListing previous = CatalogEvents.snapshot(current);
+					previous.setThumbnailUrl(null);
+					previous.setMediumUrl(null);
+					catalogEvents.saved(previous, current);
+				});
+			}
+			log.debug("Image derivatives for listing {} in {} ms", listingId, System.currentTimeMillis() - started);
+		} catch (Exception e) {
+			log.warn("Image derivatives failed for listing {} ({}): {}", listingId, imageUrl, e.getMessage());
+		}
+	}
+
+	/**
+	 * Decode with source subsampling so a large photo is never fully expanded in memory;
+	 * the result is still at least {@code targetSize} on its longer side.
+	 */
+	private BufferedImage read(Path file, int targetSize) throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) {
+				return null;
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				int width = reader.getWidth(0);
+				int height = reader.getHeight(0);
+				if ((long) width * height > maxSourcePixels) {
+					throw new IOException("image is " + width + "x" + height + ", above the pixel limit");
+				}
+				ImageReadParam param = reader.getDefaultReadParam();
+				int step = Math.max(1, Math.max(width, height) / (targetSize * 2));
+				param.setSourceSubsampling(step, step, 0, 0);
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private BufferedImage readUpright(Path file) throws IOException {
+		BufferedImage image = read(file, mediumSize);
+		return image == null ? null : orient(image, ImageMetadata.orientation(file));
+	}
+
+	/**
+	 * Apply an EXIF orientation (1-8): 2-4 mirror or turn half way, 5-8 also swap width and height.
+	 */
+	private static BufferedImage orient(BufferedImage source, int orientation) {
+		int w = source.getWidth();
+		int h = source.getHeight();
+		AffineTransform transform = switch (orientation) {
+			case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+			case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+			case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+			case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+			case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+			case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+			case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+			default -> null;
+		};
+		if (transform == null) {
+			return source;
+		}
+		boolean swap = orientation >= 5;
+		BufferedImage target = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = target.createGraphics();
+		try {
+			g.drawImage(source, transform, null);
+		} finally {
+			g.dispose();
+		}
+		return target;
+	}
+
+	private static BufferedImage scale(BufferedImage source, int maxSize) {
+		double ratio = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+		int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+		int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+		// Always redraw into plain RGB: drops alpha (JPEG has none) and any source color model quirks
+		BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = target.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+			g.drawImage(source, 0, 0, width, height, null);
+		} finally {
+			g.dispose();
+		}
+		return target;
+	}
+
+	// Backends without a local copy (remote stores) are read through a temporary download
+	private BufferedImage readSource(String key) throws IOException {
+		Optional<Path> local = imageStore.localFile(key);
+		if (local.isPresent()) {
+			return readUpright(local.get());
+		}
+		Path temp = imageBlobStore.incomingDir().resolve(UUID.randomUUID() + ".src");
+		try {
+			return imageStore.copyTo(key, temp) ? readUpright(temp) : null;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	// Encoded to a staging file and handed to the store whole, so a half-written variant is never served
+	private void write(BufferedImage image, String key) throws IOException {
+		// Not Files.createTempFile: that creates 0600 files, which a separate web server could not read
+		Path temp = imageBlobStore.incomingDir().resolve(UUID.randomUUID() + ".variant");
+		try {
+			ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+			try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+				writer.setOutput(out);
+				ImageWriteParam param = writer.getDefaultWriteParam();
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(jpegQuality);
+				writer.write(null, new IIOImage(image, null, null), param);
+			} finally {
+				writer.dispose();
+			}
+			imageStore.put(key, temp);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package com.agrizen.farmer.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Metadata handling for uploaded originals, done on the byte stream without decoding pixels.
+ * <ul>
+ *   <li>JPEG: EXIF, XMP, IPTC, comments and other application segments are dropped, as is
+ *   anything after the end-of-image marker (phones append preview and depth images there,
+ *   with their own EXIF). JFIF, ICC colour profile and Adobe segments are kept. If the EXIF
+ *   block had a non-default orientation, a minimal EXIF block holding only that tag is
+ *   written back so browsers still show the photo upright.</li>
+ *   <li>PNG: text, time and EXIF chunks are dropped.</li>
+ *   <li>Anything else is copied unchanged.</li>
+ * </ul>
+ */
+final class ImageMetadata {
+
+	private static final int SOI = 0xD8;
+	private static final int EOI = 0xD9;
+	private static final int SOS = 0xDA;
+	private static final int APP0 = 0xE0;
+	private static final int APP1 = 0xE1;
+	private static final int APP2 = 0xE2;
+	private static final int APP14 = 0xEE;
+	private static final int COM = 0xFE;
+	private static final int ORIENTATION_TAG = 0x0112;
+
+	private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+	private static final byte[] ICC_HEADER = "ICC_PROFILE\0".getBytes(StandardCharsets.ISO_8859_1);
+	private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	private static final Set<String> PNG_METADATA_CHUNKS = Set.of("tEXt", "zTXt", "iTXt", "eXIf", "tIME");
+
+	private ImageMetadata() {
+	}
+
+	/**
+	 * Copy {@code in} to {@code out} without metadata.
+	 *
+	 * @throws IllegalArgumentException if the input claims to be a JPEG or PNG but is malformed
+	 */
+	static void strip(InputStream in, OutputStream out) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+		buffered.mark(PNG_SIGNATURE.length);
+		byte[] head = buffered.readNBytes(PNG_SIGNATURE.length);
+		buffered.reset();
+		try {
+			if (head.length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == SOI) {
+				stripJpeg(new DataInputStream(buffered), out);
+			} else if (Arrays.equals(head, PNG_SIGNATURE)) {
+				stripPng(new DataInputStream(buffered), out);
+			} else {
+				buffered.transferTo(out);
+			}
+		} catch (EOFException e) {
+			throw new IllegalArgumentException("Image file is truncated");
+		}
+	}
+
+	/**
+	 * EXIF orientation (1-8) of a JPEG file; 1 (upright) when absent or not a JPEG.
+	 */
+	static int orientation(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readUnsignedByte() != 0xFF || in.readUnsignedByte() != SOI) {
+				return 1;
+			}
+			while (true) {
+				int marker = nextMarker(in);
+				if (marker == SOS || marker == EOI) {
+					return 1;
+				}
+				byte[] payload = segment(in, marker);
+				if (marker == APP1 && startsWith(payload, EXIF_HEADER)) {
+					return exifOrientation(payload);
+				}
+			}
+		} catch (EOFException | IllegalArgumentException e) {
+			return 1;
+		}
+	}
+
+	private static void stripJpeg(DataInputStream in, OutputStream out) throws IOException {
+		in.readUnsignedShort(); // SOI
+		// Header segments are buffered so the orientation-only EXIF block can go in front of them
+		ByteArrayOutputStream jfif = new ByteArrayOutputStream();
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		int orientation = 1;
+		int marker;
+		while ((marker = nextMarker(in)) != SOS) {
+			if (marker == EOI) {
+				throw new IllegalArgumentException("JPEG has no image data");
+			}
+			byte[] payload = segment(in, marker);
+			if (marker == APP1 && startsWith(payload, EXIF_HEADER)) {
+				orientation = exifOrientation(payload);
+			} else if (marker == APP0 && jfif.size() == 0) {
+				writeSegment(jfif, marker, payload);
+			} else if (keep(marker, payload)) {
+				writeSegment(header, marker, payload);
+			}
+		}
+		out.write(0xFF);
+		out.write(SOI);
+		jfif.writeTo(out);
+		if (orientation != 1) {
+			writeSegment(out, APP1, orientationExif(orientation));
+		}
+		header.writeTo(out);
+		writeSegment(out, SOS, segment(in, SOS));
+		copyScans(in, out);
+	}
+
+	// Entropy-coded data up to and including EOI; progressive files have more segments between scans
+	private static void copyScans(DataInputStream in, OutputStream out) throws IOException {
+		while (true) {
+			int b = in.read();
+			if (b < 0) {
+				return;
+			}
+			if (b != 0xFF) {
+				out.write(b);
+				continue;
+			}
+			int next = in.readUnsignedByte();
+			while (next == 0xFF) {
+				next = in.readUnsignedByte();
+			}
+			if (next == 0x00 || (next >= 0xD0 && next <= 0xD7)) {
+				// Stuffed 0xFF byte or restart marker
+				out.write(0xFF);
+				out.write(next);
+			} else if (next == EOI) {
+				out.write(0xFF);
+				out.write(EOI);
+				return;
+			} else {
+				byte[] payload = segment(in, next);
+				if (keep(next, payload)) {
+					writeSegment(out, next, payload);
+				}
+			}
+		}
+	}
+
+	private static boolean keep(int marker, byte[] payload) {
+		if (marker == APP0 || marker == APP14) {
+			return true;
+		}
+		if (marker == APP2) {
+			return startsWith(payload, ICC_HEADER);
+		}
+		return marker != COM && (marker < APP0 || marker > 0xEF);
+	}
+
+	private static int nextMarker(DataInputStream in) throws IOException {
+		if (in.readUnsignedByte() != 0xFF) {
+			throw new IllegalArgumentException("Malformed JPEG image");
+		}
+		int marker = in.readUnsignedByte();
+		while (marker == 0xFF) {
+			marker = in.readUnsignedByte();
+		}
+		return marker;
+	}
+
+	private static byte[] segment(DataInputStream in, int marker) throws IOException {
+		int length = in.readUnsignedShort();
+		if (length < 2) {
+			throw new IllegalArgumentException("Malformed JPEG segment 0x" + Integer.toHexString(marker));
+		}
+		byte[] payload = new byte[length - 2];
+		in.readFully(payload);
+		return payload;
+	}
+
+	private static void writeSegment(OutputStream out, int marker, byte[] payload) throws IOException {
+		out.write(0xFF);
+		out.write(marker);
+		out.write((payload.length + 2) >>> 8);
+		out.write((payload.length + 2) & 0xFF);
+		out.write(payload);
+	}
+
+	private static int exifOrientation(byte[] exif) {
+		int tiff = EXIF_HEADER.length;
+		if (exif.length < tiff + 8) {
+			return 1;
+		}
+		boolean little = exif[tiff] == 'I' && exif[tiff + 1] == 'I';
+		long ifd = tiff + readInt(exif, tiff + 4, little);
+		if (ifd + 2 > exif.length) {
+			return 1;
+		}
+		int entries = readShort(exif, (int) ifd, little);
+		for (int i = 0; i < entries; i++) {
+			int entry = (int) ifd + 2 + i * 12;
+			if (entry + 12 > exif.length) {
+				return 1;
+			}
+			if (readShort(exif, entry, little) == ORIENTATION_TAG) {
+				int value = readShort(exif, entry + 8, little);
+				return value >= 1 && value <= 8 ? value : 1;
+			}
+		}
+		return 1;
+	}
+
+	// "Exif\0\0", big-endian TIFF header, IFD0 with the single orientation entry
+	private static byte[] orientationExif(int orientation) {
+		byte[] tiff = {'M', 'M', 0, 42, 0, 0, 0, 8, 0, 1,
+				(byte) (ORIENTATION_TAG >>> 8), (byte) ORIENTATION_TAG, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+				0, 0, 0, 0};
+		byte[] exif = Arrays.copyOf(EXIF_HEADER, EXIF_HEADER.length + tiff.length);
+		System.arraycopy(tiff, 0, exif, EXIF_HEADER.length, tiff.length);
+		return exif;
+	}
+
+	private static void stripPng(DataInputStream in, OutputStream out) throws IOException {
+		in.readFully(new byte[PNG_SIGNATURE.length]);
+		out.write(PNG_SIGNATURE);
+		byte[] header = new byte[8];
+		while (true) {
+			in.readFully(header);
+			long length = readInt(header, 0, false);
+			String type = new String(header, 4, 4, StandardCharsets.ISO_8859_1);
+			// Data plus CRC
+			long remaining = length + 4;
+			if (PNG_METADATA_CHUNKS.contains(type)) {
+				in.skipNBytes(remaining);
+			} else {
+				out.write(header);
+				copy(in, out, remaining);
+			}
+			if (type.equals("IEND")) {
+				return;
+			}
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+		byte[] buffer = new byte[8192];
+		while (count > 0) {
+			int n = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+			if (n < 0) {
+				throw new EOFException();
+			}
+			out.write(buffer, 0, n);
+			count -= n;
+		}
+	}
+
+	private static boolean startsWith(byte[] data, byte[] prefix) {
+		return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+	}
+
+	private static int readShort(byte[] b, int i, boolean little) {
+		return little ? (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 : (b[i] & 0xFF) << 8 | (b[i + 1] & 0xFF);
+	}
+
+	private static long readInt(byte[] b, int i, boolean little) {
+		return little
+				? (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (long) (b[i + 3] & 0xFF) << 24
+				: (long) (b[i] & 0xFF) << 24 | (b[i + 1] & 0xFF) << 16 | (b[i + 2] & 0xFF) << 8 | (b[i + 3] & 0xFF);
+	}
+}
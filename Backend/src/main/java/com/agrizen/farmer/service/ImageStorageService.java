@@ -5,19 +5,26 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
-import java.nio.file.*;
-import java.time.Instant;
-import java.util.UUID;
+import java.io.InputStream;
+import java.util.Optional;
 
 @Service
 public class ImageStorageService {
 
-	@Value("${app.upload.dir:uploads}")
-	private String uploadDir;
-
 	@Value("${app.upload.base-url:/uploads}")
 	private String uploadBaseUrl;
 
+	private final ImageBlobStore imageBlobStore;
+
+	public ImageStorageService(ImageBlobStore imageBlobStore) {
+		this.imageBlobStore = imageBlobStore;
+	}
+
+	/**
+	 * Store an uploaded image in the content-addressed blob store. The file is fsynced before
+	 * this returns, so the URL stays valid even if the process dies while derivatives are
+	 * still being generated. Re-uploading the same bytes returns the same URL.
+	 */
 	public String saveFarmerCropImage(Long farmerId, MultipartFile file) throws IOException {
 		if (file == null || file.isEmpty()) {
 			return null;
@@ -26,19 +33,40 @@ public class ImageStorageService {
 		String ext = "";
 		int dot = original.lastIndexOf('.');
 		if (dot >= 0 && dot < original.length() - 1) {
-			ext = original.substring(dot);
+			ext = original.substring(dot + 1);
+		}
+		try (InputStream in = file.getInputStream()) {
+			return uploadBaseUrl + "/" + imageBlobStore.put(in, ext);
 		}
-		String filename = UUID.randomUUID() + "-" + Instant.now().toEpochMilli() + ext;
+	}
 
-		Path farmerFolder = Paths.get(uploadDir, "crops", String.valueOf(farmerId)).toAbsolutePath().normalize();
-		Files.createDirectories(farmerFolder);
+	/**
+	 * Drop a listing's reference to its image. Legacy per-farmer files are left alone.
+	 */
+	public void release(String url) {
+		ImageBlobStore.hashOf(url).ifPresent(imageBlobStore::release);
+	}
 
-		Path target = farmerFolder.resolve(filename);
-		Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
+	/**
+	 * Map a URL returned by this service back to its {@link com.agrizen.farmer.storage.ImageStore} key.
+	 */
+	public Optional<String> keyOf(String url) {
+		if (url == null || !url.startsWith(uploadBaseUrl + "/")) {
+			return Optional.empty();
+		}
+		String key = url.substring(uploadBaseUrl.length() + 1);
+		for (String segment : key.split("/")) {
+			if (segment.isEmpty() || segment.startsWith(".")) {
+				return Optional.empty();
+			}
+		}
+		return Optional.of(key);
+	}
 
-		String urlPath = uploadBaseUrl + "/crops/" + farmerId + "/" + filename;
-		return urlPath;
+	/**
+	 * Inverse of {@link #keyOf(String)}.
+	 */
+	public String urlFor(String key) {
+		return uploadBaseUrl + "/" + key;
 	}
 }
-
-
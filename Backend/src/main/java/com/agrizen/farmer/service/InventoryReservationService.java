@@ -0,0 +1,229 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.auth.model.Role;
+import com.agrizen.farmer.dto.Reservation;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.StockReservation;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reserve, commit and release stock on crop listings.
+ * A reservation takes its quantity off the listing immediately with a conditional UPDATE,
+ * so stock can never be oversold, and holds it for a short time.
+ * Commit keeps the stock taken; release or expiry puts it back.
+ * A reservation belongs to the buyer who made it; only they or an admin may commit or release it.
+ * <p>
+ * Holds are kept in memory for quick lookup and written to {@code stock_reservations} in the same
+ * transaction that takes the stock. Whichever of commit, release and expiry deletes the row wins,
+ * on any instance, and a release deletes it in the same transaction that returns the stock, so
+ * stock is returned exactly once. The expiry sweep works off the table, so holds made by an
+ * instance that has since restarted or died are returned too; its first run is at startup.
+ */
+@Service
+public class InventoryReservationService {
+
+	private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+	// Reservations free up as they are committed, released or swept
+	private static final long RETRY_AFTER_SECONDS = 5;
+	private static final int SWEEP_BATCH_SIZE = 500;
+
+	private final CropListingRepository cropListingRepository;
+	private final StockReservationRepository stockReservationRepository;
+	private final CatalogEvents catalogEvents;
+	private final TransactionTemplate transactionTemplate;
+	private final Map<String, Hold> reservations = new ConcurrentHashMap<>();
+
+	@Value("${app.inventory.reservation.ttl-seconds:600}")
+	private long ttlSeconds;
+
+	@Value("${app.inventory.reservation.max-active:10000}")
+	private int maxActive;
+
+	// Same switch as the JWT filter; without tokens there is no caller to check
+	@Value("${app.auth.jwt.enforce:true}")
+	private boolean enforce;
+
+	// userId is null when the reservation was made without a token
+	private record Hold(Reservation reservation, Long userId) {
+
+		static Hold of(StockReservation row) {
+			return new Hold(new Reservation(row.getId(), row.getListingId(), row.getQuantity(),
+					Instant.ofEpochMilli(row.getExpiresAt())), row.getUserId());
+		}
+	}
+
+	public InventoryReservationService(CropListingRepository cropListingRepository,
+	                                   StockReservationRepository stockReservationRepository,
+	                                   CatalogEvents catalogEvents,
+	                                   PlatformTransactionManager transactionManager) {
+		this.cropListingRepository = cropListingRepository;
+		this.stockReservationRepository = stockReservationRepository;
+		this.catalogEvents = catalogEvents;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * @return the reservation, or empty if the listing does not have that much stock left
+	 * @throws IllegalArgumentException for a non-positive quantity or an unknown listing
+	 * @throws CapacityExceededException when {@code max-active} reservations are already held
+	 */
+	public Optional<Reservation> reserve(Long listingId, int quantity, AuthenticatedUser user) {
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("quantity must be positive");
+		}
+		if (reservations.size() >= maxActive) {
+			throw new CapacityExceededException("Too many active reservations, try again later", RETRY_AFTER_SECONDS);
+		}
+		Hold hold = new Hold(new Reservation(UUID.randomUUID().toString(), listingId, quantity,
+				Instant.now().plusSeconds(ttlSeconds)), user == null ? null : user.userId());
+		boolean taken = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+			if (cropListingRepository.takeStock(listingId, quantity) == 0) {
+				return false;
+			}
+			stockReservationRepository.save(row(hold));
+			return true;
+		}));
+		if (!taken) {
+			if (!cropListingRepository.existsById(listingId)) {
+				throw new IllegalArgumentException("Crop listing not found: " + listingId);
+			}
+			return Optional.empty();
+		}
+		reservations.put(hold.reservation().id(), hold);
+		stockChanged(listingId, quantity);
+		return Optional.of(hold.reservation());
+	}
+
+	/**
+	 * Make a reservation permanent; the stock stays taken.
+	 *
+	 * @return empty if the reservation is unknown, already finished or expired
+	 * @throws NotListingOwnerException if the caller did not make the reservation
+	 */
+	public Optional<Reservation> commit(String reservationId, AuthenticatedUser user) {
+		Reservation reservation = find(reservationId, user);
+		if (reservation == null) {
+			return Optional.empty();
+		}
+		if (reservation.expiresAt().isBefore(Instant.now())) {
+			finish(reservation, true);
+			return Optional.empty();
+		}
+		return finish(reservation, false) ? Optional.of(reservation) : Optional.empty();
+	}
+
+	/**
+	 * Cancel a reservation and return its stock to the listing.
+	 *
+	 * @return empty if the reservation is unknown, already finished or expired
+	 * @throws NotListingOwnerException if the caller did not make the reservation
+	 */
+	public Optional<Reservation> release(String reservationId, AuthenticatedUser user) {
+		Reservation reservation = find(reservationId, user);
+		if (reservation == null) {
+			return Optional.empty();
+		}
+		return finish(reservation, true) ? Optional.of(reservation) : Optional.empty();
+	}
+
+	@Scheduled(fixedDelayString = "${app.inventory.reservation.sweep-interval-ms:5000}")
+	public void expireReservations() {
+		long now = System.currentTimeMillis();
+		int expired = 0;
+		while (true) {
+			List<StockReservation> rows = stockReservationRepository.findExpired(now, PageRequest.of(0, SWEEP_BATCH_SIZE));
+			for (StockReservation row : rows) {
+				if (finish(Hold.of(row).reservation(), true)) {
+					expired++;
+				}
+			}
+			if (rows.size() < SWEEP_BATCH_SIZE) {
+				break;
+			}
+		}
+		// Holds finished by another instance
+		reservations.values().removeIf(hold -> hold.reservation().expiresAt().toEpochMilli() < now);
+		if (expired > 0) {
+			log.info("Expired {} stock reservations", expired);
+		}
+	}
+
+	/**
+	 * The caller's reservation, from memory or else from the table (made by another instance, or
+	 * before a restart); null if there is none.
+	 */
+	private Reservation find(String reservationId, AuthenticatedUser user) {
+		Hold hold = reservations.get(reservationId);
+		if (hold == null) {
+			hold = stockReservationRepository.findById(reservationId).map(Hold::of).orElse(null);
+			if (hold == null) {
+				return null;
+			}
+		}
+		if (enforce && !(user != null && (user.role() == Role.ADMIN || Objects.equals(user.userId(), hold.userId())))) {
+			throw new NotListingOwnerException("You can only manage your own reservations");
+		}
+		return hold.reservation();
+	}
+
+	/**
+	 * Delete the reservation's row and, if {@code giveBack}, return its stock in the same
+	 * transaction.
+	 *
+	 * @return false if another call or instance finished the reservation first
+	 */
+	private boolean finish(Reservation reservation, boolean giveBack) {
+		int[] returned = new int[1];
+		boolean claimed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+			if (stockReservationRepository.claim(reservation.id()) == 0) {
+				return false;
+			}
+			if (giveBack) {
+				returned[0] = cropListingRepository.returnStock(reservation.listingId(), reservation.quantity());
+			}
+			return true;
+		}));
+		reservations.remove(reservation.id());
+		if (returned[0] > 0) {
+			stockChanged(reservation.listingId(), -reservation.quantity());
+		}
+		return claimed;
+	}
+
+	private void stockChanged(Long listingId, int taken) {
+		cropListingRepository.findById(listingId).ifPresent(current -> {
+			CropListing previous = CatalogEvents.snapshot(current);
+			previous.setQuantity(current.getQuantity() + taken);
+			catalogEvents.saved(previous, current);
+		});
+	}
+
+	private static StockReservation row(Hold hold) {
+		StockReservation row = new StockReservation();
+		row.setId(hold.reservation().id());
+		row.setListingId(hold.reservation().listingId());
+		row.setQuantity(hold.reservation().quantity());
+		row.setUserId(hold.userId());
+		row.setExpiresAt(hold.reservation().expiresAt().toEpochMilli());
+		return row;
+	}
+}
@@ -0,0 +1,12 @@
+package com.agrizen.farmer.service;
+
+/**
+ * Thrown when a signed-in farmer acts on another farmer's profile, listings or uploads, or a
+ * buyer on another buyer's reservation; answered with 403.
+ */
+public class NotListingOwnerException extends RuntimeException {
+
+	public NotListingOwnerException(String message) {
+		super(message);
+	}
+}
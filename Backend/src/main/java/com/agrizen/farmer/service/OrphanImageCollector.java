@@ -0,0 +1,308 @@
+package com.agrizen.farmer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mark-and-sweep collection of upload files no listing points at.
+ * Mark: stream every image, thumbnail and medium URL out of crop_listings. Blob URLs are
+ * marked by content hash and other uploads by their path under the upload dir, so rows
+ * written under an earlier {@code app.upload.base-url} still count. If listings have images
+ * but none of their URLs could be matched, nothing is swept.
+ * Sweep: walk the local upload tree (the store itself, or its cache for a remote backend)
+ * and delete unmarked files older than the grace period, then check image_blobs for
+ * unmarked blobs that may only exist remotely. Blobs are purged through
+ * {@link ImageBlobStore} so a concurrent upload of the same content wins. The walk is paced to {@code max-files-per-second} so it does not
+ * compete with request I/O.
+ */
+@Component
+public class OrphanImageCollector {
+
+	private static final Logger log = LoggerFactory.getLogger(OrphanImageCollector.class);
+
+	// <hash>.<ext> or <hash>-<variant>.jpg inside the blob tree
+	private static final Pattern BLOB_FILE = Pattern.compile("^([0-9a-f]{64})(?:-[a-z]+)?(?:\\.[a-z0-9]+)?$");
+	// Default base URL segment, found in URLs stored under any host or earlier base URL
+	private static final String UPLOADS_SEGMENT = "uploads/";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ImageBlobStore imageBlobStore;
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	@Value("${app.upload.dir:uploads}")
+	private String uploadDir;
+
+	@Value("${app.upload.base-url:/uploads}")
+	private String uploadBaseUrl;
+
+	@Value("${app.image.gc.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.image.gc.grace-hours:24}")
+	private long graceHours;
+
+	@Value("${app.image.gc.max-files-per-second:1000}")
+	private int maxFilesPerSecond;
+
+	public OrphanImageCollector(DataSource dataSource, ImageBlobStore imageBlobStore) {
+		// Own template so the streaming fetch size does not leak into the shared one
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+		this.imageBlobStore = imageBlobStore;
+	}
+
+	@Scheduled(cron = "${app.image.gc.cron:0 30 3 * * *}")
+	public void scheduledRun() {
+		if (enabled) {
+			run(false);
+		}
+	}
+
+	/**
+	 * @param dryRun report what would be deleted without deleting anything
+	 * @return files scanned, files deleted, bytes reclaimed and duration
+	 */
+	public Map<String, Object> run(boolean dryRun) {
+		Map<String, Object> report = new LinkedHashMap<>();
+		if (!running.compareAndSet(false, true)) {
+			report.put("skipped", "A collection is already in progress");
+			return report;
+		}
+		try {
+			long started = System.currentTimeMillis();
+			LocalDateTime cutoff = LocalDateTime.now().minusHours(graceHours);
+			Mark mark = mark();
+			if (mark.urls > 0 && mark.referenced.isEmpty()) {
+				log.warn("Orphan image collection skipped: none of {} image URLs in crop_listings matched an upload path " +
+						"(app.upload.base-url is {})", mark.urls, uploadBaseUrl);
+				report.put("skipped", "No image URL matched an upload; check app.upload.base-url");
+				report.put("imageUrls", mark.urls);
+				return report;
+			}
+			Set<String> referenced = mark.referenced;
+			Sweep sweep = new Sweep(referenced, cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), dryRun);
+			Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+			if (Files.isDirectory(root)) {
+				Files.walkFileTree(root, sweep.visitor(root));
+			}
+			jdbcTemplate.query("select hash, extension, size_bytes from image_blobs " +
+					"where last_referenced_at is null or last_referenced_at < ?", rs -> {
+				String hash = rs.getString(1);
+				if (!referenced.contains(hash) && !sweep.orphanBlobs.containsKey(hash)) {
+					sweep.orphan(hash, ImageBlobStore.key(hash, rs.getString(2)), rs.getLong(3));
+				}
+			}, cutoff);
+			for (Map.Entry<String, OrphanBlob> orphan : sweep.orphanBlobs.entrySet()) {
+				if (dryRun) {
+					sweep.deleted++;
+					sweep.reclaimed += orphan.getValue().bytes;
+					continue;
+				}
+				long freed = imageBlobStore.purge(orphan.getKey(), cutoff, orphan.getValue().keys);
+				if (freed >= 0) {
+					sweep.deleted++;
+					sweep.reclaimed += freed;
+				}
+			}
+
+			long durationMs = System.currentTimeMillis() - started;
+			report.put("dryRun", dryRun);
+			report.put("referenced", referenced.size());
+			report.put("unmatchedUrls", mark.unmatched);
+			report.put("scanned", sweep.scanned);
+			report.put("deleted", sweep.deleted);
+			report.put("reclaimedBytes", sweep.reclaimed);
+			report.put("durationMs", durationMs);
+			log.info("Orphan image collection{}: scanned {} files, deleted {}, reclaimed {} bytes in {} ms",
+					dryRun ? " (dry run)" : "", sweep.scanned, sweep.deleted, sweep.reclaimed, durationMs);
+			return report;
+		} catch (IOException e) {
+			throw new IllegalStateException("Orphan image collection failed: " + e.getMessage(), e);
+		} finally {
+			running.set(false);
+		}
+	}
+
+	/**
+	 * Upload-relative paths of every image a listing points at; blobs are marked by hash.
+	 */
+	private Mark mark() {
+		Mark mark = new Mark();
+		jdbcTemplate.query("select image_url, thumbnail_url, medium_url from crop_listings " +
+				"where image_url is not null or thumbnail_url is not null or medium_url is not null", rs -> {
+			for (int column = 1; column <= 3; column++) {
+				String url = rs.getString(column);
+				if (url == null || url.isBlank()) {
+					continue;
+				}
+				mark.urls++;
+				String path = uploadPath(url);
+				if (path == null) {
+					mark.unmatched++;
+				} else {
+					mark.referenced.add(ImageBlobStore.hashOf(path).orElse(path));
+				}
+			}
+		});
+		if (mark.unmatched > 0) {
+			log.info("{} of {} image URLs are not under an upload path and were not marked", mark.unmatched, mark.urls);
+		}
+		return mark;
+	}
+
+	/**
+	 * Path of the URL relative to the upload dir: after the current base URL, or else after the
+	 * last "uploads/" segment; null for URLs that point elsewhere.
+	 */
+	String uploadPath(String url) {
+		String path = url.trim();
+		int end = indexOfAny(path, '?', '#');
+		if (end >= 0) {
+			path = path.substring(0, end);
+		}
+		String prefix = uploadBaseUrl + "/";
+		if (path.startsWith(prefix)) {
+			return path.substring(prefix.length());
+		}
+		int segment = path.lastIndexOf("/" + UPLOADS_SEGMENT);
+		if (segment >= 0) {
+			return path.substring(segment + 1 + UPLOADS_SEGMENT.length());
+		}
+		if (path.startsWith(UPLOADS_SEGMENT)) {
+			return path.substring(UPLOADS_SEGMENT.length());
+		}
+		// Blob names are unique wherever they are served from
+		return ImageBlobStore.hashOf(path).isPresent() ? path : null;
+	}
+
+	private static int indexOfAny(String s, char a, char b) {
+		int i = s.indexOf(a);
+		int j = s.indexOf(b);
+		return i < 0 ? j : j < 0 ? i : Math.min(i, j);
+	}
+
+	private static final class Mark {
+		final Set<String> referenced = new HashSet<>();
+		long urls;
+		long unmatched;
+	}
+
+	private static final class OrphanBlob {
+		final Set<String> keys = new HashSet<>();
+		long bytes;
+	}
+
+	private final class Sweep {
+		final Set<String> referenced;
+		final long cutoffMillis;
+		final boolean dryRun;
+		final Map<String, OrphanBlob> orphanBlobs = new LinkedHashMap<>();
+		long scanned;
+		long deleted;
+		long reclaimed;
+		private long windowStart = System.nanoTime();
+		private int inWindow;
+
+		Sweep(Set<String> referenced, long cutoffMillis, boolean dryRun) {
+			this.referenced = referenced;
+			this.cutoffMillis = cutoffMillis;
+			this.dryRun = dryRun;
+		}
+
+		SimpleFileVisitor<Path> visitor(Path root) {
+			Path blobs = root.resolve(ImageBlobStore.BLOB_DIR);
+			return new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					throttle();
+					scanned++;
+					if (!attrs.isRegularFile() || attrs.lastModifiedTime().toMillis() > cutoffMillis) {
+						return FileVisitResult.CONTINUE;
+					}
+					String name = file.getFileName().toString();
+					Matcher blob = BLOB_FILE.matcher(name);
+					if (file.startsWith(blobs) && blob.matches()) {
+						if (!referenced.contains(blob.group(1))) {
+							orphan(blob.group(1), relative(root, file), attrs.size());
+						}
+					} else if (name.endsWith(".pending")) {
+						// Write-behind marker of a blob still waiting for the remote store
+						return FileVisitResult.CONTINUE;
+					} else if (name.startsWith(".") || !referenced.contains(relative(root, file))) {
+						// Stale staging/temp files, and legacy uploads nothing points at
+						delete(file, attrs.size());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e) {
+					log.debug("Skipping {}: {}", file, e.getMessage());
+					return FileVisitResult.CONTINUE;
+				}
+			};
+		}
+
+		void orphan(String hash, String key, long size) {
+			OrphanBlob orphan = orphanBlobs.computeIfAbsent(hash, h -> new OrphanBlob());
+			orphan.keys.add(key);
+			orphan.bytes += size;
+		}
+
+		private void delete(Path file, long size) {
+			if (dryRun) {
+				deleted++;
+				reclaimed += size;
+				return;
+			}
+			try {
+				if (Files.deleteIfExists(file)) {
+					deleted++;
+					reclaimed += size;
+				}
+			} catch (IOException e) {
+				log.warn("Could not delete orphaned upload {}: {}", file, e.getMessage());
+			}
+		}
+
+		private void throttle() {
+			if (maxFilesPerSecond <= 0 || ++inWindow < maxFilesPerSecond) {
+				return;
+			}
+			long elapsed = System.nanoTime() - windowStart;
+			if (elapsed < 1_000_000_000L) {
+				LockSupport.parkNanos(1_000_000_000L - elapsed);
+			}
+			windowStart = System.nanoTime();
+			inWindow = 0;
+		}
+	}
+
+	private static String relative(Path root, Path file) {
+		return root.relativize(file).toString().replace('\\', '/');
+	}
+}
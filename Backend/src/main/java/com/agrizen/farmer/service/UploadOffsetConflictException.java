@@ -0,0 +1,13 @@
+package com.agrizen.farmer.service;
+
+/**
+ * A chunked upload step does not fit the bytes received so far: a chunk past the upload
+ * offset, or completing before every byte arrived. Answered with 409; the client reads the
+ * upload status and resumes from its offset.
+ */
+public class UploadOffsetConflictException extends RuntimeException {
+
+	public UploadOffsetConflictException(String message) {
+		super(message);
+	}
+}
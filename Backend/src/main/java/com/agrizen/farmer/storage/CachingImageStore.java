@@ -0,0 +1,291 @@
+package com.agrizen.farmer.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local disk cache in front of a remote {@link ImageStore}.
+ * <ul>
+ *   <li>Reads are served from the cache, fetching from the remote store on a miss.</li>
+ *   <li>Writes land in the cache first; with write-behind enabled the upload to the remote
+ *   store happens on background threads through a bounded queue. When the queue is full the
+ *   key waits in an overflow set and workers queue it as room frees up, so a caller never
+ *   uploads, or waits out remote retries, on its own thread. Putting a key that is still
+ *   pending is a no-op beyond the local copy; keys are content hashes.</li>
+ *   <li>A pending write is also marked by a hidden {@code .<name>.pending} file next to the
+ *   cached copy, so uploads that were still queued when the process stopped are resumed
+ *   at startup.</li>
+ *   <li>Files cached by this process are evicted least-recently-used beyond {@code maxBytes};
+ *   pending writes are never evicted.</li>
+ * </ul>
+ */
+public class CachingImageStore implements ImageStore {
+
+	private static final Logger log = LoggerFactory.getLogger(CachingImageStore.class);
+	private static final String PENDING_SUFFIX = ".pending";
+
+	private final LocalImageStore cache;
+	private final ImageStore remote;
+	private final boolean writeBehind;
+	private final long maxBytes;
+	private final int maxAttempts;
+	private final BlockingQueue<String> queue;
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
+	// Pending keys that did not fit in the queue; their bytes are already on disk
+	private final Set<String> overflow = ConcurrentHashMap.newKeySet();
+
+	// Guarded by "this": cached keys in access order with their sizes
+	private final LinkedHashMap<String, Long> cached = new LinkedHashMap<>(1024, 0.75f, true);
+	private long cachedBytes;
+
+	private volatile boolean running = true;
+
+	public CachingImageStore(LocalImageStore cache, ImageStore remote, boolean writeBehind,
+	                         int queueCapacity, int threads, int maxAttempts, long maxBytes) {
+		this.cache = cache;
+		this.remote = remote;
+		this.writeBehind = writeBehind;
+		this.maxBytes = maxBytes;
+		this.maxAttempts = maxAttempts;
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+		if (writeBehind) {
+			for (int i = 1; i <= threads; i++) {
+				Thread worker = new Thread(this::drain, "image-write-behind-" + i);
+				worker.setDaemon(true);
+				worker.start();
+			}
+			resumePending();
+		}
+	}
+
+	@Override
+	public void put(String key, Path file) throws IOException {
+		cache.put(key, file);
+		Path local = cache.resolve(key);
+		if (!writeBehind) {
+			remote.put(key, local);
+			remember(key, Files.size(local));
+			return;
+		}
+		try {
+			Files.createFile(marker(local));
+		} catch (FileAlreadyExistsException e) {
+			// Still pending from an earlier put of the same content
+		}
+		remember(key, Files.size(local));
+		if (pending.add(key)) {
+			enqueue(key);
+		}
+	}
+
+	@Override
+	public boolean exists(String key) throws IOException {
+		if (cache.exists(key)) {
+			return true;
+		}
+		try {
+			return remote.exists(key);
+		} catch (IOException e) {
+			if (!writeBehind) {
+				throw e;
+			}
+			// Keys are content hashes, so writing again is harmless and gets queued like any other write
+			log.debug("Remote existence check for {} failed: {}", key, e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public Optional<Path> localFile(String key) throws IOException {
+		Optional<Path> hit = cache.localFile(key);
+		if (hit.isPresent()) {
+			touch(key);
+			return hit;
+		}
+		Path target = cache.resolve(key);
+		Files.createDirectories(target.getParent());
+		if (!remote.copyTo(key, target)) {
+			return Optional.empty();
+		}
+		remember(key, Files.size(target));
+		return Optional.of(target);
+	}
+
+	@Override
+	public boolean copyTo(String key, Path target) throws IOException {
+		return cache.copyTo(key, target) || remote.copyTo(key, target);
+	}
+
+	@Override
+	public long delete(String key) throws IOException {
+		queue.remove(key);
+		overflow.remove(key);
+		pending.remove(key);
+		Path local = cache.resolve(key);
+		Files.deleteIfExists(marker(local));
+		forget(key);
+		long localBytes = cache.delete(key);
+		long remoteBytes = remote.delete(key);
+		return Math.max(localBytes, remoteBytes);
+	}
+
+	public void shutdown() {
+		running = false;
+	}
+
+	private void drain() {
+		while (running) {
+			try {
+				String key = queue.poll(1, TimeUnit.SECONDS);
+				if (key != null) {
+					upload(key);
+				}
+				refill();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void enqueue(String key) {
+		if (!queue.offer(key)) {
+			overflow.add(key);
+		}
+	}
+
+	// Moves overflowed keys into the queue while it has room
+	private void refill() {
+		for (Iterator<String> it = overflow.iterator(); it.hasNext(); ) {
+			String key = it.next();
+			if (!queue.offer(key)) {
+				return;
+			}
+			it.remove();
+		}
+	}
+
+	private void upload(String key) {
+		Path local = cache.resolve(key);
+		for (int attempt = 1; attempt <= maxAttempts && pending.contains(key); attempt++) {
+			try {
+				remote.put(key, local);
+				pending.remove(key);
+				Files.deleteIfExists(marker(local));
+				return;
+			} catch (IOException e) {
+				log.warn("Write-behind of {} failed (attempt {}/{}): {}", key, attempt, maxAttempts, e.getMessage());
+				if (attempt == maxAttempts) {
+					break;
+				}
+				try {
+					Thread.sleep(Math.min(30_000L, 500L << attempt));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		if (pending.contains(key)) {
+			// The marker stays, so the write is retried after the next restart
+			log.error("Giving up on write-behind of {} for now; the cached copy is kept", key);
+		}
+	}
+
+	private void resumePending() {
+		Path root = cache.root();
+		if (!Files.isDirectory(root)) {
+			return;
+		}
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String name = file.getFileName().toString();
+					if (name.startsWith(".") && name.endsWith(PENDING_SUFFIX)) {
+						Path cachedFile = file.resolveSibling(name.substring(1, name.length() - PENDING_SUFFIX.length()));
+						String key = root.relativize(cachedFile).toString().replace('\\', '/');
+						if (Files.isRegularFile(cachedFile) && pending.add(key)) {
+							enqueue(key);
+						}
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			log.warn("Could not scan for pending image writes: {}", e.getMessage());
+		}
+		if (!pending.isEmpty()) {
+			log.info("Resuming {} pending image writes", pending.size());
+		}
+	}
+
+	private static Path marker(Path local) {
+		return local.resolveSibling("." + local.getFileName() + PENDING_SUFFIX);
+	}
+
+	private synchronized void touch(String key) {
+		cached.get(key);
+	}
+
+	private synchronized void forget(String key) {
+		Long size = cached.remove(key);
+		if (size != null) {
+			cachedBytes -= size;
+		}
+	}
+
+	private void remember(String key, long size) {
+		synchronized (this) {
+			Long old = cached.put(key, size);
+			cachedBytes += size - (old == null ? 0 : old);
+		}
+		evict();
+	}
+
+	private void evict() {
+		while (true) {
+			String victim = null;
+			synchronized (this) {
+				if (cachedBytes <= maxBytes) {
+					return;
+				}
+				Iterator<Map.Entry<String, Long>> it = cached.entrySet().iterator();
+				while (it.hasNext()) {
+					Map.Entry<String, Long> eldest = it.next();
+					if (!pending.contains(eldest.getKey())) {
+						victim = eldest.getKey();
+						cachedBytes -= eldest.getValue();
+						it.remove();
+						break;
+					}
+				}
+			}
+			if (victim == null) {
+				return;
+			}
+			try {
+				cache.delete(victim);
+			} catch (IOException e) {
+				log.debug("Could not evict cached image {}: {}", victim, e.getMessage());
+			}
+		}
+	}
+}
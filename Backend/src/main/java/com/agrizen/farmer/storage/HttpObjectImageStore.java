@@ -0,0 +1,120 @@
+package com.agrizen.farmer.storage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Objects on an HTTP object store addressed as {@code <base-url>/<key>}: PUT to write,
+ * GET to read, HEAD to probe, DELETE to remove. S3-compatible gateways with anonymous
+ * or pre-authorized buckets, nginx with WebDAV, or any small directory server that
+ * accepts PUT satisfy this. Keeps nothing on local disk; wrap it in
+ * {@link CachingImageStore} to serve from it.
+ */
+public class HttpObjectImageStore implements ImageStore {
+
+	private final HttpClient client;
+	private final String baseUrl;
+	private final Duration timeout;
+	private final String authorization;
+
+	public HttpObjectImageStore(String baseUrl, Duration timeout, String authorization) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		this.timeout = timeout;
+		this.authorization = authorization == null || authorization.isBlank() ? null : authorization;
+		this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+	}
+
+	@Override
+	public void put(String key, Path file) throws IOException {
+		HttpResponse<Void> response = send(request(key)
+				.PUT(HttpRequest.BodyPublishers.ofFile(file)), HttpResponse.BodyHandlers.discarding());
+		if (response.statusCode() / 100 != 2) {
+			throw new IOException("PUT " + key + " failed with HTTP " + response.statusCode());
+		}
+	}
+
+	@Override
+	public boolean exists(String key) throws IOException {
+		return head(key) >= 0;
+	}
+
+	@Override
+	public Optional<Path> localFile(String key) {
+		return Optional.empty();
+	}
+
+	@Override
+	public boolean copyTo(String key, Path target) throws IOException {
+		// Unique per call: concurrent misses for one key each download to their own file and the
+		// last rename wins, which is harmless because keys are content hashes
+		Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".download");
+		try {
+			HttpResponse<Path> response = send(request(key).GET(), HttpResponse.BodyHandlers.ofFile(temp));
+			if (response.statusCode() == 404) {
+				return false;
+			}
+			if (response.statusCode() / 100 != 2) {
+				throw new IOException("GET " + key + " failed with HTTP " + response.statusCode());
+			}
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			return true;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	@Override
+	public long delete(String key) throws IOException {
+		long size = head(key);
+		if (size < 0) {
+			return -1;
+		}
+		HttpResponse<Void> response = send(request(key).DELETE(), HttpResponse.BodyHandlers.discarding());
+		if (response.statusCode() == 404) {
+			return -1;
+		}
+		if (response.statusCode() / 100 != 2) {
+			throw new IOException("DELETE " + key + " failed with HTTP " + response.statusCode());
+		}
+		return size;
+	}
+
+	// Content length of the object, or -1 if it does not exist
+	private long head(String key) throws IOException {
+		HttpResponse<Void> response = send(request(key)
+				.method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+		if (response.statusCode() == 404) {
+			return -1;
+		}
+		if (response.statusCode() / 100 != 2) {
+			throw new IOException("HEAD " + key + " failed with HTTP " + response.statusCode());
+		}
+		return response.headers().firstValueAsLong("Content-Length").orElse(0L);
+	}
+
+	private HttpRequest.Builder request(String key) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/" + key)).timeout(timeout);
+		if (authorization != null) {
+			builder.header("Authorization", authorization);
+		}
+		return builder;
+	}
+
+	private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException {
+		try {
+			return client.send(request.build(), handler);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		}
+	}
+}
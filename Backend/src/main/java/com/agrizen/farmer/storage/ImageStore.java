@@ -0,0 +1,39 @@
+package com.agrizen.farmer.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where uploaded image bytes live. Keys are '/'-separated paths relative to the upload
+ * root, e.g. {@code blobs/ab/cd/<sha256>.jpg}; the blob store derives them from content
+ * hashes, which spreads objects evenly over two levels of 256 directories each.
+ * Objects are immutable: a key is written once and later only deleted.
+ */
+public interface ImageStore {
+
+	/**
+	 * Store {@code file} under {@code key}. The file may be moved or left in place;
+	 * callers delete it afterwards if it still exists.
+	 */
+	void put(String key, Path file) throws IOException;
+
+	boolean exists(String key) throws IOException;
+
+	/**
+	 * A readable local file holding the object, if this backend keeps one on disk.
+	 */
+	Optional<Path> localFile(String key) throws IOException;
+
+	/**
+	 * Copy the object to {@code target}, replacing it.
+	 *
+	 * @return false if nothing is stored under the key
+	 */
+	boolean copyTo(String key, Path target) throws IOException;
+
+	/**
+	 * @return bytes freed, or -1 if nothing was stored under the key
+	 */
+	long delete(String key) throws IOException;
+}
@@ -0,0 +1,84 @@
+package com.agrizen.farmer.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Objects as plain files under one root directory, laid out exactly as their keys.
+ */
+public class LocalImageStore implements ImageStore {
+
+	private final Path root;
+
+	public LocalImageStore(Path root) {
+		this.root = root.toAbsolutePath().normalize();
+	}
+
+	@Override
+	public void put(String key, Path file) throws IOException {
+		Path target = resolve(key);
+		Files.createDirectories(target.getParent());
+		try {
+			Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			// Different filesystem: copy to a hidden sibling, then rename into place
+			Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+			try {
+				Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Override
+	public boolean exists(String key) {
+		return Files.isRegularFile(resolve(key));
+	}
+
+	@Override
+	public Optional<Path> localFile(String key) {
+		Path file = resolve(key);
+		return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+	}
+
+	@Override
+	public boolean copyTo(String key, Path target) throws IOException {
+		try {
+			Files.copy(resolve(key), target, StandardCopyOption.REPLACE_EXISTING);
+			return true;
+		} catch (NoSuchFileException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public long delete(String key) throws IOException {
+		Path file = resolve(key);
+		try {
+			long size = Files.size(file);
+			return Files.deleteIfExists(file) ? size : -1;
+		} catch (NoSuchFileException e) {
+			return -1;
+		}
+	}
+
+	public Path root() {
+		return root;
+	}
+
+	Path resolve(String key) {
+		Path file = root.resolve(key).normalize();
+		if (!file.startsWith(root) || file.equals(root)) {
+			throw new IllegalArgumentException("Invalid image key: " + key);
+		}
+		return file;
+	}
+}
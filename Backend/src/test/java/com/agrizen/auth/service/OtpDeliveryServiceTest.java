@@ -0,0 +1,236 @@
+package com.agrizen.auth.service;
+
+import com.agrizen.auth.dto.OtpDeliveryStatus;
+import com.agrizen.auth.dto.OtpDeliveryStatus.State;
+import com.agrizen.auth.service.OtpDeliveryService.Channel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OtpDeliveryServiceTest {
+
+	private static final int MAX_ATTEMPTS = 3;
+	private static final int BREAKER_THRESHOLD = 3;
+	private static final String RECIPIENT = "buyer@example.com";
+
+	private StubMailSender mail;
+	private OtpDeliveryService delivery;
+
+	@BeforeEach
+	void setUp() {
+		mail = new StubMailSender();
+		delivery = service(10);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		mail.unblock();
+		delivery.destroy();
+	}
+
+	@Test
+	void messageIsSentInTheBackground() {
+		String id = enqueue("12345");
+
+		OtpDeliveryStatus status = await(id, s -> s.state() == State.SENT);
+
+		assertThat(status.attempts()).isEqualTo(1);
+		assertThat(status.lastError()).isNull();
+		assertThat(mail.sent).singleElement().satisfies(m -> {
+			assertThat(m.getTo()).containsExactly(RECIPIENT);
+			assertThat(m.getText()).contains("12345");
+		});
+	}
+
+	@Test
+	void transientFailuresAreRetriedUntilTheMessageGoesOut() {
+		mail.failNext(2, () -> new MailSendException("Connection refused"));
+
+		String id = enqueue("12345");
+
+		OtpDeliveryStatus retrying = await(id, s -> s.state() == State.RETRYING);
+		assertThat(retrying.lastError()).isEqualTo("Connection refused");
+		OtpDeliveryStatus sent = await(id, s -> s.state() == State.SENT);
+		assertThat(sent.attempts()).isEqualTo(3);
+		assertThat(sent.lastError()).isNull();
+		assertThat(mail.sent).hasSize(1);
+	}
+
+	@Test
+	void deliveryFailsAfterMaxAttempts() {
+		mail.failNext(Integer.MAX_VALUE, () -> new MailSendException("Connection refused"));
+
+		OtpDeliveryStatus status = await(enqueue("12345"), s -> s.state() == State.FAILED);
+
+		assertThat(status.attempts()).isEqualTo(MAX_ATTEMPTS);
+		assertThat(status.lastError()).isEqualTo("Connection refused");
+	}
+
+	@Test
+	void badRecipientIsNotRetriedAndDoesNotTripTheBreaker() {
+		mail.failNext(Integer.MAX_VALUE, () -> new MailParseException("Illegal address"));
+
+		for (int i = 0; i < BREAKER_THRESHOLD; i++) {
+			OtpDeliveryStatus status = await(enqueue("12345"), s -> s.state() == State.FAILED);
+			assertThat(status.attempts()).isEqualTo(1);
+		}
+		assertThat(delivery.breakerState(Channel.EMAIL)).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void breakerOpensAfterConsecutiveFailuresAndClosesAfterASuccessfulTrial() throws InterruptedException {
+		// One failed delivery of MAX_ATTEMPTS attempts reaches the threshold
+		mail.failNext(BREAKER_THRESHOLD, () -> new MailSendException("Connection refused"));
+		await(enqueue("11111"), s -> s.state() == State.FAILED);
+		assertThat(delivery.breakerState(Channel.EMAIL)).isEqualTo(CircuitBreaker.State.OPEN);
+
+		// While open, a new delivery waits without spending attempts or calling the server
+		String id = enqueue("22222");
+		Thread.sleep(300);
+		assertThat(delivery.status(id).orElseThrow().attempts()).isZero();
+		assertThat(mail.calls.get()).isEqualTo(BREAKER_THRESHOLD);
+
+		OtpDeliveryStatus status = await(id, s -> s.state() == State.SENT);
+		assertThat(status.attempts()).isEqualTo(1);
+		assertThat(delivery.breakerState(Channel.EMAIL)).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void expiredOtpIsNotDelivered() {
+		String id = delivery.enqueue(Channel.EMAIL, RECIPIENT, "12345", System.currentTimeMillis() - 1).orElseThrow();
+
+		OtpDeliveryStatus status = await(id, s -> s.state() == State.FAILED);
+
+		assertThat(status.attempts()).isZero();
+		assertThat(mail.calls.get()).isZero();
+	}
+
+	@Test
+	void fullOutboxIsRefusedUntilADeliveryFinishes() throws InterruptedException {
+		delivery.destroy();
+		delivery = service(2);
+		mail.block();
+		String first = enqueue("11111");
+		String second = enqueue("22222");
+
+		assertThatThrownBy(() -> enqueue("33333"))
+				.isInstanceOfSatisfying(OtpOutboxFullException.class, e -> assertThat(e.getRetryAfterSeconds()).isPositive());
+
+		mail.unblock();
+		await(first, s -> s.state() == State.SENT);
+		await(second, s -> s.state() == State.SENT);
+		await(enqueue("33333"), s -> s.state() == State.SENT);
+	}
+
+	@Test
+	void errorFromTheSenderFailsTheDeliveryAndFreesItsSlot() throws InterruptedException {
+		delivery.destroy();
+		delivery = service(1);
+		mail.failNext(1, () -> new NoClassDefFoundError("jakarta/mail/Transport"));
+
+		OtpDeliveryStatus status = await(enqueue("11111"), s -> s.state() == State.FAILED);
+
+		assertThat(status.lastError()).isNotNull();
+		// Capacity 1: this would be refused if the failed delivery still held its slot
+		await(enqueue("22222"), s -> s.state() == State.SENT);
+	}
+
+	private OtpDeliveryService service(int queueCapacity) {
+		OtpDeliveryService service = new OtpDeliveryService();
+		ReflectionTestUtils.setField(service, "mailSender", mail);
+		ReflectionTestUtils.setField(service, "twilioAccountSid", "");
+		ReflectionTestUtils.setField(service, "twilioAuthToken", "");
+		ReflectionTestUtils.setField(service, "twilioPhoneNumber", "");
+		ReflectionTestUtils.setField(service, "threads", 2);
+		ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+		ReflectionTestUtils.setField(service, "maxAttempts", MAX_ATTEMPTS);
+		ReflectionTestUtils.setField(service, "initialBackoffMs", 50L);
+		ReflectionTestUtils.setField(service, "breakerFailureThreshold", BREAKER_THRESHOLD);
+		ReflectionTestUtils.setField(service, "breakerOpenSeconds", 1L);
+		ReflectionTestUtils.setField(service, "retentionSeconds", 900L);
+		service.afterPropertiesSet();
+		return service;
+	}
+
+	private String enqueue(String code) {
+		return delivery.enqueue(Channel.EMAIL, RECIPIENT, code, System.currentTimeMillis() + 60_000).orElseThrow();
+	}
+
+	private OtpDeliveryStatus await(String id, Predicate<OtpDeliveryStatus> condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (true) {
+			OtpDeliveryStatus status = delivery.status(id).orElseThrow();
+			if (condition.test(status)) {
+				return status;
+			}
+			assertThat(System.nanoTime()).as("delivery %s stuck at %s", id, status).isLessThan(deadline);
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Records messages instead of talking SMTP; can fail or block the next calls.
+	 */
+	private static final class StubMailSender extends JavaMailSenderImpl {
+
+		final Queue<SimpleMailMessage> sent = new ConcurrentLinkedQueue<>();
+		final AtomicInteger calls = new AtomicInteger();
+		private final AtomicInteger failures = new AtomicInteger();
+		private volatile Supplier<Throwable> failure;
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+
+		void failNext(int count, Supplier<Throwable> failure) {
+			this.failure = failure;
+			failures.set(count);
+		}
+
+		void block() {
+			gate = new CountDownLatch(1);
+		}
+
+		void unblock() {
+			gate.countDown();
+		}
+
+		@Override
+		public void send(SimpleMailMessage... messages) {
+			calls.incrementAndGet();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MailSendException("Interrupted");
+			}
+			if (failures.getAndDecrement() > 0) {
+				Throwable t = failure.get();
+				if (t instanceof Error error) {
+					throw error;
+				}
+				throw (RuntimeException) t;
+			}
+			sent.addAll(List.of(messages));
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.agrizen.auth.service;
+
+import com.agrizen.auth.service.OtpDeliveryService.Channel;
+import com.agrizen.auth.store.InMemoryOtpStore;
+import com.agrizen.auth.store.StoredOtp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OtpServiceTest {
+
+	private static final int THREADS = 64;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final String EMAIL = "buyer@example.com";
+
+	private OtpDeliveryService delivery;
+	private OtpService otpService;
+	private ExecutorService pool;
+
+	@BeforeEach
+	void setUp() {
+		delivery = mock(OtpDeliveryService.class);
+		when(delivery.isConfigured(any())).thenReturn(true);
+		when(delivery.enqueue(any(), anyString(), anyString(), anyLong())).thenReturn(Optional.of("delivery-1"));
+		otpService = new OtpService(new InMemoryOtpStore(), delivery);
+		ReflectionTestUtils.setField(otpService, "maxAttempts", MAX_ATTEMPTS);
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void correctCodeSubmittedByManyThreadsIsConsumedExactlyOnce() throws Exception {
+		String code = issue();
+		String key = OtpService.keyFor("email", EMAIL, null);
+
+		List<Optional<StoredOtp>> results = all(() -> otpService.consume(key, code));
+
+		assertThat(results).filteredOn(Optional::isPresent).hasSize(1);
+		StoredOtp consumed = results.stream().flatMap(Optional::stream).findFirst().orElseThrow();
+		assertThat(consumed.email()).isEqualTo(EMAIL);
+		assertThat(consumed.role()).isEqualTo("BUYER");
+		assertThat(otpService.consume(key, code)).isEmpty();
+	}
+
+	@Test
+	void maxAttemptsWrongCodesInvalidateTheOtp() {
+		String code = issue();
+		String key = OtpService.keyFor("email", EMAIL, null);
+
+		for (int i = 0; i < MAX_ATTEMPTS; i++) {
+			assertThat(otpService.consume(key, wrong(code))).isEmpty();
+		}
+
+		assertThat(otpService.consume(key, code)).isEmpty();
+	}
+
+	@Test
+	void correctCodeStillWorksBeforeTheLastAttempt() {
+		String code = issue();
+		String key = OtpService.keyFor("email", EMAIL, null);
+
+		for (int i = 0; i < MAX_ATTEMPTS - 1; i++) {
+			assertThat(otpService.consume(key, wrong(code))).isEmpty();
+		}
+
+		assertThat(otpService.consume(key, code)).isPresent();
+	}
+
+	@Test
+	void concurrentWrongGuessesAreAllCounted() throws Exception {
+		String code = issue();
+		String key = OtpService.keyFor("email", EMAIL, null);
+
+		// Lost updates to the attempt counter would leave the OTP guessable afterwards
+		all(() -> otpService.consume(key, wrong(code)));
+
+		assertThat(otpService.consume(key, code)).isEmpty();
+	}
+
+	@Test
+	void resendReplacesTheEarlierCode() {
+		String first = issue();
+		String second = issue();
+		String key = OtpService.keyFor("email", EMAIL, null);
+
+		if (!first.equals(second)) {
+			assertThat(otpService.consume(key, first)).isEmpty();
+		}
+		assertThat(otpService.consume(key, second)).isPresent();
+	}
+
+	private String issue() {
+		assertThat(otpService.sendOtpViaEmail(EMAIL, "BUYER")).contains("delivery-1");
+		ArgumentCaptor<String> code = ArgumentCaptor.forClass(String.class);
+		verify(delivery, atLeastOnce()).enqueue(eq(Channel.EMAIL), eq(EMAIL), code.capture(), anyLong());
+		return code.getValue();
+	}
+
+	private static String wrong(String code) {
+		char last = code.charAt(code.length() - 1);
+		return code.substring(0, code.length() - 1) + (char) ('0' + (last - '0' + 1) % 10);
+	}
+
+	// Runs the call on every pool thread at once
+	private <T> List<T> all(Callable<T> call) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<T>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				return call.call();
+			}));
+		}
+		start.countDown();
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : futures) {
+			results.add(future.get(30, TimeUnit.SECONDS));
+		}
+		return results;
+	}
+}
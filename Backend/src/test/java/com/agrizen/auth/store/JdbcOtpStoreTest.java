@@ -0,0 +1,165 @@
+package com.agrizen.auth.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two store instances with their own connections to one shared H2 database, standing in for
+ * two backend replicas behind a load balancer.
+ */
+class JdbcOtpStoreTest {
+
+	private static final int THREADS = 32;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final String KEY = "email:buyer@example.com";
+
+	private String url;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createSchema() {
+		url = "jdbc:h2:mem:otp-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		jdbcTemplate = new JdbcTemplate(dataSource());
+		// Same shape as the table Hibernate creates from OtpCode
+		jdbcTemplate.execute("create table otp_codes (otp_key varchar(191) primary key, code varchar(10) not null, "
+				+ "email varchar(255), mobile_number varchar(255), role varchar(20), expires_at bigint not null, "
+				+ "failed_attempts integer not null)");
+		jdbcTemplate.execute("create index idx_otp_codes_expires_at on otp_codes (expires_at)");
+	}
+
+	@AfterEach
+	void dropDatabase() {
+		jdbcTemplate.execute("shutdown");
+	}
+
+	@ParameterizedTest(name = "near-cache size {0}")
+	@ValueSource(ints = { 0, 100 })
+	void otpIssuedThroughOneInstanceIsConsumedThroughTheOther(int nearCacheSize) {
+		OtpStore nodeA = store(nearCacheSize);
+		OtpStore nodeB = store(nearCacheSize);
+		StoredOtp otp = otp("12345", 60_000);
+
+		nodeA.put(KEY, otp);
+
+		assertThat(nodeB.consume(KEY, "12345", MAX_ATTEMPTS)).contains(otp);
+		assertThat(nodeA.consume(KEY, "12345", MAX_ATTEMPTS)).isEmpty();
+		assertThat(nodeB.consume(KEY, "12345", MAX_ATTEMPTS)).isEmpty();
+	}
+
+	@ParameterizedTest(name = "near-cache size {0}")
+	@ValueSource(ints = { 0, 100 })
+	void concurrentConsumeThroughBothInstancesSucceedsOnce(int nearCacheSize) throws Exception {
+		OtpStore nodeA = store(nearCacheSize);
+		OtpStore nodeB = store(nearCacheSize);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			// Repeated so the interleavings differ between rounds
+			for (int round = 0; round < 20; round++) {
+				nodeA.put(KEY, otp("12345", 60_000));
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<Optional<StoredOtp>>> results = new ArrayList<>();
+				for (int i = 0; i < THREADS; i++) {
+					OtpStore node = i % 2 == 0 ? nodeA : nodeB;
+					results.add(pool.submit(() -> {
+						start.await();
+						return node.consume(KEY, "12345", MAX_ATTEMPTS);
+					}));
+				}
+				start.countDown();
+				int succeeded = 0;
+				for (Future<Optional<StoredOtp>> result : results) {
+					succeeded += result.get(30, TimeUnit.SECONDS).isPresent() ? 1 : 0;
+				}
+				assertThat(succeeded).as("round %d", round).isEqualTo(1);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@ParameterizedTest(name = "near-cache size {0}")
+	@ValueSource(ints = { 0, 100 })
+	void wrongCodesThroughEitherInstanceCountTowardsTheLimit(int nearCacheSize) {
+		OtpStore nodeA = store(nearCacheSize);
+		OtpStore nodeB = store(nearCacheSize);
+		nodeA.put(KEY, otp("12345", 60_000));
+
+		for (int i = 0; i < MAX_ATTEMPTS; i++) {
+			OtpStore node = i % 2 == 0 ? nodeA : nodeB;
+			assertThat(node.consume(KEY, "54321", MAX_ATTEMPTS)).isEmpty();
+		}
+
+		assertThat(nodeA.consume(KEY, "12345", MAX_ATTEMPTS)).isEmpty();
+		assertThat(rows()).isZero();
+	}
+
+	@Test
+	void resendThroughTheOtherInstanceInvalidatesTheNearCachedCode() {
+		OtpStore nodeA = store(100);
+		OtpStore nodeB = store(100);
+		nodeA.put(KEY, otp("12345", 60_000));
+		StoredOtp resent = otp("67890", 60_000);
+		nodeB.put(KEY, resent);
+
+		assertThat(nodeA.consume(KEY, "12345", MAX_ATTEMPTS)).isEmpty();
+		assertThat(nodeA.consume(KEY, "67890", MAX_ATTEMPTS)).contains(resent);
+	}
+
+	@Test
+	void expiredOtpIsNotConsumed() {
+		OtpStore nodeA = store(100);
+		OtpStore nodeB = store(0);
+		nodeA.put(KEY, otp("12345", -1_000));
+
+		assertThat(nodeB.consume(KEY, "12345", MAX_ATTEMPTS)).isEmpty();
+		assertThat(nodeA.consume(KEY, "12345", MAX_ATTEMPTS)).isEmpty();
+	}
+
+	@Test
+	void purgeRemovesExpiredRowsInBatchesAndKeepsLiveOnes() {
+		OtpStore node = new JdbcOtpStore(dataSource(), 500, 0);
+		for (int i = 0; i < 1_200; i++) {
+			node.put("email:expired-" + i + "@example.com", otp("12345", -1_000));
+		}
+		node.put(KEY, otp("12345", 60_000));
+
+		assertThat(node.purgeExpired()).isEqualTo(1_200);
+		assertThat(rows()).isEqualTo(1);
+		assertThat(node.consume(KEY, "12345", MAX_ATTEMPTS)).isPresent();
+	}
+
+	private OtpStore store(int nearCacheSize) {
+		return new JdbcOtpStore(dataSource(), 500, nearCacheSize);
+	}
+
+	// A separate DataSource per store: each instance opens its own connections
+	private DataSource dataSource() {
+		return new DriverManagerDataSource(url, "sa", "");
+	}
+
+	private int rows() {
+		return jdbcTemplate.queryForObject("select count(*) from otp_codes", Integer.class);
+	}
+
+	private static StoredOtp otp(String code, long ttlMillis) {
+		return new StoredOtp(code, "buyer@example.com", null, "BUYER", System.currentTimeMillis() + ttlMillis);
+	}
+}
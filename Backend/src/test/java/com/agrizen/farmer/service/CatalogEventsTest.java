@@ -0,0 +1,93 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogEventsTest {
+
+	private final List<String> calls = new ArrayList<>();
+	private CatalogVersion version;
+	private CatalogEvents events;
+
+	@BeforeEach
+	void setUp() {
+		CatalogListener failing = new CatalogListener() {
+			@Override
+			public void listingSaved(CropListing previous, CropListing current) {
+				calls.add("failing");
+				throw new IllegalStateException("index is broken");
+			}
+
+			@Override
+			public void listingDeleted(CropListing removed) {
+				calls.add("failing");
+				throw new IllegalStateException("index is broken");
+			}
+		};
+		CatalogListener recorder = new CatalogListener() {
+			@Override
+			public void listingSaved(CropListing previous, CropListing current) {
+				calls.add("recorder");
+			}
+
+			@Override
+			public void listingDeleted(CropListing removed) {
+				calls.add("recorder");
+			}
+		};
+		CatalogCache cache = new CatalogCache() {
+			@Override
+			public void listingSaved(CropListing previous, CropListing current) {
+				calls.add("cache");
+				super.listingSaved(previous, current);
+			}
+
+			@Override
+			public void listingDeleted(CropListing removed) {
+				calls.add("cache");
+				super.listingDeleted(removed);
+			}
+		};
+		version = new CatalogVersion() {
+			@Override
+			public void bump() {
+				calls.add("version");
+				super.bump();
+			}
+		};
+		// Registration order is not notification order
+		events = new CatalogEvents(List.of(failing, version, recorder, cache));
+	}
+
+	@Test
+	void cacheAndVersionRunFirstAndAFailingListenerDoesNotStopTheRest() {
+		String etag = version.etag();
+
+		events.saved(null, listing());
+
+		assertThat(calls.subList(0, 2)).containsExactly("cache", "version");
+		assertThat(calls).containsExactlyInAnyOrder("cache", "version", "failing", "recorder");
+		assertThat(version.etag()).isNotEqualTo(etag);
+	}
+
+	@Test
+	void deleteIsIsolatedTheSameWay() {
+		events.deleted(listing());
+
+		assertThat(calls.subList(0, 2)).containsExactly("cache", "version");
+		assertThat(calls).containsExactlyInAnyOrder("cache", "version", "failing", "recorder");
+	}
+
+	private static CropListing listing() {
+		CropListing listing = new CropListing();
+		listing.setId(7L);
+		listing.setCropName("Tomato");
+		return listing;
+	}
+}
@@ -0,0 +1,194 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogFacetIndexTest {
+
+	private static final String[] TYPES = {"Tomato", "Potato", "Onion", "Rice"};
+	private static final String[] CATEGORIES = {"NEW_ARRIVAL", "SEASONAL", null};
+	private static final String[] LOCATIONS = {"Pune", "Nashik", "Nagpur", " ", null};
+	private static final int[] PRICES = {20, 75, 120, 300, 800, 1500};
+
+	private CatalogFacetIndex index;
+	// The brute-force model: what the index should have seen
+	private final Map<Long, CropListing> listings = new TreeMap<>();
+
+	@BeforeEach
+	void setUp() {
+		index = new CatalogFacetIndex();
+	}
+
+	@Test
+	void matchesBruteForceThroughRandomSavesUpdatesAndDeletes() {
+		Random random = new Random(42);
+		for (int step = 1; step <= 600; step++) {
+			long id = 1 + random.nextInt(80);
+			if (listings.containsKey(id) && random.nextInt(4) == 0) {
+				delete(id);
+			} else {
+				save(id, TYPES[random.nextInt(TYPES.length)], CATEGORIES[random.nextInt(CATEGORIES.length)],
+						LOCATIONS[random.nextInt(LOCATIONS.length)], PRICES[random.nextInt(PRICES.length)]);
+			}
+			if (step % 20 == 0) {
+				assertMatchesBruteForce(Map.of());
+				assertMatchesBruteForce(Map.of(CatalogFacetIndex.CROP_TYPE, List.of(pick(random, TYPES))));
+				assertMatchesBruteForce(Map.of(
+						CatalogFacetIndex.CROP_TYPE, List.of(pick(random, TYPES), pick(random, TYPES).toUpperCase(Locale.ROOT)),
+						CatalogFacetIndex.LOCATION, List.of("pune", "Nagpur")));
+				assertMatchesBruteForce(Map.of(
+						CatalogFacetIndex.CATEGORY, List.of("PRODUCTS", "seasonal"),
+						CatalogFacetIndex.PRICE_BAND, List.of("100-250", "1000+"),
+						CatalogFacetIndex.LOCATION, List.of("Nashik", "Nowhere")));
+			}
+		}
+	}
+
+	@Test
+	void deletedOrdinalsAreReused() {
+		save(1, "Tomato", null, "Pune", 20);
+		save(2, "Potato", null, "Pune", 20);
+		save(3, "Onion", null, "Pune", 20);
+		delete(2);
+		save(4, "Rice", null, "Nashik", 20);
+		// An update frees its old ordinal and takes the free one back
+		save(1, "Tomato", null, "Nagpur", 20);
+
+		assertThat(ReflectionTestUtils.getField(index, "nextOrdinal")).isEqualTo(3);
+		assertMatchesBruteForce(Map.of());
+		assertThat(index.query(Map.of(CatalogFacetIndex.CROP_TYPE, List.of("Potato")), 0, 10).ids()).isEmpty();
+		assertThat(index.query(Map.of(CatalogFacetIndex.CROP_TYPE, List.of("Rice")), 0, 10).ids()).containsExactly(4L);
+	}
+
+	@Test
+	void valueDisappearsWithItsLastListing() {
+		save(1, "Tomato", null, "Pune", 20);
+		save(2, "Tomato", null, "Nashik", 20);
+		save(3, "Potato", null, "Nashik", 20);
+
+		delete(1);
+		save(2, "Tomato", null, "Nagpur", 20);
+
+		Map<String, Integer> locations = index.query(Map.of(), 0, 10).counts().get(CatalogFacetIndex.LOCATION);
+		assertThat(locations).containsOnlyKeys("Nashik", "Nagpur");
+		assertThat(index.query(Map.of(CatalogFacetIndex.LOCATION, List.of("Pune")), 0, 10).total()).isZero();
+		assertMatchesBruteForce(Map.of());
+	}
+
+	@Test
+	void eachFacetIsCountedWithoutItsOwnFilter() {
+		save(1, "Tomato", null, "Pune", 20);
+		save(2, "Potato", null, "Pune", 20);
+		save(3, "Tomato", null, "Nashik", 20);
+		save(4, "Onion", null, "Nashik", 20);
+
+		CatalogFacetIndex.Result result = index.query(Map.of(
+				CatalogFacetIndex.CROP_TYPE, List.of("Tomato"),
+				CatalogFacetIndex.LOCATION, List.of("Pune")), 0, 10);
+
+		assertThat(result.ids()).containsExactly(1L);
+		// Crop types available in Pune, locations available for tomatoes
+		assertThat(result.counts().get(CatalogFacetIndex.CROP_TYPE)).containsExactly(Map.entry("Potato", 1), Map.entry("Tomato", 1));
+		assertThat(result.counts().get(CatalogFacetIndex.LOCATION)).containsExactly(Map.entry("Nashik", 1), Map.entry("Pune", 1));
+		assertThat(result.counts().get(CatalogFacetIndex.CATEGORY)).containsExactly(Map.entry("PRODUCTS", 1));
+	}
+
+	/**
+	 * Walks every keyset page of the query and compares ids, totals and facet counts with a scan
+	 * of the model.
+	 */
+	private void assertMatchesBruteForce(Map<String, Collection<String>> filters) {
+		List<Long> expected = listings.values().stream()
+				.filter(listing -> matches(listing, filters, null))
+				.map(CropListing::getId)
+				.toList();
+
+		List<Long> walked = new ArrayList<>();
+		long afterId = 0;
+		CatalogFacetIndex.Result page;
+		do {
+			page = index.query(filters, afterId, 7);
+			assertThat(page.total()).isEqualTo(expected.size());
+			assertThat(page.ids()).hasSizeLessThanOrEqualTo(7);
+			walked.addAll(page.ids());
+			if (!page.ids().isEmpty()) {
+				afterId = page.ids().get(page.ids().size() - 1);
+			}
+		} while (page.hasMore());
+		assertThat(walked).as("ids for %s", filters).isEqualTo(expected);
+
+		Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+		for (String facet : CatalogFacetIndex.FACETS) {
+			Map<String, Integer> values = new TreeMap<>();
+			for (CropListing listing : listings.values()) {
+				String value = value(facet).apply(listing);
+				if (value != null && matches(listing, filters, facet)) {
+					values.merge(value, 1, Integer::sum);
+				}
+			}
+			counts.put(facet, values);
+		}
+		assertThat(page.counts()).as("counts for %s", filters).isEqualTo(counts);
+	}
+
+	private static boolean matches(CropListing listing, Map<String, Collection<String>> filters, String excludedFacet) {
+		for (Map.Entry<String, Collection<String>> filter : filters.entrySet()) {
+			if (filter.getKey().equals(excludedFacet)) {
+				continue;
+			}
+			String value = value(filter.getKey()).apply(listing);
+			if (value == null || filter.getValue().stream().noneMatch(accepted -> accepted.equalsIgnoreCase(value.trim()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Function<CropListing, String> value(String facet) {
+		return switch (facet) {
+			case CatalogFacetIndex.CROP_TYPE -> listing -> blankToNull(listing.getCropType());
+			case CatalogFacetIndex.CATEGORY -> listing -> listing.getCategory() != null ? listing.getCategory() : "PRODUCTS";
+			case CatalogFacetIndex.LOCATION -> listing -> blankToNull(listing.getLocation());
+			case CatalogFacetIndex.PRICE_BAND -> listing -> CatalogFacetIndex.priceBand(listing.getPrice());
+			default -> throw new IllegalArgumentException(facet);
+		};
+	}
+
+	private void save(long id, String type, String category, String location, int price) {
+		CropListing listing = new CropListing();
+		listing.setId(id);
+		listing.setCropType(type);
+		listing.setCategory(category);
+		listing.setLocation(location);
+		listing.setPrice(BigDecimal.valueOf(price));
+		index.listingSaved(listings.get(id), listing);
+		listings.put(id, listing);
+	}
+
+	private void delete(long id) {
+		index.listingDeleted(listings.remove(id));
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.isBlank() ? null : value.trim();
+	}
+}
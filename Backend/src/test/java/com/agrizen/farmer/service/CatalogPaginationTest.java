@@ -0,0 +1,162 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.controller.CatalogResponses;
+import com.agrizen.farmer.dto.CatalogCursor;
+import com.agrizen.farmer.dto.CatalogPage;
+import com.agrizen.farmer.dto.CatalogSort;
+import com.agrizen.farmer.dto.CropListingView;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogPaginationTest {
+
+	// A multiple of ID_PAGE, so the last page is full and must still end the walk
+	private static final int LISTINGS = 24;
+	private static final int ID_PAGE = 6;
+	private static final int PRICE_PAGE = 5;
+
+	@Autowired
+	private CropListingService cropListingService;
+
+	@Autowired
+	private CropListingRepository cropListingRepository;
+
+	@Autowired
+	private FarmerRepository farmerRepository;
+
+	private Long farmerId;
+	private final List<CropListing> seeded = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		Farmer farmer = new Farmer();
+		farmer.setName("Pager");
+		farmer.setEmail("pager-" + UUID.randomUUID() + "@example.com");
+		farmer = farmerRepository.save(farmer);
+		farmerId = farmer.getId();
+		List<CropListing> rows = new ArrayList<>();
+		for (int i = 0; i < LISTINGS; i++) {
+			// Four price levels, so most pages cut through a run of equal prices
+			BigDecimal price = new BigDecimal(10 + (i * 7) % 4 + ".50");
+			rows.add(cropListingService.newListing(farmer, "Crop " + i, "Vegetables", 10, price,
+					LocalDate.now(), "Pune", null, null, null, null));
+		}
+		seeded.addAll(cropListingService.saveAll(rows));
+	}
+
+	@AfterEach
+	void deleteSeed() {
+		cropListingRepository.deleteAll(seeded);
+		farmerRepository.deleteById(farmerId);
+	}
+
+	@Test
+	void idWalkReturnsEveryListingExactlyOnceAndEndsWithoutACursor() {
+		List<CropListingView> walked = walk("id", ID_PAGE);
+
+		assertThat(walked).extracting(CropListingView::id)
+				.doesNotHaveDuplicates()
+				.containsExactlyElementsOf(seeded.stream().map(CropListing::getId).sorted().toList());
+	}
+
+	@Test
+	void priceWalkBreaksTiesOnIdAndReturnsEveryListingExactlyOnce() {
+		List<CropListingView> walked = walk("price", PRICE_PAGE);
+
+		assertThat(walked).extracting(CropListingView::id)
+				.doesNotHaveDuplicates()
+				.containsExactlyInAnyOrderElementsOf(seeded.stream().map(CropListing::getId).toList());
+		assertThat(walked).isSortedAccordingTo(Comparator.comparing(CropListingView::price)
+				.thenComparing(CropListingView::id));
+	}
+
+	@Test
+	void lastPageHasNoNextCursorHeader() {
+		CatalogPage<CropListingView> first = page("id", null, LISTINGS - 1);
+		CatalogPage<CropListingView> last = page("id", first.nextCursor(), LISTINGS - 1);
+
+		assertThat(CatalogResponses.page(first).getHeaders().getFirst(CatalogResponses.NEXT_CURSOR_HEADER))
+				.isEqualTo(first.nextCursor()).isNotNull();
+		ResponseEntity<List<CropListingView>> response = CatalogResponses.page(last);
+		assertThat(last.items()).hasSize(1);
+		assertThat(last.nextCursor()).isNull();
+		assertThat(response.getHeaders().containsKey(CatalogResponses.NEXT_CURSOR_HEADER)).isFalse();
+	}
+
+	@Test
+	void cursorRoundTrips() {
+		CatalogCursor byPrice = new CatalogCursor(CatalogSort.PRICE, new BigDecimal("12.50"), 42L);
+		CatalogCursor byId = new CatalogCursor(CatalogSort.ID, null, 7L);
+
+		assertThat(CatalogCursor.decode(byPrice.encode(), CatalogSort.PRICE)).isEqualTo(byPrice);
+		assertThat(CatalogCursor.decode(byId.encode(), CatalogSort.ID)).isEqualTo(byId);
+	}
+
+	@Test
+	void tamperedOrForeignCursorsAreRejected() {
+		String valid = new CatalogCursor(CatalogSort.PRICE, new BigDecimal("12.50"), 42L).encode();
+
+		assertInvalid("not a cursor!", CatalogSort.ID, "Invalid cursor");
+		assertInvalid(raw("v2|ID||7"), CatalogSort.ID, "Invalid cursor");
+		assertInvalid(raw("v1|NAME||7"), CatalogSort.ID, "Invalid cursor");
+		assertInvalid(raw("v1|ID||seven"), CatalogSort.ID, "Invalid cursor");
+		assertInvalid(raw("v1|PRICE|cheap|7"), CatalogSort.PRICE, "Invalid cursor");
+		assertInvalid(raw("v1|PRICE||7"), CatalogSort.PRICE, "Invalid cursor");
+		assertInvalid(valid.substring(0, valid.length() - 3), CatalogSort.PRICE, "Invalid cursor");
+		assertInvalid(valid, CatalogSort.ID, "different sort order");
+		// The service rejects them the same way, before any query
+		assertThatThrownBy(() -> cropListingService.query(null, null, null, "id", valid, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private List<CropListingView> walk(String sort, int limit) {
+		List<CropListingView> walked = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CatalogPage<CropListingView> page = page(sort, cursor, limit);
+			assertThat(page.items()).hasSizeLessThanOrEqualTo(limit);
+			walked.addAll(page.items());
+			cursor = page.nextCursor();
+			assertThat(++pages).as("pages walked").isLessThanOrEqualTo(LISTINGS);
+		} while (cursor != null);
+		return walked;
+	}
+
+	private CatalogPage<CropListingView> page(String sort, String cursor, int limit) {
+		return cropListingService.getPage(cropListingService.query(farmerId, null, null, sort, cursor, limit));
+	}
+
+	private static void assertInvalid(String token, CatalogSort sort, String message) {
+		assertThatThrownBy(() -> CatalogCursor.decode(token, sort))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining(message);
+	}
+
+	private static String raw(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+}
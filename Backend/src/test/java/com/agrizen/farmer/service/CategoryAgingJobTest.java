@@ -0,0 +1,87 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.repository.CropListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryAgingJobTest {
+
+	private CropListingRepository repository;
+	private CategoryAgingJob job;
+	private final List<CropListing> published = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(CropListingRepository.class);
+		CatalogListener recorder = new CatalogListener() {
+			@Override
+			public void listingSaved(CropListing previous, CropListing current) {
+				published.add(current);
+			}
+		};
+		job = new CategoryAgingJob(repository, new CatalogEvents(List.of(recorder)));
+		ReflectionTestUtils.setField(job, "chunkSize", 500);
+		ReflectionTestUtils.setField(job, "newArrivalDays", 7);
+		ReflectionTestUtils.setField(job, "maxHarvestAgeDays", 30);
+	}
+
+	@Test
+	void everyListingOfAFullyMovedChunkIsPublished() {
+		when(repository.findAgedNewArrivals(anyLong(), any(), any(), any()))
+				.thenReturn(List.of(listing(1L, CategoryAgingJob.FROM), listing(2L, CategoryAgingJob.FROM)));
+		when(repository.moveCategory(List.of(1L, 2L), CategoryAgingJob.FROM, CategoryAgingJob.TO)).thenReturn(2);
+
+		assertThat(job.run()).containsEntry("moved", 2);
+
+		assertThat(published).extracting(CropListing::getId).containsExactly(1L, 2L);
+		assertThat(published).extracting(CropListing::getCategory).containsOnly(CategoryAgingJob.TO);
+		verify(repository, never()).findWithFarmerByIdIn(anyCollection());
+	}
+
+	@Test
+	void onlyListingsTheUpdateMovedArePublished() {
+		when(repository.findAgedNewArrivals(anyLong(), any(), any(), any())).thenReturn(List.of(
+				listing(1L, CategoryAgingJob.FROM), listing(2L, CategoryAgingJob.FROM), listing(3L, CategoryAgingJob.FROM)));
+		// Listing 2 was put back to NEW_ARRIVAL by its farmer and 3 was deleted after the chunk was read
+		when(repository.moveCategory(List.of(1L, 2L, 3L), CategoryAgingJob.FROM, CategoryAgingJob.TO)).thenReturn(1);
+		when(repository.findWithFarmerByIdIn(eq(List.of(1L, 2L, 3L))))
+				.thenReturn(List.of(listing(1L, CategoryAgingJob.TO), listing(2L, CategoryAgingJob.FROM)));
+
+		assertThat(job.run()).containsEntry("moved", 1);
+
+		assertThat(published).extracting(CropListing::getId).containsExactly(1L);
+	}
+
+	@Test
+	void nothingIsPublishedWhenNoRowMoved() {
+		when(repository.findAgedNewArrivals(anyLong(), any(), any(), any())).thenReturn(List.of(listing(1L, CategoryAgingJob.FROM)));
+		when(repository.moveCategory(List.of(1L), CategoryAgingJob.FROM, CategoryAgingJob.TO)).thenReturn(0);
+
+		job.run();
+
+		assertThat(published).isEmpty();
+		verify(repository, never()).findWithFarmerByIdIn(anyCollection());
+	}
+
+	private static CropListing listing(Long id, String category) {
+		CropListing listing = new CropListing();
+		listing.setId(id);
+		listing.setCategory(category);
+		return listing;
+	}
+}
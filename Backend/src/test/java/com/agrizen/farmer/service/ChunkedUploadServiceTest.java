@@ -0,0 +1,134 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.UploadStatus;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceTest {
+
+	private static final String SHA256 = "ab".repeat(32);
+
+	@TempDir
+	Path incoming;
+
+	private ChunkedUploadService uploads;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		ImageBlobStore blobs = mock(ImageBlobStore.class);
+		when(blobs.incomingDir()).thenReturn(incoming);
+		FarmerRepository farmers = mock(FarmerRepository.class);
+		when(farmers.existsById(1L)).thenReturn(true);
+
+		uploads = new ChunkedUploadService(blobs, mock(ImageStorageService.class), mock(CropListingService.class), farmers);
+		ReflectionTestUtils.setField(uploads, "maxSizeBytes", 1024L);
+		ReflectionTestUtils.setField(uploads, "maxChunkBytes", 1024L);
+		ReflectionTestUtils.setField(uploads, "ttlMinutes", 60L);
+		ReflectionTestUtils.setField(uploads, "maxSessions", 1);
+	}
+
+	@Test
+	void uploadForAnUnknownFarmerIsRefused() {
+		assertThatThrownBy(() -> uploads.init(99L, "crop.jpg", 100, SHA256))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Farmer not found");
+	}
+
+	@Test
+	void tooManySessionsIsACapacityErrorWithRetryAfter() throws IOException {
+		uploads.init(1L, "crop.jpg", 100, SHA256);
+
+		assertThatThrownBy(() -> uploads.init(1L, "crop.jpg", 100, SHA256))
+				.isInstanceOfSatisfying(CapacityExceededException.class, e -> assertThat(e.getRetryAfterSeconds()).isPositive());
+	}
+
+	@Test
+	void sweepLeavesASessionThatWasExtendedWhileItWaitedForTheLock() throws Exception {
+		UploadStatus status = uploads.init(1L, "crop.jpg", 100, SHA256);
+		Object session = ((Map<?, ?>) ReflectionTestUtils.getField(uploads, "sessions")).get(status.uploadId());
+		ReflectionTestUtils.setField(session, "expiresAt", Instant.now().minusSeconds(1));
+
+		Thread sweep = new Thread(uploads::expireSessions);
+		synchronized (session) {
+			// Stands in for a chunk being appended: the sweep sees the old expiry, then waits here
+			sweep.start();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (sweep.getState() != Thread.State.BLOCKED) {
+				assertThat(System.nanoTime()).isLessThan(deadline);
+				Thread.onSpinWait();
+			}
+			ReflectionTestUtils.setField(session, "expiresAt", Instant.now().plusSeconds(3600));
+		}
+		sweep.join();
+
+		assertThat(uploads.status(status.uploadId()).uploadId()).isEqualTo(status.uploadId());
+	}
+
+	@Test
+	void chunkPastTheOffsetAndEarlyCompleteAreOffsetConflicts() throws IOException {
+		UploadStatus status = uploads.init(1L, "crop.jpg", 100, SHA256);
+
+		assertThatThrownBy(() -> uploads.append(status.uploadId(), 10, new ByteArrayInputStream(new byte[10])))
+				.isInstanceOf(UploadOffsetConflictException.class);
+		uploads.append(status.uploadId(), 0, new ByteArrayInputStream(new byte[10]));
+		assertThatThrownBy(() -> uploads.complete(status.uploadId(), 5L))
+				.isInstanceOf(UploadOffsetConflictException.class)
+				.hasMessageContaining("10 of 100");
+	}
+
+	@Test
+	void sessionIsNotLockedWhileAChunkIsReadFromTheNetwork() throws Exception {
+		UploadStatus status = uploads.init(1L, "crop.jpg", 100, SHA256);
+		PipedOutputStream client = new PipedOutputStream();
+		PipedInputStream body = new PipedInputStream(client);
+		CompletableFuture<UploadStatus> slowChunk = CompletableFuture.supplyAsync(() -> {
+			try {
+				return uploads.append(status.uploadId(), 0, body);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		client.write(new byte[10]);
+		client.flush();
+
+		// The chunk is still open; another request for the session gets through
+		assertThat(CompletableFuture.supplyAsync(() -> uploads.status(status.uploadId()).uploadId()).get(5, TimeUnit.SECONDS))
+				.isEqualTo(status.uploadId());
+
+		client.write(new byte[20]);
+		client.close();
+		assertThat(slowChunk.get(5, TimeUnit.SECONDS).offset()).isEqualTo(30);
+		assertThat(uploads.status(status.uploadId()).offset()).isEqualTo(30);
+	}
+
+	@Test
+	void expiredSessionIsRemoved() throws IOException {
+		UploadStatus status = uploads.init(1L, "crop.jpg", 100, SHA256);
+		Object session = ((Map<?, ?>) ReflectionTestUtils.getField(uploads, "sessions")).get(status.uploadId());
+		ReflectionTestUtils.setField(session, "expiresAt", Instant.now().minusSeconds(1));
+
+		uploads.expireSessions();
+
+		assertThatThrownBy(() -> uploads.status(status.uploadId())).isInstanceOf(NoSuchElementException.class);
+		assertThat(incoming).isEmptyDirectory();
+	}
+}
@@ -0,0 +1,177 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.dto.BulkImportResult;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.FarmerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CropListingImportServiceTest {
+
+	private static final String HEADER = "cropName,cropType,quantity,price,harvestDate,location,description\r\n";
+
+	private final List<CropListing> saved = new ArrayList<>();
+	private CropListingImportService imports;
+
+	@BeforeEach
+	void setUp() {
+		Farmer farmer = new Farmer();
+		farmer.setId(1L);
+		FarmerRepository farmers = mock(FarmerRepository.class);
+		when(farmers.findById(1L)).thenReturn(Optional.of(farmer));
+
+		CropListingService listings = mock(CropListingService.class);
+		when(listings.newListing(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+				.thenAnswer(call -> {
+					CropListing listing = new CropListing();
+					listing.setFarmer(call.getArgument(0));
+					listing.setCropName(call.getArgument(1));
+					listing.setCropType(call.getArgument(2));
+					listing.setQuantity(call.getArgument(3));
+					listing.setPrice(call.getArgument(4));
+					listing.setHarvestDate(call.getArgument(5));
+					listing.setLocation(call.getArgument(6));
+					listing.setDescription(call.getArgument(9));
+					return listing;
+				});
+		when(listings.saveAll(anyList())).thenAnswer(call -> {
+			List<CropListing> batch = call.getArgument(0);
+			for (CropListing listing : batch) {
+				listing.setId(100L + saved.size());
+				saved.add(listing);
+			}
+			return batch;
+		});
+
+		imports = new CropListingImportService(listings, farmers, new ObjectMapper());
+		ReflectionTestUtils.setField(imports, "batchSize", 2);
+		ReflectionTestUtils.setField(imports, "maxRows", 100);
+	}
+
+	@Test
+	void csvWithByteOrderMarkQuotedCommasLineBreaksAndDoubledQuotes() throws IOException {
+		String csv = "\uFEFF" + HEADER
+				+ "Tomato,Vegetables,10,25.50,2026-10-01,Pune,\"Ripe, red\"\r\n"
+				+ "Potato,Vegetables,5,12,2026-10-02,\"Nashik, MH\",\"Line one\r\nline two\"\r\n"
+				+ "Onion,Vegetables,3,8,2026-10-03,Nagpur,\"The \"\"best\"\" onions\"\n";
+
+		BulkImportResult result = imports.importCsv(1L, stream(csv));
+
+		assertThat(result.total()).isEqualTo(3);
+		assertThat(result.imported()).isEqualTo(3);
+		assertThat(result.truncated()).isFalse();
+		assertThat(result.rows()).extracting(BulkImportResult.RowResult::row, BulkImportResult.RowResult::error)
+				.containsExactly(tuple(1, null), tuple(2, null), tuple(3, null));
+		// The BOM did not end up in the first header, so cropName was found
+		assertThat(saved).extracting(CropListing::getCropName).containsExactly("Tomato", "Potato", "Onion");
+		assertThat(saved).extracting(CropListing::getLocation).containsExactly("Pune", "Nashik, MH", "Nagpur");
+		assertThat(saved).extracting(CropListing::getDescription)
+				.containsExactly("Ripe, red", "Line one\r\nline two", "The \"best\" onions");
+		assertThat(saved.get(0).getPrice()).isEqualByComparingTo(new BigDecimal("25.50"));
+		assertThat(saved.get(2).getHarvestDate()).isEqualTo(LocalDate.of(2026, 10, 3));
+	}
+
+	@Test
+	void badCsvRowsFailAloneAndBlankLinesAreSkipped() throws IOException {
+		String csv = HEADER
+				+ "Tomato,Vegetables,10,25,2026-10-01,Pune,\n"
+				+ "\n"
+				+ "Potato,Vegetables,many,12,2026-10-02,Nashik,\n"
+				+ "Onion,Vegetables,3,8,03/10/2026,Nagpur,\n"
+				+ ",Vegetables,3,8,2026-10-03,Nagpur,\n"
+				+ "Rice,Grains,7,40,2026-10-04,Pune,";
+
+		BulkImportResult result = imports.importCsv(1L, stream(csv));
+
+		assertThat(result.total()).isEqualTo(5);
+		assertThat(result.imported()).isEqualTo(2);
+		assertThat(result.failed()).isEqualTo(3);
+		assertThat(result.rows()).extracting(BulkImportResult.RowResult::row).containsExactly(1, 2, 3, 4, 5);
+		assertThat(result.rows().get(0).id()).isNotNull();
+		assertThat(result.rows().get(1).error()).startsWith("Invalid number");
+		assertThat(result.rows().get(2).error()).contains("harvestDate");
+		assertThat(result.rows().get(3).error()).isEqualTo("cropName is required");
+		assertThat(result.rows().get(4).id()).isNotNull();
+	}
+
+	@Test
+	void csvPastMaxRowsIsTruncatedAndReported() throws IOException {
+		ReflectionTestUtils.setField(imports, "maxRows", 3);
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 0; i < 5; i++) {
+			csv.append("Crop ").append(i).append(",Vegetables,1,1,2026-10-01,Pune,\n");
+		}
+
+		BulkImportResult result = imports.importCsv(1L, stream(csv.toString()));
+
+		assertThat(result.truncated()).isTrue();
+		assertThat(result.message()).contains("truncated at 3 rows");
+		assertThat(result.total()).isEqualTo(3);
+		assertThat(result.imported()).isEqualTo(3);
+		assertThat(saved).extracting(CropListing::getCropName).containsExactly("Crop 0", "Crop 1", "Crop 2");
+	}
+
+	@Test
+	void jsonArrayWithABadRowImportsTheRest() throws IOException {
+		String json = """
+				[
+				  {"cropName": "Tomato", "cropType": "Vegetables", "quantity": 10, "price": 25.5,
+				   "harvestDate": "2026-10-01", "location": "Pune", "description": "Ripe, red"},
+				  {"cropName": "Potato", "cropType": "Vegetables", "quantity": "lots", "price": 12,
+				   "harvestDate": "2026-10-02", "location": "Nashik"},
+				  {"cropName": "Onion", "cropType": "Vegetables", "quantity": 3, "price": 8,
+				   "harvestDate": "2026-10-03", "location": "Nagpur", "latitude": 21.1},
+				  {"cropName": "Rice", "cropType": "Grains", "quantity": 7, "price": 40,
+				   "harvestDate": "2026-10-04", "location": "Pune"}
+				]
+				""";
+
+		BulkImportResult result = imports.importJson(1L, stream(json));
+
+		assertThat(result.total()).isEqualTo(4);
+		assertThat(result.imported()).isEqualTo(2);
+		assertThat(result.rows()).extracting(BulkImportResult.RowResult::row).containsExactly(1, 2, 3, 4);
+		assertThat(result.rows().get(1).error()).startsWith("Invalid number");
+		assertThat(result.rows().get(2).error()).isEqualTo("longitude is required");
+		assertThat(saved).extracting(CropListing::getCropName).containsExactly("Tomato", "Rice");
+		assertThat(saved.get(0).getDescription()).isEqualTo("Ripe, red");
+	}
+
+	@Test
+	void jsonPastMaxRowsIsTruncated() throws IOException {
+		ReflectionTestUtils.setField(imports, "maxRows", 1);
+		String json = """
+				[{"cropName": "Tomato", "cropType": "Vegetables", "quantity": 1, "price": 1, "harvestDate": "2026-10-01", "location": "Pune"},
+				 {"cropName": "Potato", "cropType": "Vegetables", "quantity": 1, "price": 1, "harvestDate": "2026-10-01", "location": "Pune"}]
+				""";
+
+		BulkImportResult result = imports.importJson(1L, stream(json));
+
+		assertThat(result.truncated()).isTrue();
+		assertThat(result.total()).isEqualTo(1);
+		assertThat(saved).extracting(CropListing::getCropName).containsExactly("Tomato");
+	}
+
+	private static ByteArrayInputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
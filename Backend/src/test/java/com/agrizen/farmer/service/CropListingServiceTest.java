@@ -0,0 +1,77 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CropListingServiceTest {
+
+	private static final double[] PUNE = {18.52, 73.86};
+
+	private CropListingRepository repository;
+	private ImageStorageService images;
+	private CropListingService service;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(CropListingRepository.class);
+		images = mock(ImageStorageService.class);
+		Gazetteer gazetteer = mock(Gazetteer.class);
+		when(gazetteer.resolve("Pune")).thenReturn(Optional.of(PUNE));
+		service = new CropListingService(repository, mock(FarmerRepository.class), images, mock(CatalogCache.class),
+				mock(CatalogEvents.class), mock(CropSearchIndex.class), mock(CatalogFacetIndex.class),
+				mock(CatalogSpatialIndex.class), gazetteer, mock(CatalogPriceIndex.class), mock(ImageDerivativeService.class));
+	}
+
+	@Test
+	void createWithOnlyOneCoordinateIsRejectedBeforeTheImageIsStored() {
+		MultipartFile image = mock(MultipartFile.class);
+
+		assertThatThrownBy(() -> service.createListing(1L, "Tomato", "Vegetables", 10, BigDecimal.TEN,
+				LocalDate.now(), "Pune", null, 73.9, "Fresh", image))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("latitude and longitude");
+		verifyNoInteractions(images, repository);
+	}
+
+	@Test
+	void updateWithOnlyOneCoordinateIsRejectedInsteadOfGeocoded() {
+		CropListing changes = new CropListing();
+		changes.setLatitude(18.5);
+
+		assertThatThrownBy(() -> service.update(5L, changes)).isInstanceOf(IllegalArgumentException.class);
+		verify(repository, never()).save(any());
+	}
+
+	@Test
+	void bothCoordinatesAreUsedAndNeitherFallsBackToTheGazetteer() {
+		Farmer farmer = new Farmer();
+
+		CropListing explicit = service.newListing(farmer, "Tomato", "Vegetables", 10, BigDecimal.TEN,
+				LocalDate.now(), "Pune", 19.0, 74.0, null, null);
+		CropListing geocoded = service.newListing(farmer, "Tomato", "Vegetables", 10, BigDecimal.TEN,
+				LocalDate.now(), "Pune", null, null, null, null);
+
+		assertThat(explicit.getLatitude()).isEqualTo(19.0);
+		assertThat(explicit.getLongitude()).isEqualTo(74.0);
+		assertThat(geocoded.getLatitude()).isEqualTo(PUNE[0]);
+		assertThat(geocoded.getLongitude()).isEqualTo(PUNE[1]);
+	}
+}
@@ -0,0 +1,57 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CropSearchIndexTest {
+
+	private CropSearchIndex index;
+	private long nextId;
+
+	@BeforeEach
+	void setUp() {
+		index = new CropSearchIndex();
+		add("Tomato", "Vegetables", "Pune");
+		add("Potato", "Vegetables", "Nashik");
+	}
+
+	@Test
+	void prefixOfThreeOrMoreCharactersExpands() {
+		CropSearchIndex.Result result = index.search("tom", 10);
+
+		assertThat(result.hits()).extracting(CropSearchIndex.Hit::listingId).containsExactly(1L);
+		assertThat(result.truncated()).isFalse();
+	}
+
+	@Test
+	void shorterPrefixOnlyMatchesExactly() {
+		assertThat(index.search("to", 10).hits()).isEmpty();
+	}
+
+	@Test
+	void prefixWithTooManyExpansionsIsReportedAsTruncated() {
+		// 100 distinct terms starting with "var"; the first 64 in term order are searched
+		for (int i = 0; i < 100; i++) {
+			add("Rice", "Grains", "variety" + String.format("%03d", i));
+		}
+
+		CropSearchIndex.Result result = index.search("var", 200);
+
+		assertThat(result.truncated()).isTrue();
+		assertThat(result.hits()).hasSize(64);
+		assertThat(index.search("variety099", 10).hits()).hasSize(1);
+		assertThat(index.search("variety09", 10).truncated()).isFalse();
+	}
+
+	private void add(String name, String type, String location) {
+		CropListing listing = new CropListing();
+		listing.setId(++nextId);
+		listing.setCropName(name);
+		listing.setCropType(type);
+		listing.setLocation(location);
+		index.listingSaved(null, listing);
+	}
+}
@@ -0,0 +1,84 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.auth.model.Role;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FarmerAccessServiceTest {
+
+	private static final AuthenticatedUser RAVI = new AuthenticatedUser(1L, Role.FARMER, "ravi@example.com");
+	private static final AuthenticatedUser SITA = new AuthenticatedUser(2L, Role.FARMER, "sita@example.com");
+	private static final AuthenticatedUser ADMIN = new AuthenticatedUser(3L, Role.ADMIN, "admin@example.com");
+
+	private FarmerAccessService access;
+
+	@BeforeEach
+	void setUp() {
+		Farmer ravi = new Farmer();
+		ravi.setId(10L);
+		// Profiles created by the frontend keep the email as typed
+		ravi.setEmail("Ravi@Example.com");
+		CropListing listing = new CropListing();
+		listing.setFarmer(ravi);
+
+		FarmerRepository farmers = mock(FarmerRepository.class);
+		when(farmers.findById(10L)).thenReturn(Optional.of(ravi));
+		CropListingRepository listings = mock(CropListingRepository.class);
+		when(listings.findById(100L)).thenReturn(Optional.of(listing));
+
+		access = new FarmerAccessService(farmers, listings);
+		ReflectionTestUtils.setField(access, "enforce", true);
+	}
+
+	@Test
+	void farmerMayActOnTheirOwnProfileAndListings() {
+		assertThatCode(() -> access.requireFarmer(RAVI, 10L)).doesNotThrowAnyException();
+		assertThatCode(() -> access.requireListingOwner(RAVI, 100L)).doesNotThrowAnyException();
+		assertThatCode(() -> access.requireOwnEmail(RAVI, " ravi@example.com")).doesNotThrowAnyException();
+	}
+
+	@Test
+	void otherFarmerIsRefused() {
+		assertThatThrownBy(() -> access.requireFarmer(SITA, 10L)).isInstanceOf(NotListingOwnerException.class);
+		assertThatThrownBy(() -> access.requireListingOwner(SITA, 100L)).isInstanceOf(NotListingOwnerException.class);
+		assertThatThrownBy(() -> access.requireOwnEmail(SITA, "ravi@example.com")).isInstanceOf(NotListingOwnerException.class);
+	}
+
+	@Test
+	void callerWithoutTokenIsRefused() {
+		assertThatThrownBy(() -> access.requireFarmer(null, 10L)).isInstanceOf(NotListingOwnerException.class);
+	}
+
+	@Test
+	void adminMayActOnAnyFarmer() {
+		assertThatCode(() -> access.requireFarmer(ADMIN, 10L)).doesNotThrowAnyException();
+		assertThatCode(() -> access.requireListingOwner(ADMIN, 100L)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void unknownFarmerIsABadRequestAndUnknownListingPasses() {
+		assertThatThrownBy(() -> access.requireFarmer(RAVI, 99L)).isInstanceOf(IllegalArgumentException.class);
+		assertThatCode(() -> access.requireListingOwner(SITA, 999L)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void nothingIsCheckedWhileTokensAreNotEnforced() {
+		ReflectionTestUtils.setField(access, "enforce", false);
+
+		assertThatCode(() -> access.requireFarmer(null, 10L)).doesNotThrowAnyException();
+		assertThatCode(() -> access.requireListingOwner(SITA, 100L)).doesNotThrowAnyException();
+	}
+}
@@ -0,0 +1,174 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.ImageBlob;
+import com.agrizen.farmer.repository.ImageBlobRepository;
+import com.agrizen.farmer.storage.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two store instances on one database and one image store, standing in for two backend
+ * replicas; they share nothing in memory.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ImageBlobStoreTest {
+
+	private static final int THREADS = 16;
+	private static final int ROUNDS = 40;
+
+	@Autowired
+	private ImageBlobRepository imageBlobRepository;
+
+	@Autowired
+	private ImageStore imageStore;
+
+	@Value("${app.upload.dir}")
+	private String uploadDir;
+
+	private ImageBlobStore nodeA;
+	private ImageBlobStore nodeB;
+
+	@BeforeEach
+	void setUp() {
+		nodeA = node();
+		nodeB = node();
+	}
+
+	@Test
+	void fileExistsWheneverSomeoneHoldsAReference() throws Exception {
+		byte[] content = content();
+		List<String> missing = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				ImageBlobStore node = t % 2 == 0 ? nodeA : nodeB;
+				workers.add(pool.submit(() -> {
+					start.await();
+					// Upload, check, release: the last release of one thread races the next upload of another
+					for (int i = 0; i < ROUNDS; i++) {
+						String key = node.put(new ByteArrayInputStream(content), "bin");
+						if (!imageStore.exists(key)) {
+							synchronized (missing) {
+								missing.add(key);
+							}
+						}
+						node.release(ImageBlobStore.hashOf(key).orElseThrow());
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> worker : workers) {
+				worker.get(120, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(missing).isEmpty();
+		String hash = hash(content);
+		assertThat(imageBlobRepository.existsById(hash)).isFalse();
+		assertThat(imageStore.exists(ImageBlobStore.key(hash, "bin"))).isFalse();
+	}
+
+	@Test
+	void referencesFromBothInstancesAreCounted() throws Exception {
+		byte[] content = content();
+		String key = nodeA.put(new ByteArrayInputStream(content), "bin");
+		assertThat(nodeB.put(new ByteArrayInputStream(content), "png")).isEqualTo(key);
+		String hash = ImageBlobStore.hashOf(key).orElseThrow();
+
+		nodeA.release(hash);
+		assertThat(imageStore.exists(key)).isTrue();
+		assertThat(imageBlobRepository.findById(hash)).map(ImageBlob::getRefCount).contains(1);
+
+		nodeB.release(hash);
+		assertThat(imageStore.exists(key)).isFalse();
+		assertThat(imageBlobRepository.existsById(hash)).isFalse();
+	}
+
+	@Test
+	void purgeLeavesARecentlyReferencedBlobAlone() throws Exception {
+		String key = nodeA.put(new ByteArrayInputStream(content()), "bin");
+		String hash = ImageBlobStore.hashOf(key).orElseThrow();
+
+		assertThat(nodeB.purge(hash, LocalDateTime.now().minusHours(1), Set.of(key))).isEqualTo(-1);
+		assertThat(imageStore.exists(key)).isTrue();
+
+		assertThat(nodeB.purge(hash, LocalDateTime.now().plusSeconds(1), Set.of(key))).isPositive();
+		assertThat(imageStore.exists(key)).isFalse();
+		assertThat(imageBlobRepository.existsById(hash)).isFalse();
+	}
+
+	@Test
+	void purgeOfFilesWithoutARowLeavesNoRowBehind() throws Exception {
+		byte[] content = content();
+		String hash = hash(content);
+		String key = ImageBlobStore.key(hash, "bin");
+		Path file = nodeA.incomingDir().resolve(UUID.randomUUID() + ".tmp");
+		Files.write(file, content);
+		imageStore.put(key, file);
+
+		assertThat(nodeA.purge(hash, LocalDateTime.now(), Set.of(key))).isEqualTo(content.length);
+		assertThat(imageStore.exists(key)).isFalse();
+		assertThat(imageBlobRepository.existsById(hash)).isFalse();
+	}
+
+	@Test
+	void uploadTakesOverAStaleDeletionClaim() throws Exception {
+		byte[] content = content();
+		String hash = hash(content);
+		// Left behind by an instance that died while deleting
+		imageBlobRepository.insert(hash, "", 0, -1, LocalDateTime.now().minusHours(1));
+
+		String key = nodeA.put(new ByteArrayInputStream(content), "bin");
+
+		assertThat(imageStore.exists(key)).isTrue();
+		assertThat(imageBlobRepository.findById(hash)).map(ImageBlob::getRefCount).contains(1);
+		nodeA.release(hash);
+	}
+
+	private ImageBlobStore node() {
+		ImageBlobStore node = new ImageBlobStore(imageBlobRepository, imageStore);
+		ReflectionTestUtils.setField(node, "uploadDir", uploadDir);
+		return node;
+	}
+
+	// Not a JPEG or PNG, so it is stored as is and hashes to its own SHA-256
+	private static byte[] content() {
+		byte[] content = new byte[4096];
+		ThreadLocalRandom.current().nextBytes(content);
+		content[0] = 'X';
+		return content;
+	}
+
+	private static String hash(byte[] content) {
+		return HexFormat.of().formatHex(ImageBlobStore.sha256().digest(content));
+	}
+}
@@ -0,0 +1,149 @@
+package com.agrizen.farmer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageMetadataTest {
+
+	// Marker text placed in the EXIF block, standing in for GPS coordinates
+	private static final String SECRET = "GPS 18.5204N 73.8567E";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void jpegExifIsReplacedByTheOrientationAlone() throws IOException {
+		byte[] original = withExif(jpeg(40, 20), 6);
+		assertThat(contains(original, SECRET)).isTrue();
+
+		byte[] stripped = strip(original);
+
+		assertThat(contains(stripped, SECRET)).isFalse();
+		assertThat(orientation(stripped)).isEqualTo(6);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(stripped));
+		assertThat(decoded.getWidth()).isEqualTo(40);
+		assertThat(decoded.getHeight()).isEqualTo(20);
+	}
+
+	@Test
+	void uprightJpegLosesItsExifEntirely() throws IOException {
+		byte[] stripped = strip(withExif(jpeg(8, 8), 1));
+
+		assertThat(contains(stripped, "Exif")).isFalse();
+		assertThat(orientation(stripped)).isEqualTo(1);
+		assertThat(ImageIO.read(new ByteArrayInputStream(stripped))).isNotNull();
+	}
+
+	@Test
+	void bytesAppendedAfterTheJpegAreDropped() throws IOException {
+		byte[] image = jpeg(8, 8);
+		ByteArrayOutputStream appended = new ByteArrayOutputStream();
+		appended.write(image);
+		appended.write(SECRET.getBytes(StandardCharsets.ISO_8859_1));
+
+		assertThat(strip(appended.toByteArray())).isEqualTo(image);
+	}
+
+	@Test
+	void pngTextChunksAreDropped() throws IOException {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), "png", png);
+		byte[] original = withTextChunk(png.toByteArray());
+		assertThat(contains(original, SECRET)).isTrue();
+
+		byte[] stripped = strip(original);
+
+		assertThat(stripped).isEqualTo(png.toByteArray());
+	}
+
+	@Test
+	void otherFormatsAreCopiedUnchanged() throws IOException {
+		byte[] webp = "RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1);
+
+		assertThat(strip(webp)).isEqualTo(webp);
+	}
+
+	@Test
+	void truncatedJpegIsRejected() throws IOException {
+		byte[] image = withExif(jpeg(8, 8), 6);
+		byte[] truncated = Arrays.copyOf(image, 30);
+
+		assertThatThrownBy(() -> strip(truncated)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static byte[] strip(byte[] image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageMetadata.strip(new ByteArrayInputStream(image), out);
+		return out.toByteArray();
+	}
+
+	private int orientation(byte[] image) throws IOException {
+		Path file = Files.write(dir.resolve("image.jpg"), image);
+		return ImageMetadata.orientation(file);
+	}
+
+	private static byte[] jpeg(int width, int height) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", out);
+		return out.toByteArray();
+	}
+
+	// Inserts a little-endian EXIF block (orientation plus an ASCII tag) right after SOI
+	private static byte[] withExif(byte[] jpeg, int orientation) {
+		byte[] text = (SECRET + "\0").getBytes(StandardCharsets.ISO_8859_1);
+		ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+		tiff.writeBytes(new byte[] { 'I', 'I', 42, 0, 8, 0, 0, 0, 2, 0 });
+		tiff.writeBytes(new byte[] { 0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) orientation, 0, 0, 0 });
+		// ImageDescription, value stored after the IFD
+		tiff.writeBytes(new byte[] { 0x0E, 0x01, 2, 0, (byte) text.length, 0, 0, 0, 38, 0, 0, 0 });
+		tiff.writeBytes(new byte[4]);
+		tiff.writeBytes(text);
+		byte[] payload = new byte[6 + tiff.size()];
+		System.arraycopy("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1), 0, payload, 0, 6);
+		System.arraycopy(tiff.toByteArray(), 0, payload, 6, tiff.size());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(jpeg, 0, 2);
+		out.writeBytes(new byte[] { (byte) 0xFF, (byte) 0xE1, (byte) ((payload.length + 2) >> 8), (byte) (payload.length + 2) });
+		out.writeBytes(payload);
+		out.write(jpeg, 2, jpeg.length - 2);
+		return out.toByteArray();
+	}
+
+	// Inserts a tEXt chunk right after IHDR (8-byte signature plus a 25-byte chunk)
+	private static byte[] withTextChunk(byte[] png) {
+		byte[] data = ("Comment\0" + SECRET).getBytes(StandardCharsets.ISO_8859_1);
+		byte[] type = "tEXt".getBytes(StandardCharsets.ISO_8859_1);
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(data);
+		long value = crc.getValue();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(png, 0, 33);
+		out.writeBytes(new byte[] { 0, 0, 0, (byte) data.length });
+		out.writeBytes(type);
+		out.writeBytes(data);
+		out.writeBytes(new byte[] { (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value });
+		out.write(png, 33, png.length - 33);
+		return out.toByteArray();
+	}
+
+	private static boolean contains(byte[] data, String text) {
+		return new String(data, StandardCharsets.ISO_8859_1).contains(text);
+	}
+}
@@ -0,0 +1,230 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.auth.dto.AuthenticatedUser;
+import com.agrizen.auth.model.Role;
+import com.agrizen.farmer.dto.Reservation;
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import com.agrizen.farmer.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryReservationServiceTest {
+
+	private static final Logger log = LoggerFactory.getLogger(InventoryReservationServiceTest.class);
+
+	private static final int THREADS = 32;
+	private static final int STOCK = 2000;
+	private static final AuthenticatedUser BUYER = new AuthenticatedUser(1L, Role.BUYER, "buyer@example.com");
+	private static final AuthenticatedUser OTHER_BUYER = new AuthenticatedUser(2L, Role.BUYER, "other@example.com");
+	private static final AuthenticatedUser ADMIN = new AuthenticatedUser(3L, Role.ADMIN, "admin@example.com");
+
+	@Autowired
+	private InventoryReservationService reservationService;
+
+	@Autowired
+	private CropListingService cropListingService;
+
+	@Autowired
+	private CropListingRepository cropListingRepository;
+
+	@Autowired
+	private FarmerRepository farmerRepository;
+
+	@Autowired
+	private StockReservationRepository stockReservationRepository;
+
+	@Autowired
+	private CatalogEvents catalogEvents;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void manyThreadsReservingOneListingNeverOversell() throws Exception {
+		Long listingId = newListing(STOCK);
+		Queue<Reservation> granted = new ConcurrentLinkedQueue<>();
+		AtomicInteger refused = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int quantity = 1 + t % 3;
+				workers.add(pool.submit(() -> {
+					start.await();
+					// Ask for 3, 2 or 1 until even a single unit is refused
+					int want = quantity;
+					while (want > 0) {
+						Optional<Reservation> reservation = reservationService.reserve(listingId, want, BUYER);
+						if (reservation.isPresent()) {
+							granted.add(reservation.get());
+						} else {
+							refused.incrementAndGet();
+							want--;
+						}
+					}
+					return null;
+				}));
+			}
+			long startedAt = System.nanoTime();
+			start.countDown();
+			for (Future<?> worker : workers) {
+				worker.get(60, TimeUnit.SECONDS);
+			}
+			long elapsedNanos = System.nanoTime() - startedAt;
+			log.info("{} threads made {} reservations ({} refused) in {} ms: {} reservations/s",
+					THREADS, granted.size(), refused.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+					granted.size() * 1_000_000_000L / Math.max(1, elapsedNanos));
+		} finally {
+			pool.shutdownNow();
+		}
+
+		int reserved = granted.stream().mapToInt(Reservation::quantity).sum();
+		int remaining = quantity(listingId);
+		assertThat(remaining).isZero();
+		assertThat(reserved).isEqualTo(STOCK);
+		assertThat(reserved + remaining).isEqualTo(STOCK);
+		assertThat(granted).extracting(Reservation::id).doesNotHaveDuplicates();
+	}
+
+	@Test
+	void concurrentReleaseReturnsStockOnce() throws Exception {
+		Long listingId = newListing(100);
+		List<Reservation> reservations = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			reservations.add(reservationService.reserve(listingId, 2, BUYER).orElseThrow());
+		}
+		assertThat(quantity(listingId)).isZero();
+
+		// Every reservation is released twice and committed once, all at the same time
+		AtomicInteger released = new AtomicInteger();
+		AtomicInteger committed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for (Reservation reservation : reservations) {
+				for (int i = 0; i < 2; i++) {
+					tasks.add(pool.submit(() -> {
+						start.await();
+						reservationService.release(reservation.id(), BUYER).ifPresent(r -> released.incrementAndGet());
+						return null;
+					}));
+				}
+				tasks.add(pool.submit(() -> {
+					start.await();
+					reservationService.commit(reservation.id(), BUYER).ifPresent(r -> committed.incrementAndGet());
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> task : tasks) {
+				task.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(released.get() + committed.get()).isEqualTo(reservations.size());
+		assertThat(quantity(listingId)).isEqualTo(released.get() * 2);
+	}
+
+	@Test
+	void onlyTheBuyerWhoReservedOrAnAdminMayFinishAReservation() {
+		Long listingId = newListing(10);
+		Reservation first = reservationService.reserve(listingId, 4, BUYER).orElseThrow();
+		Reservation second = reservationService.reserve(listingId, 4, BUYER).orElseThrow();
+
+		assertThatThrownBy(() -> reservationService.commit(first.id(), OTHER_BUYER)).isInstanceOf(NotListingOwnerException.class);
+		assertThatThrownBy(() -> reservationService.release(first.id(), OTHER_BUYER)).isInstanceOf(NotListingOwnerException.class);
+		assertThatThrownBy(() -> reservationService.release(first.id(), null)).isInstanceOf(NotListingOwnerException.class);
+		assertThat(quantity(listingId)).isEqualTo(2);
+
+		assertThat(reservationService.commit(first.id(), BUYER)).isPresent();
+		assertThat(reservationService.release(second.id(), ADMIN)).isPresent();
+		assertThat(quantity(listingId)).isEqualTo(6);
+	}
+
+	@Test
+	void holdsSurviveARestartAndCanBeFinishedByAnotherInstance() {
+		Long listingId = newListing(10);
+		Reservation kept = reservationService.reserve(listingId, 3, BUYER).orElseThrow();
+		Reservation dropped = reservationService.reserve(listingId, 4, BUYER).orElseThrow();
+
+		// Nothing in memory: a restarted instance, or another replica
+		InventoryReservationService restarted = instance(600);
+
+		assertThatThrownBy(() -> restarted.commit(kept.id(), OTHER_BUYER)).isInstanceOf(NotListingOwnerException.class);
+		assertThat(restarted.commit(kept.id(), BUYER)).isPresent();
+		assertThat(restarted.release(dropped.id(), BUYER)).isPresent();
+		assertThat(reservationService.release(dropped.id(), BUYER)).isEmpty();
+		assertThat(reservationService.commit(kept.id(), BUYER)).isEmpty();
+		assertThat(quantity(listingId)).isEqualTo(7);
+		assertThat(stockReservationRepository.existsById(kept.id())).isFalse();
+	}
+
+	@Test
+	void expiredHoldsOfAnInstanceThatWentAwayAreReturned() {
+		Long listingId = newListing(10);
+		Reservation reservation = instance(-1).reserve(listingId, 6, BUYER).orElseThrow();
+		assertThat(quantity(listingId)).isEqualTo(4);
+
+		instance(600).expireReservations();
+
+		assertThat(quantity(listingId)).isEqualTo(10);
+		assertThat(stockReservationRepository.existsById(reservation.id())).isFalse();
+	}
+
+	private InventoryReservationService instance(long ttlSeconds) {
+		InventoryReservationService instance = new InventoryReservationService(cropListingRepository,
+				stockReservationRepository, catalogEvents, transactionManager);
+		ReflectionTestUtils.setField(instance, "ttlSeconds", ttlSeconds);
+		ReflectionTestUtils.setField(instance, "maxActive", 100);
+		ReflectionTestUtils.setField(instance, "enforce", true);
+		return instance;
+	}
+
+	private Long newListing(int stock) {
+		Farmer farmer = new Farmer();
+		farmer.setName("Reservation test");
+		farmer.setEmail("farmer-" + UUID.randomUUID() + "@example.com");
+		farmer = farmerRepository.save(farmer);
+		CropListing listing = cropListingService.newListing(farmer, "Tomato", "Vegetables", stock,
+				new BigDecimal("25.00"), LocalDate.now(), "Pune", null, null, null, null);
+		return cropListingService.saveAll(List.of(listing)).get(0).getId();
+	}
+
+	private int quantity(Long listingId) {
+		return cropListingRepository.findById(listingId).orElseThrow().getQuantity();
+	}
+}
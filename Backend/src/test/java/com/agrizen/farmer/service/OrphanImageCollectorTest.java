@@ -0,0 +1,122 @@
+package com.agrizen.farmer.service;
+
+import com.agrizen.farmer.entity.CropListing;
+import com.agrizen.farmer.entity.Farmer;
+import com.agrizen.farmer.repository.CropListingRepository;
+import com.agrizen.farmer.repository.FarmerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrphanImageCollectorTest {
+
+	@Autowired
+	private OrphanImageCollector collector;
+
+	@Autowired
+	private CropListingService cropListingService;
+
+	@Autowired
+	private CropListingRepository cropListingRepository;
+
+	@Autowired
+	private FarmerRepository farmerRepository;
+
+	@Value("${app.upload.dir}")
+	private String uploadDir;
+
+	private final List<Long> listings = new ArrayList<>();
+
+	@AfterEach
+	void deleteListings() {
+		cropListingRepository.deleteAllById(listings);
+	}
+
+	@Test
+	void uploadPathIgnoresHostQueryAndEarlierBaseUrls() {
+		String hash = "ab".repeat(32);
+		String blob = ImageBlobStore.key(hash, "jpg");
+
+		assertThat(collector.uploadPath("/uploads/" + blob)).isEqualTo(blob);
+		assertThat(collector.uploadPath("https://old-cdn.example.com/static/uploads/" + blob + "?v=2")).isEqualTo(blob);
+		assertThat(collector.uploadPath("uploads/legacy.jpg")).isEqualTo("legacy.jpg");
+		assertThat(collector.uploadPath("https://cdn.example.com/img/" + blob)).isEqualTo("https://cdn.example.com/img/" + blob);
+		assertThat(collector.uploadPath("https://elsewhere.example.com/photo.jpg")).isNull();
+	}
+
+	@Test
+	void blobsReferencedUnderAnEarlierBaseUrlAreKept() throws IOException {
+		Path kept = oldBlobFile();
+		Path orphan = oldBlobFile();
+		String keptKey = relative(kept);
+		listing("http://old-host:8080/uploads/" + keptKey);
+
+		Map<String, Object> report = collector.run(false);
+
+		assertThat(report).doesNotContainKey("skipped");
+		assertThat(kept).exists();
+		assertThat(orphan).doesNotExist();
+	}
+
+	@Test
+	void sweepIsRefusedWhenNoImageUrlMatches() throws IOException {
+		Path orphan = oldBlobFile();
+		listing("https://elsewhere.example.com/photo.jpg");
+
+		Map<String, Object> report = collector.run(false);
+
+		assertThat(report).containsKey("skipped").containsEntry("imageUrls", 1L);
+		assertThat(orphan).exists();
+		Files.delete(orphan);
+	}
+
+	private void listing(String imageUrl) {
+		Farmer farmer = new Farmer();
+		farmer.setName("Collector test");
+		farmer.setEmail("farmer-" + UUID.randomUUID() + "@example.com");
+		farmer = farmerRepository.save(farmer);
+		CropListing listing = cropListingService.newListing(farmer, "Tomato", "Vegetables", 5,
+				new BigDecimal("25.00"), LocalDate.now(), "Pune", null, null, null, imageUrl);
+		listings.add(cropListingRepository.save(listing).getId());
+	}
+
+	// A blob file past the grace period with no image_blobs row
+	private Path oldBlobFile() throws IOException {
+		String hash = HexFormat.of().formatHex(ImageBlobStore.sha256().digest(UUID.randomUUID().toString().getBytes()));
+		Path file = root().resolve(ImageBlobStore.key(hash, "jpg"));
+		Files.createDirectories(file.getParent());
+		Files.write(file, new byte[] { 1, 2, 3 });
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+		return file;
+	}
+
+	private Path root() {
+		return Paths.get(uploadDir).toAbsolutePath().normalize();
+	}
+
+	private String relative(Path file) {
+		return root().relativize(file).toString().replace('\\', '/');
+	}
+}
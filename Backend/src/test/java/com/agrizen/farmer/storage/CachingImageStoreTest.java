@@ -0,0 +1,161 @@
+package com.agrizen.farmer.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingImageStoreTest {
+
+	private static final long MAX_BYTES = 1024 * 1024;
+
+	@TempDir
+	Path cacheDir;
+
+	@TempDir
+	Path sources;
+
+	private StubObjectServer server;
+	private final List<CachingImageStore> stores = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new StubObjectServer();
+	}
+
+	@AfterEach
+	void tearDown() {
+		stores.forEach(CachingImageStore::shutdown);
+		server.close();
+	}
+
+	@Test
+	void writeThroughPutGetAndDelete() throws IOException {
+		CachingImageStore store = store(false, 1, 0, 1);
+
+		store.put("a/one.jpg", source("one"));
+		assertThat(server.objects).containsKey("a/one.jpg");
+		assertThat(cacheDir.resolve("a/one.jpg")).hasContent("one");
+
+		assertThat(store.delete("a/one.jpg")).isEqualTo(3);
+		assertThat(server.objects).isEmpty();
+		assertThat(cacheDir.resolve("a/one.jpg")).doesNotExist();
+	}
+
+	@Test
+	void cacheMissIsFetchedFromTheRemoteStore() throws IOException {
+		server.objects.put("b/two.jpg", "two".getBytes());
+		CachingImageStore store = store(false, 1, 0, 1);
+
+		assertThat(store.exists("b/two.jpg")).isTrue();
+		assertThat(store.localFile("b/two.jpg")).hasValueSatisfying(file -> assertThat(file).hasContent("two"));
+		assertThat(cacheDir.resolve("b/two.jpg")).hasContent("two");
+		assertThat(store.localFile("b/missing.jpg")).isEmpty();
+	}
+
+	@Test
+	void writeBehindUploadsInTheBackgroundAndClearsTheMarker() throws Exception {
+		CachingImageStore store = store(true, 16, 1, 3);
+
+		store.put("c/three.jpg", source("three"));
+
+		await(() -> server.objects.containsKey("c/three.jpg") && !Files.exists(marker("c/three.jpg")));
+		assertThat(cacheDir.resolve("c/three.jpg")).hasContent("three");
+	}
+
+	@Test
+	void puttingAPendingKeyAgainIsHarmlessAndQueuesItOnce() throws Exception {
+		// No workers, so everything stays pending
+		CachingImageStore store = store(true, 16, 0, 1);
+
+		store.put("d/four.jpg", source("four"));
+		store.put("d/four.jpg", source("four"));
+
+		assertThat(marker("d/four.jpg")).exists();
+		assertThat(server.puts).hasValue(0);
+
+		// After a restart the single pending write is uploaded once
+		store(true, 16, 1, 1);
+		await(() -> !Files.exists(marker("d/four.jpg")));
+		assertThat(server.puts).hasValue(1);
+	}
+
+	@Test
+	void fullQueueLeavesWritesPendingInsteadOfUploadingOnTheCaller() throws Exception {
+		CachingImageStore store = store(true, 1, 0, 5);
+
+		long started = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			store.put("e/" + i + ".jpg", source("image " + i));
+		}
+
+		assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(2));
+		assertThat(server.puts).hasValue(0);
+		for (int i = 0; i < 5; i++) {
+			assertThat(marker("e/" + i + ".jpg")).exists();
+		}
+
+		// A restarted process finds the markers and works through more of them than the queue holds
+		store(true, 1, 1, 5);
+		await(() -> server.objects.size() == 5);
+		for (int i = 0; i < 5; i++) {
+			String key = "e/" + i + ".jpg";
+			assertThat(server.objects.get(key)).asString().isEqualTo("image " + i);
+			await(() -> !Files.exists(marker(key)));
+		}
+	}
+
+	@Test
+	void remoteFailureKeepsTheCachedCopyAndMarkerForTheNextStart() throws Exception {
+		server.failing = true;
+		CachingImageStore store = store(true, 16, 1, 1);
+
+		store.put("f/five.jpg", source("five"));
+		await(() -> server.puts.get() == 1);
+
+		assertThat(marker("f/five.jpg")).exists();
+		assertThat(store.localFile("f/five.jpg")).hasValueSatisfying(file -> assertThat(file).hasContent("five"));
+		assertThat(store.exists("f/five.jpg")).isTrue();
+		// An unreachable remote store reads as missing rather than failing the caller
+		assertThat(store.exists("f/other.jpg")).isFalse();
+		store.shutdown();
+
+		server.failing = false;
+		store(true, 16, 1, 1);
+		await(() -> server.objects.containsKey("f/five.jpg") && !Files.exists(marker("f/five.jpg")));
+	}
+
+	private CachingImageStore store(boolean writeBehind, int queueCapacity, int threads, int maxAttempts) {
+		CachingImageStore store = new CachingImageStore(new LocalImageStore(cacheDir), server.store(),
+				writeBehind, queueCapacity, threads, maxAttempts, MAX_BYTES);
+		stores.add(store);
+		return store;
+	}
+
+	private Path source(String content) throws IOException {
+		return Files.writeString(Files.createTempFile(sources, "image", ".jpg"), content);
+	}
+
+	private Path marker(String key) {
+		Path cached = cacheDir.resolve(key);
+		return cached.resolveSibling("." + cached.getFileName() + ".pending");
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition within 10s").isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
+}
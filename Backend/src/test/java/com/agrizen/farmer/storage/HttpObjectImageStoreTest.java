@@ -0,0 +1,78 @@
+package com.agrizen.farmer.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpObjectImageStoreTest {
+
+	private static final String KEY = "ab/cd/abcd.jpg";
+
+	@TempDir
+	Path dir;
+
+	private StubObjectServer server;
+	private HttpObjectImageStore store;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new StubObjectServer();
+		store = server.store();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.close();
+	}
+
+	@Test
+	void putThenGetThenDelete() throws IOException {
+		store.put(KEY, file("source.jpg", "image bytes"));
+
+		assertThat(server.objects).containsKey(KEY);
+		assertThat(store.exists(KEY)).isTrue();
+		Path copy = dir.resolve("copy.jpg");
+		assertThat(store.copyTo(KEY, copy)).isTrue();
+		assertThat(copy).hasContent("image bytes");
+		assertThat(store.localFile(KEY)).isEmpty();
+
+		assertThat(store.delete(KEY)).isEqualTo("image bytes".length());
+		assertThat(store.exists(KEY)).isFalse();
+		assertThat(server.objects).isEmpty();
+	}
+
+	@Test
+	void missingObjectIsNotAnError() throws IOException {
+		Path copy = dir.resolve("copy.jpg");
+
+		assertThat(store.exists(KEY)).isFalse();
+		assertThat(store.copyTo(KEY, copy)).isFalse();
+		assertThat(store.delete(KEY)).isEqualTo(-1);
+		assertThat(copy).doesNotExist();
+		assertThat(dir).isEmptyDirectory();
+	}
+
+	@Test
+	void serverErrorsAreIoExceptions() throws IOException {
+		Path source = file("source.jpg", "image bytes");
+		server.failing = true;
+
+		assertThatThrownBy(() -> store.put(KEY, source)).isInstanceOf(IOException.class).hasMessageContaining("503");
+		assertThatThrownBy(() -> store.exists(KEY)).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> store.copyTo(KEY, dir.resolve("copy.jpg"))).isInstanceOf(IOException.class);
+		// The partial download is cleaned up
+		assertThat(dir).isDirectoryNotContaining("glob:**.download");
+	}
+
+	private Path file(String name, String content) throws IOException {
+		return Files.writeString(dir.resolve(name), content);
+	}
+}
@@ -0,0 +1,90 @@
+package com.agrizen.farmer.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory HTTP object store on a loopback port for storage tests: PUT, GET, HEAD and DELETE
+ * on {@code /objects/<key>}. While {@link #failing} is set every request gets a 503;
+ * {@link #puts} counts PUT requests either way.
+ */
+class StubObjectServer implements AutoCloseable {
+
+	private static final String PREFIX = "/objects/";
+
+	final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	final AtomicInteger puts = new AtomicInteger();
+	volatile boolean failing;
+
+	private final HttpServer server;
+
+	StubObjectServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext(PREFIX, this::handle);
+		server.start();
+	}
+
+	String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + PREFIX;
+	}
+
+	HttpObjectImageStore store() {
+		return new HttpObjectImageStore(baseUrl(), Duration.ofSeconds(5), null);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String key = exchange.getRequestURI().getPath().substring(PREFIX.length());
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			if (exchange.getRequestMethod().equals("PUT")) {
+				puts.incrementAndGet();
+			}
+			if (failing) {
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+			switch (exchange.getRequestMethod()) {
+				case "PUT" -> {
+					objects.put(key, body);
+					exchange.sendResponseHeaders(201, -1);
+				}
+				case "GET" -> {
+					byte[] object = objects.get(key);
+					if (object == null) {
+						exchange.sendResponseHeaders(404, -1);
+						return;
+					}
+					exchange.sendResponseHeaders(200, object.length);
+					try (OutputStream out = exchange.getResponseBody()) {
+						out.write(object);
+					}
+				}
+				case "HEAD" -> {
+					byte[] object = objects.get(key);
+					if (object == null) {
+						exchange.sendResponseHeaders(404, -1);
+						return;
+					}
+					exchange.getResponseHeaders().set("Content-Length", Integer.toString(object.length));
+					exchange.sendResponseHeaders(200, -1);
+				}
+				case "DELETE" -> exchange.sendResponseHeaders(objects.remove(key) == null ? 404 : 204, -1);
+				default -> exchange.sendResponseHeaders(405, -1);
+			}
+		}
+	}
+}
@@ -40,6 +40,7 @@ import {
 import Tabs from '@mui/material/Tabs';
 import Tab from '@mui/material/Tab';
 import NavBar from './NavBar';
+import { fetchAllPages } from '../utils/catalogPages';
 import { styled } from '@mui/material/styles';
 
 const API_BASE_URL = process.env.REACT_APP_API_BASE_URL || 'http://localhost:8080/api';
@@ -109,20 +110,19 @@ const AdminDashboard = () => {
   const loadData = async () => {
     setLoading(true);
     try {
-      const [statsRes, usersRes, farmersRes, cropsRes] = await Promise.all([
+      const [statsRes, usersRes, farmersRes, cropRows] = await Promise.all([
         fetch(`${API_BASE_URL}/admin/stats`),
         fetch(`${API_BASE_URL}/admin/users`),
         fetch(`${API_BASE_URL}/admin/farmers`),
-        fetch(`${API_BASE_URL}/admin/crops`)
+        fetchAllPages(`${API_BASE_URL}/admin/crops`).catch(() => null)
       ]);
 
       if (statsRes.ok) setStats(await statsRes.json());
       if (usersRes.ok) setUsers(await usersRes.json());
       if (farmersRes.ok) setFarmers(await farmersRes.json());
-      if (cropsRes.ok) {
-        const data = await cropsRes.json();
-        setAllCrops(data);
-        setCrops(filterCropsByTab(data, activeTab));
+      if (cropRows) {
+        setAllCrops(cropRows);
+        setCrops(filterCropsByTab(cropRows, activeTab));
       } else {
         setAllCrops([]);
         setCrops([]);
@@ -11,6 +11,7 @@ import {
 import { AdminPanelSettings } from '@mui/icons-material';
 import { useNavigate } from 'react-router-dom';
 import { styled } from '@mui/material/styles';
+import { saveSession } from '../utils/authSession';
 const API = process.env.REACT_APP_API_BASE_URL || '/api';
 const ADMIN_USERNAME = 'admin';
 const ADMIN_EMAIL = 'admin@agrizen.com';
@@ -50,6 +51,7 @@ const AdminLogin = () => {
         setMessage({ type: 'error', text: data?.message || 'Invalid credentials.' });
         return;
       }
+      saveSession(data);
       localStorage.setItem('role', 'ADMIN');
       localStorage.setItem('email', data.email || ADMIN_EMAIL);
       localStorage.setItem('name', data.name || 'Admin');
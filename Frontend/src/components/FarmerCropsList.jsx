@@ -1,5 +1,6 @@
 import React, { useEffect, useState } from 'react';
 import axios from 'axios';
+import { fetchAllPages } from '../utils/catalogPages';
 
 const API_BASE_URL = process.env.REACT_APP_API_BASE_URL || 'http://localhost:8080/api';
 
@@ -18,8 +19,7 @@ function FarmerCropsList({ farmerId }) {
 			setLoading(true);
 			setError('');
 			try {
-				const res = await axios.get(`${API_BASE_URL}/farmers/${effectiveFarmerId}/crops`);
-				setCrops(res.data || []);
+				setCrops(await fetchAllPages(`${API_BASE_URL}/farmers/${effectiveFarmerId}/crops`));
 			} catch (err) {
 				const msg = err?.response?.data?.message || err.message || 'Failed to load crops.';
 				setError(msg);
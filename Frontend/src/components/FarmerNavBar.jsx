@@ -25,6 +25,7 @@ import {
   AccountCircle as AccountCircleIcon
 } from '@mui/icons-material';
 import { useNavigate } from 'react-router-dom';
+import { clearSession } from '../utils/authSession';
 
 const StyledAppBar = styled(AppBar)(({ theme }) => ({
   background: 'linear-gradient(135deg, #1B5E20 0%, #2E7D32 50%, #4CAF50 100%)',
@@ -153,6 +154,7 @@ function FarmerNavBar() {
       localStorage.removeItem('name');
       localStorage.removeItem('email');
       localStorage.removeItem('farmerId');
+      clearSession();
     } catch (e) {}
     navigate('/login');
   };
@@ -11,6 +11,7 @@ import {
   Divider,
 } from '@mui/material';
 import { useNavigate } from 'react-router-dom';
+import { saveSession } from '../utils/authSession';
 
 const API_BASE_URL = process.env.REACT_APP_API_BASE_URL || '/api';
 
@@ -82,6 +83,7 @@ const LoginPage = () => {
           if (data && data.success) {
             const userRole = data.role?.toString() || data.role;
             
+            saveSession(data);
             localStorage.setItem('userId', String(data.userId));
             localStorage.setItem('role', userRole);
             localStorage.setItem('name', data.name || 'User');
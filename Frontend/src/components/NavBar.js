@@ -37,6 +37,7 @@ import {
 import { useNavigate } from 'react-router-dom';
 import { SearchContext } from './SearchContext';
 import { CartContext } from './CartContext';
+import { clearSession } from '../utils/authSession';
 
 const StyledAppBar = styled(AppBar)(({ theme }) => ({
   background: 'linear-gradient(135deg, #1B5E20 0%, #2E7D32 50%, #4CAF50 100%)',
@@ -461,6 +462,7 @@ function NavBar() {
                 localStorage.removeItem('name');
                 localStorage.removeItem('email');
                 localStorage.removeItem('farmerId');
+                clearSession();
               } catch (e) {}
               setProfileOpen(false);
               navigate('/login');
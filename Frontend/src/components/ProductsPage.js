@@ -48,6 +48,7 @@ import { SearchContext } from './SearchContext';
 import { CartContext } from './CartContext';
 import { useNavigate } from 'react-router-dom';
 import { mapCropToProduct, filterBySection } from '../utils/productMapper';
+import { fetchAllPages } from '../utils/catalogPages';
 
 // Premium styled components
 const Sidebar = styled(Paper)(({ theme }) => ({
@@ -293,11 +294,9 @@ const ProductsPage = () => {
     async function load() {
       try {
         // Fetch all crops - show all categories including Vegetables and Seeds & Saplings
-        const allCropsRes = await fetch(`${API}/crops`);
-        
         let allRows = [];
-        if (allCropsRes.ok) {
-          const rows = await allCropsRes.json();
+        try {
+          const rows = await fetchAllPages(`${API}/crops`);
           console.log('All crops fetched:', rows.length, 'crops');
           console.log('Sample crop categories:', rows.slice(0, 3).map(r => ({ name: r.cropName, category: r.category, cropType: r.cropType })));
           
@@ -312,8 +311,8 @@ const ProductsPage = () => {
             r.category === 'SEEDS_SAPLINGS'
           );
           console.log('Filtered crops for Products page:', allRows.length, 'crops');
-        } else {
-          console.error('Failed to fetch crops:', allCropsRes.status, allCropsRes.statusText);
+        } catch (err) {
+          console.error('Failed to fetch crops:', err);
         }
         
         // Remove duplicates based on crop ID (shouldn't be needed, but just in case)
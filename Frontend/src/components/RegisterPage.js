@@ -12,6 +12,7 @@ import {
   MenuItem
 } from '@mui/material';
 import { useNavigate } from 'react-router-dom';
+import { saveSession } from '../utils/authSession';
 
 const API_BASE_URL = process.env.REACT_APP_API_BASE_URL || 'http://localhost:8080/api';
 
@@ -63,6 +64,7 @@ const RegisterPage = () => {
         if (authRes.ok) {
           const auth = await authRes.json();
           // Store user information
+          saveSession(auth);
           localStorage.setItem('userId', String(auth.userId));
           localStorage.setItem('role', auth.role);
           localStorage.setItem('name', auth.name || payload.name);
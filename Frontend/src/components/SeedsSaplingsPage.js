@@ -38,6 +38,7 @@ import { SearchContext } from './SearchContext';
 import { CartContext } from './CartContext';
 import { useNavigate } from 'react-router-dom';
 import { mapCropToProduct, filterBySection } from '../utils/productMapper';
+import { fetchAllPages } from '../utils/catalogPages';
 
 // Premium styled components matching ProductsPage
 const Sidebar = styled(Paper)(({ theme }) => ({
@@ -266,12 +267,7 @@ const SeedsSaplingsPage = () => {
   useEffect(() => {
     async function loadCrops() {
       try {
-        const res = await fetch(`${API}/crops`);
-        if (!res.ok) {
-          console.error('Failed to fetch crops for Seeds & Saplings:', res.status, res.statusText);
-          return;
-        }
-        const rows = await res.json();
+        const rows = await fetchAllPages(`${API}/crops`);
         const mapped = rows.map((row) => mapCropToProduct(row, BACKEND_ORIGIN));
         const seedsOnly = filterBySection(mapped, 'seeds').map(product => ({
           ...product,
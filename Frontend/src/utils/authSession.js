@@ -0,0 +1,97 @@
+import axios from 'axios';
+
+// Session tokens returned by /auth/login, /auth/register and /auth/otp/verify.
+// Every API call gets "Authorization: Bearer <accessToken>"; when one comes back 401
+// the access token is renewed once with the refresh token and the call is retried.
+
+const ACCESS_TOKEN = 'accessToken';
+const REFRESH_TOKEN = 'refreshToken';
+
+export const saveSession = (data) => {
+  if (data && data.accessToken) {
+    localStorage.setItem(ACCESS_TOKEN, data.accessToken);
+    localStorage.setItem(REFRESH_TOKEN, data.refreshToken);
+  }
+};
+
+export const clearSession = () => {
+  localStorage.removeItem(ACCESS_TOKEN);
+  localStorage.removeItem(REFRESH_TOKEN);
+};
+
+const isApiUrl = (url) =>
+  typeof url === 'string' && url.includes('/api/') && !url.includes('/api/auth/');
+
+let pendingRefresh = null;
+
+// Concurrent 401s share one refresh call
+const refreshSession = (nativeFetch, failedUrl) => {
+  const refreshToken = localStorage.getItem(REFRESH_TOKEN);
+  if (!refreshToken) {
+    return Promise.resolve(false);
+  }
+  if (!pendingRefresh) {
+    const apiBase = failedUrl.slice(0, failedUrl.indexOf('/api/') + 4);
+    pendingRefresh = nativeFetch(`${apiBase}/auth/refresh`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify({ refreshToken }),
+    })
+      .then((res) => (res.ok ? res.json() : null))
+      .then((data) => {
+        if (data && data.accessToken) {
+          saveSession(data);
+          return true;
+        }
+        clearSession();
+        return false;
+      })
+      .catch(() => false)
+      .finally(() => {
+        pendingRefresh = null;
+      });
+  }
+  return pendingRefresh;
+};
+
+export const installAuthInterceptors = () => {
+  const nativeFetch = window.fetch.bind(window);
+
+  window.fetch = async (input, init = {}) => {
+    const url = typeof input === 'string' ? input : input && input.url;
+    if (!isApiUrl(url)) {
+      return nativeFetch(input, init);
+    }
+    const send = () => {
+      const headers = new Headers(init.headers || (input instanceof Request ? input.headers : undefined));
+      const token = localStorage.getItem(ACCESS_TOKEN);
+      if (token) {
+        headers.set('Authorization', `Bearer ${token}`);
+      }
+      return nativeFetch(input, { ...init, headers });
+    };
+    const res = await send();
+    if (res.status === 401 && (await refreshSession(nativeFetch, url))) {
+      return send();
+    }
+    return res;
+  };
+
+  axios.interceptors.request.use((config) => {
+    const token = localStorage.getItem(ACCESS_TOKEN);
+    if (token && isApiUrl(config.url)) {
+      config.headers.Authorization = `Bearer ${token}`;
+    }
+    return config;
+  });
+
+  axios.interceptors.response.use(undefined, async (error) => {
+    const config = error.config;
+    if (error.response && error.response.status === 401 && config && !config.authRetried
+        && isApiUrl(config.url) && (await refreshSession(nativeFetch, config.url))) {
+      config.authRetried = true;
+      return axios(config);
+    }
+    return Promise.reject(error);
+  });
+};
@@ -0,0 +1,29 @@
+// Catalog list endpoints (/crops, /admin/crops, /farmers/{id}/crops) return one keyset
+// page per request and put the cursor for the next page in the X-Next-Cursor header.
+// The list pages filter and sort the whole catalog client-side, so they follow the
+// cursor to the last page.
+
+// The server clamps this to app.catalog.page.max-size
+const PAGE_SIZE = 500;
+
+export const fetchAllPages = async (url, options) => {
+  const rows = [];
+  const seen = new Set();
+  let cursor = null;
+  do {
+    const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+    if (cursor) {
+      params.set('cursor', cursor);
+    }
+    const res = await fetch(`${url}${url.includes('?') ? '&' : '?'}${params}`, options);
+    if (!res.ok) {
+      const error = new Error(`Failed to load ${url}: ${res.status} ${res.statusText}`);
+      error.status = res.status;
+      throw error;
+    }
+    rows.push(...(await res.json()));
+    seen.add(cursor);
+    cursor = res.headers.get('X-Next-Cursor');
+  } while (cursor && !seen.has(cursor));
+  return rows;
+};